@@ -0,0 +1,53 @@
+package Benchmark;
+
+import Game.Models.Direction;
+import Game.Models.Field;
+import Server.Lobby;
+import Server.Messages.MessageCodec;
+import Server.Messages.Socket.ItemAction;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fan-out of one message to all players of a lobby
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class BroadcastBenchmarks {
+    /**
+     * Protocol of the players
+     */
+    @Param({MessageCodec.JSON, MessageCodec.BINARY})
+    public String protocol;
+    /**
+     * The lobby
+     */
+    private Lobby lobby;
+    /**
+     * The message that is sent
+     */
+    private ItemAction action;
+
+    /**
+     * Create the lobby and the message
+     */
+    @Setup
+    public void setup() {
+        lobby = Fixtures.createLobby(protocol, Fixtures.PLAYERS);
+        action = new ItemAction(Field.BOMB.name, "Player0", Direction.NORTH, 3, 4);
+    }
+
+    /**
+     * @return number of encodings that were shared between the players
+     */
+    @Benchmark
+    public int sendToAllPlayers() {
+        lobby.sendToAllPlayers(action);
+        return lobby.takeSavedEncodings();
+    }
+}
@@ -0,0 +1,189 @@
+package Benchmark;
+
+import Game.GameModes.GameMode;
+import Game.Models.Direction;
+import Game.Models.Field;
+import Server.Lobby;
+import Server.Messages.ErrorMessage;
+import Server.Messages.Message;
+import Server.Messages.Socket.*;
+import Server.Server;
+import Simulation.Inputs;
+import Simulation.Player;
+import Simulation.World;
+import com.google.gson.Gson;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Lobbies, maps and messages the benchmarks work on
+ */
+public class Fixtures {
+    /**
+     * Number of players in the lobbies of the benchmarks
+     */
+    public static final int PLAYERS = 8;
+    /**
+     * Standard map that is used by the benchmarks
+     */
+    public static final String MAP = "Breakable";
+
+    /**
+     * Create a lobby that is filled with players without clients
+     *
+     * @param protocol protocol of the players
+     * @param players  number of players
+     * @return the lobby
+     */
+    public static Lobby createLobby(String protocol, int players) {
+        Lobby lobby = new Lobby("Benchmark", null, players);
+        for (int i = 0; i < players; i++) {
+            new NullPlayerConnection(lobby, "Player" + i, protocol).start();
+        }
+        return lobby;
+    }
+
+    /**
+     * Load the standard map of the benchmarks
+     *
+     * @return the map or an empty map if the resources are not on the class path
+     */
+    public static Map loadMap() {
+        InputStream stream = Fixtures.class.getResourceAsStream("/Resources/StandardMaps/map_" + MAP + ".json");
+        if (stream == null) {
+            return new Map();
+        }
+        return new Gson().fromJson(new InputStreamReader(stream), Map.class);
+    }
+
+    /**
+     * Create a map with a spawn for every player and solid blocks on every second field
+     *
+     * @param size    number of rows and columns
+     * @param players number of players
+     * @return the map
+     */
+    public static Map createArena(int size, int players) {
+        Map map = new Map(size, players);
+        for (int m = 2; m < size - 1; m += 2) {
+            for (int n = 2; n < size - 1; n += 2) {
+                map.setField(m, n, Field.SOLID_1.id);
+            }
+        }
+        // keep the spawns free
+        for (Position spawn : map.spawns) {
+            map.setField((int) spawn.y, (int) spawn.x, Field.GROUND.id);
+        }
+        return map;
+    }
+
+    /**
+     * Queue one input command per player that walks the player back and forth every 8 ticks
+     *
+     * @param connections the connections of the players
+     * @param tick        number of the tick, used as the sequence number of the command
+     */
+    public static void queueInputs(List<NullPlayerConnection> connections, int tick) {
+        PlayerInput input = new PlayerInput(tick);
+        Direction direction = (tick / 8) % 2 == 0 ? Direction.EAST : Direction.WEST;
+        input.commands.add(new PlayerInput.Command(direction, true, 1000 / Server.ticksPerSecond));
+        for (NullPlayerConnection connection : connections) {
+            connection.queueInput(input);
+        }
+    }
+
+    /**
+     * Create a headless world on the standard map or on an arena
+     *
+     * @param arena "standard" for the standard map with 8 players or the arena as rows x players
+     * @param seed  the seed of the random numbers
+     * @return the world
+     */
+    public static World createWorld(String arena, long seed) {
+        Map map;
+        int players;
+        if (arena.equals("standard")) {
+            map = loadMap();
+            players = PLAYERS;
+        } else {
+            players = Integer.parseInt(arena.substring(arena.indexOf('x') + 1));
+            map = createArena(Integer.parseInt(arena.substring(0, arena.indexOf('x'))), players);
+        }
+        HashMap<String, Integer> colors = new HashMap<>();
+        for (int i = 0; i < players; i++) {
+            colors.put("Player" + i, i);
+        }
+        return new World(map, GameMode.BATTLE_ROYALE, colors, seed, Server.ticksPerSecond, World.Events.NONE);
+    }
+
+    /**
+     * Fill the inputs of every player of a world for one tick, the players walk back and forth every 8 ticks like
+     * the queued inputs and plant a bomb every 64 ticks
+     *
+     * @param world the world
+     * @param tick  number of the tick, used as the sequence number of the command
+     */
+    public static void fillInputs(World world, int tick) {
+        Direction direction = (tick / 8) % 2 == 0 ? Direction.EAST : Direction.WEST;
+        for (Player player : world.getPlayers()) {
+            Inputs inputs = world.getInputs(player.name);
+            inputs.sequence = tick;
+            inputs.commands.add(new PlayerInput.Command(direction, true, 1000 / Server.ticksPerSecond));
+            if (tick % 64 == 0) {
+                inputs.itemActions.add(new ItemAction(Field.BOMB.name, player.name, direction,
+                        (int) (player.position.y / Map.FIELD_SIZE), (int) (player.position.x / Map.FIELD_SIZE)));
+            }
+        }
+    }
+
+    /**
+     * Create a message of every type the game socket carries
+     *
+     * @param lobby lobby whose players the messages belong to
+     * @return the messages by their type
+     */
+    public static java.util.Map<String, Message> createMessages(Lobby lobby) {
+        Position position = new Position(100.5f, 200.25f);
+        position.playerId = "Player0";
+        position.direction = Direction.EAST;
+        position.moving = true;
+        position.ack = 41;
+        position.input = 7;
+        Snapshot snapshot = new Snapshot(10, 9);
+        lobby.players.keySet().forEach(name -> {
+            Position entry = new Position(50, 50);
+            entry.playerId = name;
+            entry.direction = Direction.SOUTH;
+            snapshot.positions.add(entry);
+        });
+        // the last player left the area of the receiver
+        snapshot.hidden.add(snapshot.positions.remove(snapshot.positions.size() - 1).playerId);
+        PlayerInput input = new PlayerInput(42);
+        input.ack = 9;
+        input.commands.add(new PlayerInput.Command(Direction.EAST, true, 16));
+        input.commands.add(new PlayerInput.Command(Direction.EAST, false, 17));
+        PlayerState playerState = new PlayerState("Player0");
+        playerState.item = Field.BOMB.name;
+
+        java.util.Map<String, Message> messages = new LinkedHashMap<>();
+        messages.put(Message.POSITION_TYPE, position);
+        messages.put(Message.SNAPSHOT_TYPE, snapshot);
+        messages.put(Message.INPUT_TYPE, input);
+        messages.put(Message.ITEM_ACTION_TYPE, new ItemAction(Field.BOMB.name, "Player0", Direction.NORTH, 3, 4));
+        messages.put(Message.ITEM_COLLECTED_TYPE, new ItemCollected("Player0", Field.ARROW, 3, 4));
+        messages.put(Message.NEW_ITEM_TYPE, new NewItem(Field.SWORD, 5, 6));
+        messages.put(Message.FIELD_DESTROYED_TYPE, new FieldDestroyed(5, 6));
+        messages.put(Message.PLAYER_STATE_TYPE, playerState);
+        messages.put(Message.GAME_STATE_TYPE, GameState.running(System.currentTimeMillis()));
+        messages.put(Message.LOBBY_STATE_TYPE, new LobbyState(lobby));
+        messages.put(Message.RESPAWN_TYPE, new Respawn("Player0"));
+        messages.put(Message.ERROR_MESSAGE_TYPE, new ErrorMessage("Name already taken"));
+        messages.put(Message.CLOSE_CONNECTION_TYPE, new CloseConnection());
+        messages.put(Message.MAP_TYPE, loadMap());
+        return messages;
+    }
+}
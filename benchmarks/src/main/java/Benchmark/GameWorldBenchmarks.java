@@ -0,0 +1,92 @@
+package Benchmark;
+
+import General.MultiBomb;
+import Server.GameWorld;
+import Server.Lobby;
+import Server.Messages.MessageCodec;
+import Server.Messages.Socket.Map;
+import Server.Server;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * A full tick of a game with moving players, on the standard map with 8 players and on growing arenas
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class GameWorldBenchmarks {
+    /**
+     * Protocol of the players and the arena as rows x players, "standard" is the standard map with 8 players
+     */
+    @Param({MessageCodec.JSON + ":standard", MessageCodec.BINARY + ":standard", MessageCodec.BINARY + ":19x8",
+            MessageCodec.BINARY + ":35x16", MessageCodec.BINARY + ":51x32", MessageCodec.BINARY + ":101x64"})
+    public String game;
+    /**
+     * The game loop
+     */
+    private GameWorld world;
+    /**
+     * Connections of the players
+     */
+    private final List<NullPlayerConnection> connections = new ArrayList<>();
+    /**
+     * Number of the current tick
+     */
+    private int tick = 0;
+
+    /**
+     * Create the game
+     */
+    @Setup
+    public void setup() {
+        // every game logs its start and its statistics, the benchmarks would partly measure the console
+        MultiBomb.LOGGER.setLevel(Level.WARNING);
+        Server.ticksPerSecond = 64;
+        world = create(game, connections);
+    }
+
+    /**
+     * Create a game
+     *
+     * @param game        protocol and arena of the game
+     * @param connections list the connections of the players are added to
+     * @return the game loop
+     */
+    public static GameWorld create(String game, List<NullPlayerConnection> connections) {
+        String protocol = game.substring(0, game.indexOf(':'));
+        String arena = game.substring(game.indexOf(':') + 1);
+        Lobby lobby;
+        Map map;
+        if (arena.equals("standard")) {
+            lobby = Fixtures.createLobby(protocol, Fixtures.PLAYERS);
+            map = Fixtures.loadMap();
+        } else {
+            int size = Integer.parseInt(arena.substring(0, arena.indexOf('x')));
+            int players = Integer.parseInt(arena.substring(arena.indexOf('x') + 1));
+            lobby = Fixtures.createLobby(protocol, players);
+            map = Fixtures.createArena(size, players);
+        }
+        GameWorld world = new GameWorld(lobby, map, 0, 0);
+        lobby.state = Lobby.IN_GAME;
+        lobby.players.values().forEach(pc -> connections.add((NullPlayerConnection) pc));
+        return world;
+    }
+
+    /**
+     * @return true if the game is still running
+     */
+    @Benchmark
+    public boolean tick() {
+        // every player walks back and forth around its spawn
+        Fixtures.queueInputs(connections, ++tick);
+        return world.tick();
+    }
+}
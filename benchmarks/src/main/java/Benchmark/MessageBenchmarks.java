@@ -0,0 +1,72 @@
+package Benchmark;
+
+import Server.Lobby;
+import Server.Messages.Message;
+import Server.Messages.MessageCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of every message type with both codecs
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class MessageBenchmarks {
+    /**
+     * Type of the message
+     */
+    @Param({Message.POSITION_TYPE, Message.SNAPSHOT_TYPE, Message.INPUT_TYPE, Message.ITEM_ACTION_TYPE,
+            Message.ITEM_COLLECTED_TYPE, Message.NEW_ITEM_TYPE, Message.FIELD_DESTROYED_TYPE,
+            Message.PLAYER_STATE_TYPE, Message.GAME_STATE_TYPE, Message.LOBBY_STATE_TYPE, Message.RESPAWN_TYPE,
+            Message.ERROR_MESSAGE_TYPE, Message.CLOSE_CONNECTION_TYPE, Message.MAP_TYPE})
+    public String type;
+    /**
+     * Protocol of the codec
+     */
+    @Param({MessageCodec.JSON, MessageCodec.BINARY})
+    public String protocol;
+    /**
+     * The codec
+     */
+    private MessageCodec codec;
+    /**
+     * The message that is encoded
+     */
+    private Message message;
+    /**
+     * The frame that is decoded
+     */
+    private byte[] frame;
+
+    /**
+     * Create the message and its frame
+     */
+    @Setup
+    public void setup() {
+        Lobby lobby = Fixtures.createLobby(protocol, Fixtures.PLAYERS);
+        codec = MessageCodec.create(protocol, lobby);
+        message = Fixtures.createMessages(lobby).get(type);
+        frame = codec.encode(message);
+    }
+
+    /**
+     * @return the frame of the message
+     */
+    @Benchmark
+    public byte[] encode() {
+        return codec.encode(message);
+    }
+
+    /**
+     * @return the message of the frame
+     */
+    @Benchmark
+    public Message decode() {
+        return codec.decode(frame, 0, frame.length);
+    }
+}
@@ -0,0 +1,51 @@
+package Benchmark;
+
+import Server.Lobby;
+import Server.Messages.MessageCodec;
+import Server.Messages.OutgoingMessage;
+import Server.PlayerConnection;
+
+/**
+ * Connection without a client that encodes every message like a writer would and then drops it
+ */
+public class NullPlayerConnection extends PlayerConnection {
+    /**
+     * Number of bytes that were encoded
+     */
+    public long bytes = 0;
+
+    /**
+     * Constructor
+     *
+     * @param lobby      lobby the player is in
+     * @param playerName name of the player
+     * @param protocol   protocol of the codec
+     */
+    public NullPlayerConnection(Lobby lobby, String playerName, String protocol) {
+        super(lobby, playerName, MessageCodec.create(protocol, lobby));
+    }
+
+    @Override
+    public void start() {
+        join();
+    }
+
+    @Override
+    public void send(OutgoingMessage message) {
+        bytes += message.encode(codec).length;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public int queueDepth() {
+        return 0;
+    }
+
+    @Override
+    public void close() {
+        alive = false;
+    }
+}
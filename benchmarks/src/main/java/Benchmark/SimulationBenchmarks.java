@@ -0,0 +1,55 @@
+package Benchmark;
+
+import Server.Server;
+import Simulation.World;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A tick of a headless world without clients, the players walk and plant bombs and a new game starts once the bombs
+ * decided the game
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class SimulationBenchmarks {
+    /**
+     * The arena as rows x players, "standard" is the standard map with 8 players
+     */
+    @Param({"standard", "19x8", "51x32", "101x64"})
+    public String arena;
+    /**
+     * The world
+     */
+    private World world;
+    /**
+     * Number of the current tick
+     */
+    private int tick = 0;
+
+    /**
+     * Create the world
+     */
+    @Setup
+    public void setup() {
+        Server.ticksPerSecond = 64;
+        world = Fixtures.createWorld(arena, 0);
+    }
+
+    /**
+     * @return the number of simulated ticks
+     */
+    @Benchmark
+    public long step() {
+        Fixtures.fillInputs(world, ++tick);
+        world.step();
+        if (world.calculateWinner().isPresent()) {
+            world = Fixtures.createWorld(arena, tick);
+        }
+        return world.getTick();
+    }
+}
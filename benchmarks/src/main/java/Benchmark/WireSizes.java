@@ -0,0 +1,63 @@
+package Benchmark;
+
+import General.MultiBomb;
+import Server.GameWorld;
+import Server.Lobby;
+import Server.Messages.Message;
+import Server.Messages.MessageCodec;
+import Server.Server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+
+/**
+ * Prints the size of every message type with both codecs and the bytes all players get per tick of a game
+ * <p>
+ * The sizes don't depend on the machine, so they are computed once instead of being measured by JMH.
+ */
+public class WireSizes {
+    /**
+     * Number of ticks the bytes per tick are averaged over
+     */
+    private static final int TICKS = 640;
+
+    /**
+     * Print the sizes
+     *
+     * @param args not used
+     */
+    public static void main(String[] args) {
+        MultiBomb.LOGGER.setLevel(Level.WARNING);
+        Server.ticksPerSecond = 64;
+
+        Lobby json = Fixtures.createLobby(MessageCodec.JSON, Fixtures.PLAYERS);
+        Lobby binary = Fixtures.createLobby(MessageCodec.BINARY, Fixtures.PLAYERS);
+        MessageCodec jsonCodec = MessageCodec.create(MessageCodec.JSON, json);
+        MessageCodec binaryCodec = MessageCodec.create(MessageCodec.BINARY, binary);
+        java.util.Map<String, Message> messages = Fixtures.createMessages(binary);
+
+        System.out.println(String.format("%-16s %10s %10s %8s", "message", "json B", "binary B", "ratio"));
+        messages.forEach((type, message) -> {
+            int jsonSize = jsonCodec.encode(message).length;
+            int binarySize = binaryCodec.encode(message).length;
+            System.out.println(String.format("%-16s %10d %10d %8.2f", type, jsonSize, binarySize,
+                    (double) binarySize / jsonSize));
+        });
+
+        System.out.println();
+        System.out.println(String.format("%-24s %12s", "game", "B/tick"));
+        for (String game : new String[]{MessageCodec.JSON + ":standard", MessageCodec.BINARY + ":standard",
+                MessageCodec.BINARY + ":19x8", MessageCodec.BINARY + ":35x16", MessageCodec.BINARY + ":51x32",
+                MessageCodec.BINARY + ":101x64"}) {
+            List<NullPlayerConnection> connections = new ArrayList<>();
+            GameWorld world = GameWorldBenchmarks.create(game, connections);
+            for (int tick = 1; tick <= TICKS; tick++) {
+                Fixtures.queueInputs(connections, tick);
+                world.tick();
+            }
+            long bytes = connections.stream().mapToLong(c -> c.bytes).sum();
+            System.out.println(String.format("%-24s %12d", game, bytes / TICKS));
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package Server.Messages;
+
+import Benchmark.Fixtures;
+import General.MultiBomb;
+import Server.Lobby;
+import Server.Messages.Socket.Position;
+import Server.Messages.Socket.Snapshot;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.logging.Level;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round trips of every message type through the binary codec and its handling of broken frames
+ */
+class BinaryCodecTest {
+    /**
+     * Type id every message type is encoded with
+     */
+    private static final java.util.Map<String, Byte> TYPE_IDS = new HashMap<>();
+    /**
+     * Lobby whose players the messages belong to
+     */
+    private static Lobby lobby;
+    /**
+     * The codec
+     */
+    private static BinaryCodec codec;
+    /**
+     * A message of every type
+     */
+    private static java.util.Map<String, Message> messages;
+
+    /**
+     * Create the lobby, the codec and the messages
+     */
+    @BeforeAll
+    static void setup() {
+        MultiBomb.LOGGER.setLevel(Level.WARNING);
+        lobby = Fixtures.createLobby(MessageCodec.BINARY, Fixtures.PLAYERS);
+        codec = new BinaryCodec(lobby);
+        messages = Fixtures.createMessages(lobby);
+
+        TYPE_IDS.put(Message.POSITION_TYPE, BinaryCodec.POSITION);
+        TYPE_IDS.put(Message.ITEM_ACTION_TYPE, BinaryCodec.ITEM_ACTION);
+        TYPE_IDS.put(Message.MAP_TYPE, BinaryCodec.MAP);
+        TYPE_IDS.put(Message.FIELD_DESTROYED_TYPE, BinaryCodec.FIELD_DESTROYED);
+        TYPE_IDS.put(Message.GAME_STATE_TYPE, BinaryCodec.GAME_STATE);
+        TYPE_IDS.put(Message.ITEM_COLLECTED_TYPE, BinaryCodec.ITEM_COLLECTED);
+        TYPE_IDS.put(Message.LOBBY_STATE_TYPE, BinaryCodec.LOBBY_STATE);
+        TYPE_IDS.put(Message.PLAYER_STATE_TYPE, BinaryCodec.PLAYER_STATE);
+        TYPE_IDS.put(Message.ERROR_MESSAGE_TYPE, BinaryCodec.ERROR_MESSAGE);
+        TYPE_IDS.put(Message.CLOSE_CONNECTION_TYPE, BinaryCodec.CLOSE_CONNECTION);
+        TYPE_IDS.put(Message.NEW_ITEM_TYPE, BinaryCodec.NEW_ITEM);
+        TYPE_IDS.put(Message.RESPAWN_TYPE, BinaryCodec.RESPAWN);
+        TYPE_IDS.put(Message.SNAPSHOT_TYPE, BinaryCodec.SNAPSHOT);
+        TYPE_IDS.put(Message.INPUT_TYPE, BinaryCodec.INPUT);
+    }
+
+    /**
+     * @return the types of the messages with a binary encoding
+     */
+    static Stream<String> types() {
+        return Stream.of(Message.POSITION_TYPE, Message.SNAPSHOT_TYPE, Message.INPUT_TYPE, Message.ITEM_ACTION_TYPE,
+                Message.ITEM_COLLECTED_TYPE, Message.NEW_ITEM_TYPE, Message.FIELD_DESTROYED_TYPE,
+                Message.PLAYER_STATE_TYPE, Message.GAME_STATE_TYPE, Message.LOBBY_STATE_TYPE, Message.RESPAWN_TYPE,
+                Message.ERROR_MESSAGE_TYPE, Message.CLOSE_CONNECTION_TYPE, Message.MAP_TYPE);
+    }
+
+    /**
+     * Encode and decode a message and compare it by its json
+     *
+     * @param message the message
+     * @return the frame
+     * @throws IOException if the frame can't be read
+     */
+    private static byte[] assertRoundTrip(Message message) throws IOException {
+        byte[] frame = codec.encode(message);
+        assertEquals(frame.length, codec.frameLength(frame, 0, frame.length));
+        assertEquals(message.toJson(), codec.decode(frame, 0, frame.length).toJson());
+        assertEquals(message.toJson(), codec.read(new ByteArrayInputStream(frame)).toJson());
+        return frame;
+    }
+
+    @ParameterizedTest
+    @MethodSource("types")
+    void roundTrip(String type) throws IOException {
+        byte[] frame = assertRoundTrip(messages.get(type));
+        assertEquals(TYPE_IDS.get(type).byteValue(), frame[2]);
+    }
+
+    @Test
+    void unknownPlayerFallsBackToJson() throws IOException {
+        Position position = new Position(3, 4);
+        position.playerId = "Stranger";
+        byte[] frame = assertRoundTrip(position);
+        assertEquals(BinaryCodec.JSON_FRAME, frame[2]);
+    }
+
+    @Test
+    void unknownHiddenPlayerFallsBackToJson() throws IOException {
+        Snapshot snapshot = new Snapshot(5, Snapshot.NO_BASE);
+        snapshot.hidden.add("Stranger");
+        byte[] frame = assertRoundTrip(snapshot);
+        assertEquals(BinaryCodec.JSON_FRAME, frame[2]);
+    }
+
+    @Test
+    void messageWithoutBinaryEncodingIsSentAsJson() throws IOException {
+        Message message = Message.fromJson("{\"type\":\"joinLobby\",\"lobbyName\":\"L\",\"playerID\":\"P\"}");
+        byte[] frame = assertRoundTrip(message);
+        assertEquals(BinaryCodec.JSON_FRAME, frame[2]);
+    }
+
+    @Test
+    void emptyFramesAreInvalid() throws IOException {
+        byte[][] frames = {{0, 0}, {0, 1, BinaryCodec.JSON_FRAME}, {0, 4, BinaryCodec.JSON_FRAME, ' ', ' ', ' '}};
+        for (byte[] frame : frames) {
+            assertFalse(Message.isValid(codec.decode(frame, 0, frame.length)));
+            Message read = codec.read(new ByteArrayInputStream(frame));
+            assertNotNull(read, "only the end of the stream is null");
+            assertFalse(Message.isValid(read));
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("types")
+    void truncatedFramesAreInvalid(String type) {
+        byte[] frame = codec.encode(messages.get(type));
+        for (int length = 2; length < frame.length; length++) {
+            // a complete frame whose length prefix claims less payload than the message needs
+            byte[] truncated = java.util.Arrays.copyOf(frame, length);
+            truncated[0] = (byte) ((length - 2) >>> 8);
+            truncated[1] = (byte) (length - 2);
+            assertFalse(Message.isValid(codec.decode(truncated, 0, length)), type + " cut to " + length + " bytes");
+        }
+    }
+
+    @Test
+    void incompleteFramesHaveNoLength() {
+        byte[] frame = codec.encode(messages.get(Message.POSITION_TYPE));
+        for (int length = 0; length < frame.length; length++) {
+            assertEquals(-1, codec.frameLength(frame, 0, length));
+        }
+    }
+
+    @Test
+    void emptyJsonLinesAreInvalid() throws IOException {
+        for (String line : new String[]{"\n", "   \n", "\r\n", "null\n", "{}\n"}) {
+            byte[] frame = line.getBytes();
+            assertFalse(Message.isValid(JsonCodec.INSTANCE.decode(frame, 0, frame.length)), line);
+            Message read = JsonCodec.INSTANCE.read(new ByteArrayInputStream(frame));
+            assertNotNull(read, "only the end of the stream is null");
+            assertFalse(Message.isValid(read));
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("types")
+    void binaryFramesAreSmaller(String type) {
+        Message message = messages.get(type);
+        int json = JsonCodec.INSTANCE.encode(message).length;
+        int binary = codec.encode(message).length;
+        System.out.println(String.format("%-16s json %5d B, binary %5d B", type, json, binary));
+        assertTrue(binary < json, type + " is " + binary + " bytes in binary and " + json + " bytes in json");
+    }
+}
@@ -0,0 +1,94 @@
+package Simulation;
+
+import Benchmark.Fixtures;
+import Benchmark.GameWorldBenchmarks;
+import Benchmark.NullPlayerConnection;
+import General.MultiBomb;
+import Server.GameWorld;
+import Server.Server;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Worlds that get the same seed and inputs run the same game, so recorded games can be replayed
+ */
+class WorldTest {
+    /**
+     * Number of ticks of every game, long enough for bombs, items and deaths
+     */
+    private static final int TICKS = 3000;
+
+    /**
+     * Silence the logging of the game loop
+     */
+    @BeforeAll
+    static void setup() {
+        MultiBomb.LOGGER.setLevel(Level.WARNING);
+        Server.ticksPerSecond = 64;
+    }
+
+    /**
+     * Run a world with the inputs of the fixtures
+     *
+     * @param world the world
+     * @return the world
+     */
+    private static World run(World world) {
+        for (int tick = 1; tick <= TICKS; tick++) {
+            Fixtures.fillInputs(world, tick);
+            if (tick == TICKS / 2) {
+                world.getInputs("Player3").left = true;
+            }
+            world.step();
+        }
+        return world;
+    }
+
+    @Test
+    void sameSeedRunsTheSameGame() {
+        World first = run(Fixtures.createWorld("standard", 7));
+        World second = run(Fixtures.createWorld("standard", 7));
+        assertEquals(first.checksum(), second.checksum());
+        assertNotEquals(first.checksum(), run(Fixtures.createWorld("standard", 8)).checksum());
+
+        // the game actually happened
+        assertFalse(first.getPlayer("Player3").isAlive());
+        assertTrue(first.getPlayers().stream().filter(p -> !p.isAlive()).count() > 1, "bombs killed players");
+    }
+
+    @Test
+    void replayRunsTheSameGame() {
+        World world = Fixtures.createWorld("standard", 11);
+        Replay replay = world.record();
+        run(world);
+
+        World replayed = replay.run();
+        assertEquals(TICKS, replay.getTicks());
+        assertEquals(world.getTick(), replayed.getTick());
+        assertEquals(world.checksum(), replayed.checksum());
+        for (Player player : world.getPlayers()) {
+            Player other = replayed.getPlayer(player.name);
+            assertEquals(player.position.x, other.position.x);
+            assertEquals(player.position.y, other.position.y);
+            assertEquals(player.playerState.health, other.playerState.health);
+        }
+    }
+
+    @Test
+    void replayOfTheServerRunsTheSameGame() {
+        List<NullPlayerConnection> connections = new ArrayList<>();
+        GameWorld game = GameWorldBenchmarks.create("binary:standard", connections);
+        Replay replay = game.record();
+        for (int tick = 1; tick <= 500; tick++) {
+            Fixtures.queueInputs(connections, tick);
+            game.tick();
+        }
+        assertEquals(game.checksum(), replay.run().checksum());
+    }
+}
@@ -0,0 +1,479 @@
+package Bot;
+
+import Game.Models.Direction;
+import Game.Models.Movement;
+import Server.Messages.BinaryCodec;
+import Server.Messages.ErrorMessage;
+import Server.Messages.Message;
+import Server.Messages.MessageCodec;
+import Server.Messages.REST.CreateLobby;
+import Server.Messages.REST.JoinLobby;
+import Server.Messages.Socket.*;
+import Server.Server;
+import Simulation.Items.ServerArrow;
+import Simulation.Items.ServerBomb;
+import Simulation.Items.ServerSword;
+
+import java.io.*;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless player that joins a lobby over the HTTP server, walks back and forth and uses random items
+ * <p>
+ * The server remembers a join request by the address of the client until its game socket connects. All bots of a
+ * load generator share one address, so they have to join one after another.
+ */
+public class BotClient {
+    /**
+     * Items the bot uses
+     */
+    private static final String[] ITEMS = {ServerBomb.NAME, ServerArrow.NAME, ServerSword.NAME};
+    /**
+     * Item actions that wait longer for their echo are not counted anymore
+     */
+    private static final long STALE_ACTION = TimeUnit.SECONDS.toNanos(2);
+    /**
+     * Time the bot waits for the server to add it to the lobby in milliseconds
+     */
+    private static final long JOIN_TIMEOUT = 5000;
+    /**
+     * Client for the join requests, shared by all bots
+     */
+    private static final HttpClient httpClient = HttpClient.newBuilder().build();
+    /**
+     * Name of the bot
+     */
+    public final String name;
+    /**
+     * Name of the lobby
+     */
+    private final String lobbyName;
+    /**
+     * Address of the server
+     */
+    private final String address;
+    /**
+     * Protocol the bot asks for
+     */
+    private final String protocol;
+    /**
+     * Numbers of the load test
+     */
+    private final BotStats stats;
+    /**
+     * Random number generator for the movement and the items
+     */
+    private final Random random;
+    /**
+     * Colors of the players by their name
+     */
+    private final java.util.Map<String, Integer> colors = new ConcurrentHashMap<>();
+    /**
+     * Send times of the item actions that were not echoed yet
+     */
+    private final Queue<Long> pendingActions = new ConcurrentLinkedQueue<>();
+    /**
+     * Released when the first lobby state arrived or the connection was closed
+     */
+    private final CountDownLatch joined = new CountDownLatch(1);
+    /**
+     * The game socket
+     */
+    private Socket socket;
+    /**
+     * Stream for writing to the server
+     */
+    private OutputStream out;
+    /**
+     * Codec the server accepted
+     */
+    private MessageCodec codec;
+    /**
+     * Map of the current game
+     */
+    private volatile Map map;
+    /**
+     * Time at which the players can move in milliseconds since the epoch
+     */
+    private volatile long gameStart = Long.MAX_VALUE;
+    /**
+     * Indicate if a game is running
+     */
+    private volatile boolean inGame = false;
+    /**
+     * Indicate if the bot is alive in the current game
+     */
+    private volatile boolean alive = false;
+    /**
+     * Indicate if the bot closed the connection itself
+     */
+    private volatile boolean closed = false;
+    /**
+     * Indicate if the bot sent a map and waits for the game to run
+     */
+    private volatile boolean starting = false;
+    /**
+     * Time the last game finished in milliseconds since the epoch
+     */
+    private volatile long finishedAt = 0;
+    /**
+     * Name of the host of the lobby
+     */
+    private volatile String host = "";
+    /**
+     * Tick of the newest snapshot that was received
+     */
+    private volatile int lastSnapshot = Snapshot.NO_BASE;
+    /**
+     * Number of inputs the bot sent
+     */
+    private long steps = 0;
+    /**
+     * Sequence number of the last input command of the current game
+     */
+    private int inputSequence = 0;
+    /**
+     * Time of the last input in nanoseconds
+     */
+    private long lastInput = 0;
+    /**
+     * The last position the server corrected the bot to, null until the first correction of a game
+     */
+    private volatile Position position;
+
+    /**
+     * Constructor
+     *
+     * @param name      name of the bot
+     * @param lobbyName name of the lobby
+     * @param address   address of the server
+     * @param protocol  protocol the bot asks for
+     * @param stats     numbers of the load test
+     * @param seed      seed for the random number generator
+     */
+    public BotClient(String name, String lobbyName, String address, String protocol, BotStats stats, long seed) {
+        this.name = name;
+        this.lobbyName = lobbyName;
+        this.address = address;
+        this.protocol = protocol;
+        this.stats = stats;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Join the lobby with the same requests the menu sends, open the game socket and wait until the server added
+     * the bot to the lobby
+     *
+     * @param create     true if the bot creates the lobby
+     * @param maxPlayers number of players that can join the lobby if the bot creates it
+     * @return true if the server accepted the bot
+     * @throws IOException          if the server can't be reached
+     * @throws InterruptedException if the join request was interrupted
+     */
+    public boolean connect(boolean create, int maxPlayers) throws IOException, InterruptedException {
+        String query;
+        if (create) {
+            CreateLobby message = new CreateLobby();
+            message.playerID = name;
+            message.lobbyName = lobbyName;
+            message.protocol = protocol;
+            message.maxPlayers = maxPlayers;
+            query = message.toJson();
+        } else {
+            JoinLobby message = new JoinLobby();
+            message.playerID = name;
+            message.lobbyName = lobbyName;
+            message.protocol = protocol;
+            query = message.toJson();
+        }
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://" + address + ":" + Server.HTTP_PORT + "/lobby"))
+                .POST(HttpRequest.BodyPublishers.ofString(query))
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            stats.joinFailures.increment();
+            Message error = Message.fromJson(response.body());
+            System.err.println(name + " could not join " + lobbyName + ": "
+                    + (error instanceof ErrorMessage ? ((ErrorMessage) error).error : response.statusCode()));
+            return false;
+        }
+
+        // older servers respond without a body and only speak json
+        String accepted = MessageCodec.JSON;
+        if (!response.body().isEmpty()) {
+            Message message = Message.fromJson(response.body());
+            if (message.type.equals(Message.JOIN_LOBBY_TYPE)) {
+                accepted = ((JoinLobby) message).protocol;
+            }
+        }
+
+        socket = new Socket(address, Server.GAME_PORT);
+        socket.setTcpNoDelay(true);
+        out = new BufferedOutputStream(socket.getOutputStream());
+        InputStream in = new BufferedInputStream(socket.getInputStream());
+        codec = MessageCodec.create(accepted, new BinaryCodec.PlayerIndex() {
+            @Override
+            public int getPlayerIndex(String playerId) {
+                Integer color = colors.get(playerId);
+                return color == null ? -1 : color;
+            }
+
+            @Override
+            public String getPlayerName(int index) {
+                for (java.util.Map.Entry<String, Integer> entry : colors.entrySet()) {
+                    if (entry.getValue() == index) {
+                        return entry.getKey();
+                    }
+                }
+                return null;
+            }
+        });
+
+        Thread reader = new Thread(() -> receive(in), "Bot-" + name);
+        reader.setDaemon(true);
+        reader.start();
+
+        // the server matches the socket to the join request by the address, so the next bot may only join after it
+        if (!joined.await(JOIN_TIMEOUT, TimeUnit.MILLISECONDS) || !colors.containsKey(name)) {
+            stats.joinFailures.increment();
+            System.err.println(name + " was not added to " + lobbyName);
+            close();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Start a game on an empty map with a spawn for every color, only works for the host
+     *
+     * @param size number of rows and columns of the map
+     */
+    public void startGame(int size) {
+        starting = true;
+        int spawns = Math.max(Map.SPAWNS, colors.values().stream().mapToInt(c -> c + 1).max().orElse(0));
+        Map map = new Map(size, spawns);
+        map.name = "Bot arena";
+        map.shuffleSpawns();
+        send(map);
+    }
+
+    /**
+     * Send the input of the current tick and randomly use an item
+     *
+     * @param itemChance probability to use an item in this tick
+     */
+    public void tick(double itemChance) {
+        Map map = this.map;
+        Integer color = colors.get(name);
+        if (!inGame || !alive || map == null || color == null || System.currentTimeMillis() < gameStart) {
+            return;
+        }
+
+        // walk back and forth, the server simulates the movement
+        long now = System.nanoTime();
+        int duration = lastInput == 0 ? 0 : (int) Math.min(TimeUnit.NANOSECONDS.toMillis(now - lastInput),
+                Movement.MAX_COMMAND_DURATION);
+        lastInput = now;
+        Direction direction = Math.cos(steps++ * 0.05 + color) > 0 ? Direction.EAST : Direction.WEST;
+        PlayerInput input = new PlayerInput(++inputSequence);
+        input.commands.add(new PlayerInput.Command(direction, true, duration));
+        input.ack = lastSnapshot == Snapshot.NO_BASE ? null : lastSnapshot;
+        send(input);
+
+        if (random.nextDouble() < itemChance) {
+            // until the first correction arrived the bot is at its spawn
+            Position position = this.position;
+            int m = position == null ? (int) map.spawns[color].y : (int) (position.y / Map.FIELD_SIZE);
+            int n = position == null ? (int) map.spawns[color].x : (int) (position.x / Map.FIELD_SIZE);
+            Direction itemDirection = Direction.values()[random.nextInt(Direction.values().length)];
+            pendingActions.add(System.nanoTime());
+            send(new ItemAction(ITEMS[random.nextInt(ITEMS.length)], name, itemDirection, m, n));
+        }
+    }
+
+    /**
+     * @return true if the bot hosts its lobby
+     */
+    public boolean isHost() {
+        return colors.containsKey(name) && name.equals(host);
+    }
+
+    /**
+     * @return true if the bot plays in a running game
+     */
+    public boolean isInGame() {
+        return inGame;
+    }
+
+    /**
+     * @return true if the bot sent a map and waits for the game to run
+     */
+    public boolean isStarting() {
+        return starting;
+    }
+
+    /**
+     * @return time the last game finished in milliseconds since the epoch, 0 if no game finished yet
+     */
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    /**
+     * @return number of players in the lobby
+     */
+    public int getPlayerCount() {
+        return colors.size();
+    }
+
+    /**
+     * Close the game socket
+     */
+    public void close() {
+        closed = true;
+        try {
+            if (socket != null) {
+                socket.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Send a message to the server
+     *
+     * @param message the message
+     */
+    private synchronized void send(Message message) {
+        if (closed || out == null) {
+            return;
+        }
+        try {
+            out.write(codec.encode(message));
+            out.flush();
+            stats.messagesSent.increment();
+        } catch (IOException e) {
+            // the reader notices the closed socket
+        }
+    }
+
+    /**
+     * Read messages until the socket is closed
+     *
+     * @param in stream of the game socket
+     */
+    private void receive(InputStream in) {
+        try {
+            Message message;
+            while ((message = codec.read(in)) != null) {
+                stats.messagesReceived.increment();
+                handleMessage(message);
+            }
+        } catch (IOException e) {
+            // handled like a closed connection
+        }
+
+        if (!closed) {
+            stats.disconnects.increment();
+            closed = true;
+        }
+        inGame = false;
+        joined.countDown();
+    }
+
+    /**
+     * Handle a message of the server
+     *
+     * @param message the message
+     */
+    private void handleMessage(Message message) {
+        switch (message.type) {
+            case Message.LOBBY_STATE_TYPE:
+                LobbyState lobbyState = (LobbyState) message;
+                colors.keySet().retainAll(lobbyState.players.keySet());
+                colors.putAll(lobbyState.players);
+                host = lobbyState.hostId;
+                joined.countDown();
+                break;
+            case Message.MAP_TYPE:
+                map = (Map) message;
+                inputSequence = 0;
+                lastInput = 0;
+                position = null;
+                send(GameState.preparing());
+                break;
+            case Message.POSITION_TYPE:
+                Position correction = (Position) message;
+                if (correction.input != null && name.equals(correction.playerId)) {
+                    position = correction;
+                }
+                break;
+            case Message.GAME_STATE_TYPE:
+                GameState gameState = (GameState) message;
+                if (gameState.state == GameState.RUNNING) {
+                    gameStart = gameState.timestamp;
+                    pendingActions.clear();
+                    alive = true;
+                    inGame = true;
+                    starting = false;
+                } else if (gameState.state == GameState.FINISHED) {
+                    inGame = false;
+                    alive = false;
+                    finishedAt = System.currentTimeMillis();
+                    if (isHost()) {
+                        stats.gamesFinished.increment();
+                    }
+                }
+                break;
+            case Message.SNAPSHOT_TYPE:
+                lastSnapshot = Math.max(lastSnapshot, ((Snapshot) message).tick);
+                break;
+            case Message.ITEM_ACTION_TYPE:
+                if (name.equals(((ItemAction) message).playerId)) {
+                    recordEcho();
+                }
+                break;
+            case Message.PLAYER_STATE_TYPE:
+                PlayerState playerState = (PlayerState) message;
+                if (name.equals(playerState.playerId) && playerState.health <= 0) {
+                    // the actions of a dead player are dropped by the server
+                    alive = false;
+                    pendingActions.clear();
+                }
+                break;
+            case Message.RESPAWN_TYPE:
+                if (name.equals(((Respawn) message).playerId)) {
+                    alive = true;
+                }
+                break;
+        }
+    }
+
+    /**
+     * Match an echoed item action with the oldest pending one
+     */
+    private void recordEcho() {
+        long now = System.nanoTime();
+        Long sent;
+        while ((sent = pendingActions.poll()) != null) {
+            long latency = now - sent;
+            if (latency < STALE_ACTION) {
+                stats.recordLatency(latency);
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package Bot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Numbers that are collected by all bots of a load test
+ */
+public class BotStats {
+    /**
+     * Messages sent by the bots
+     */
+    public final LongAdder messagesSent = new LongAdder();
+    /**
+     * Messages received by the bots
+     */
+    public final LongAdder messagesReceived = new LongAdder();
+    /**
+     * Connections that were lost while the bot was still playing
+     */
+    public final LongAdder disconnects = new LongAdder();
+    /**
+     * Join requests that were rejected by the server
+     */
+    public final LongAdder joinFailures = new LongAdder();
+    /**
+     * Games that were finished
+     */
+    public final LongAdder gamesFinished = new LongAdder();
+    /**
+     * Latencies in nanoseconds that were recorded since the last report
+     */
+    private List<Long> latencies = new ArrayList<>();
+    /**
+     * Latencies in nanoseconds of the whole load test
+     */
+    private final List<Long> allLatencies = new ArrayList<>();
+
+    /**
+     * Record the time between sending an item action and receiving it back from the server
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    public synchronized void recordLatency(long nanos) {
+        latencies.add(nanos);
+    }
+
+    /**
+     * Take the latencies that were recorded since the last call
+     *
+     * @return the latencies in nanoseconds
+     */
+    public synchronized List<Long> takeLatencies() {
+        List<Long> taken = latencies;
+        latencies = new ArrayList<>();
+        allLatencies.addAll(taken);
+        return taken;
+    }
+
+    /**
+     * @return copy of all latencies of the load test that were taken so far
+     */
+    public synchronized List<Long> getAllLatencies() {
+        return new ArrayList<>(allLatencies);
+    }
+
+    /**
+     * Format the percentiles of latencies
+     *
+     * @param latencies latencies in nanoseconds
+     * @return the percentiles in milliseconds
+     */
+    public static String percentiles(List<Long> latencies) {
+        if (latencies.isEmpty()) {
+            return "no samples";
+        }
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        return String.format("n=%d p50=%.1fms p90=%.1fms p99=%.1fms max=%.1fms", sorted.size(),
+                percentile(sorted, 0.5), percentile(sorted, 0.9), percentile(sorted, 0.99),
+                sorted.get(sorted.size() - 1) / 1e6);
+    }
+
+    /**
+     * Get a percentile of sorted latencies
+     *
+     * @param sorted   latencies in nanoseconds in ascending order
+     * @param fraction the percentile between 0 and 1
+     * @return the percentile in milliseconds
+     */
+    private static double percentile(List<Long> sorted, double fraction) {
+        int index = (int) Math.ceil(fraction * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index)) / 1e6;
+    }
+}
@@ -0,0 +1,385 @@
+package Bot;
+
+import Server.Messages.MessageCodec;
+import Server.Messages.Socket.Map;
+import Server.Server;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load generator that fills a game server with lobbies of bots
+ * <p>
+ * Every lobby is hosted by its first bot, which starts a new game whenever the last one finished. The bots send
+ * their inputs at the tick rate and use random items. Every few seconds the latency between sending an item
+ * action and receiving it back, the disconnects and the tick overruns reported by the server are printed. Lobbies
+ * are created for exactly the bots per lobby, so more than the default eight players can be tested on bigger maps.
+ * The platform threads and the resident memory of the server are sampled from its metrics as well.
+ */
+public class LoadGenerator {
+    /**
+     * Time between two reports in milliseconds
+     */
+    private static final long REPORT_INTERVAL = 5000;
+    /**
+     * Time the host waits after a game finished before it starts the next one in milliseconds
+     */
+    private static final long RESTART_DELAY = 1000;
+    /**
+     * Time between two samples of the server resources in milliseconds
+     */
+    private static final long SAMPLE_INTERVAL = 1000;
+    /**
+     * Time a server of the transport comparison may take to start or to stop in milliseconds
+     */
+    private static final long SERVER_TIMEOUT = 20000;
+    /**
+     * First argument that compares the transports
+     */
+    private static final String COMPARE = "compare";
+    /**
+     * Transports that are compared
+     */
+    private static final String[] TRANSPORTS = {Server.THREAD_TRANSPORT, Server.VIRTUAL_TRANSPORT, Server.NIO_TRANSPORT};
+    /**
+     * Address of the servers of the transport comparison
+     */
+    private static final String LOCALHOST = "localhost";
+    /**
+     * Client for reading the metrics of the server
+     */
+    private static final HttpClient httpClient = HttpClient.newBuilder().build();
+
+    /**
+     * Run a load test
+     *
+     * @param args address, number of lobbies and the optional bots per lobby, duration in seconds, protocol, item
+     *             uses per bot and second, tick rate and map size, or "compare" with the optional number of players,
+     *             duration in seconds and protocol
+     * @throws Exception if the load test can't be started
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && COMPARE.equals(args[0])) {
+            compareTransports(args);
+            return;
+        }
+        if (args.length < 2) {
+            System.out.println("Usage: <address> <lobbies> [botsPerLobby] [seconds] [protocol] [itemsPerSecond] "
+                    + "[tickRate] [mapSize]");
+            System.out.println("   or: " + COMPARE + " [players] [seconds] [protocol]");
+            return;
+        }
+        String address = args[0];
+        int lobbies = Integer.parseInt(args[1]);
+        int botsPerLobby = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        long seconds = args.length > 3 ? Long.parseLong(args[3]) : 60;
+        String protocol = args.length > 4 ? args[4] : MessageCodec.BINARY;
+        double itemsPerSecond = args.length > 5 ? Double.parseDouble(args[5]) : 0.5;
+        int tickRate = args.length > 6 ? Integer.parseInt(args[6]) : 64;
+        int mapSize = args.length > 7 ? Integer.parseInt(args[7]) : Map.SIZE;
+
+        run(address, lobbies, botsPerLobby, seconds, protocol, itemsPerSecond, tickRate, mapSize, new ServerResources());
+    }
+
+    /**
+     * Run the same load against a local server with every transport and compare the threads and the memory it needs
+     * <p>
+     * Every transport gets a fresh server process that is started with the java command and class path of the load
+     * generator, so the virtual threads are only compared if it runs on Java 21 or higher.
+     *
+     * @param args "compare" and the optional number of players, duration in seconds and protocol
+     * @throws Exception if a server can't be started
+     */
+    private static void compareTransports(String[] args) throws Exception {
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 128;
+        long seconds = args.length > 2 ? Long.parseLong(args[2]) : 30;
+        String protocol = args.length > 3 ? args[3] : MessageCodec.BINARY;
+        int lobbies = (players + Map.SPAWNS - 1) / Map.SPAWNS;
+
+        List<String> results = new ArrayList<>();
+        for (String transport : TRANSPORTS) {
+            System.out.println(String.format("Starting a server with the %s transport for %d players", transport,
+                    lobbies * Map.SPAWNS));
+            Process server = startServer(transport, lobbies);
+            try {
+                ServerResources resources = new ServerResources();
+                BotStats stats = run(LOCALHOST, lobbies, Map.SPAWNS, seconds, protocol, 0.5, 64, Map.SIZE, resources);
+                results.add(String.format("%-8s %s, latency %s, %d join failures, %d disconnects", transport,
+                        resources, BotStats.percentiles(stats.getAllLatencies()), stats.joinFailures.sum(),
+                        stats.disconnects.sum()));
+            } finally {
+                server.destroy();
+                if (!server.waitFor(SERVER_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                    server.destroyForcibly().waitFor();
+                }
+            }
+        }
+
+        System.out.println(String.format("Server resources with %d players:", lobbies * Map.SPAWNS));
+        results.forEach(System.out::println);
+    }
+
+    /**
+     * Start a local server process and wait until it serves its metrics
+     *
+     * @param transport  transport of the server
+     * @param maxLobbies maximum number of lobbies
+     * @return the server process
+     * @throws Exception if the server doesn't start in time
+     */
+    private static Process startServer(String transport, int maxLobbies) throws Exception {
+        String java = ProcessHandle.current().info().command().orElse("java");
+        Process server = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                "General.MultiBomb", "-s", "LoadTest", "64", Integer.toString(maxLobbies), transport)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+
+        long deadline = System.currentTimeMillis() + SERVER_TIMEOUT;
+        while (readMetrics(LOCALHOST) == null) {
+            if (!server.isAlive() || System.currentTimeMillis() > deadline) {
+                server.destroyForcibly();
+                throw new IllegalStateException("Server with the " + transport + " transport didn't start");
+            }
+            Thread.sleep(100);
+        }
+        return server;
+    }
+
+    /**
+     * Fill a server with lobbies of bots and print their numbers until the time is up
+     *
+     * @param address        address of the server
+     * @param lobbies        number of lobbies
+     * @param botsPerLobby   number of bots per lobby
+     * @param seconds        duration in seconds
+     * @param protocol       protocol the bots ask for
+     * @param itemsPerSecond item uses per bot and second
+     * @param tickRate       rate the bots send their inputs at
+     * @param mapSize        number of rows and columns of the maps
+     * @param resources      samples the threads and memory of the server
+     * @return the numbers of the load test
+     * @throws Exception if the bots can't connect
+     */
+    private static BotStats run(String address, int lobbies, int botsPerLobby, long seconds, String protocol,
+                                double itemsPerSecond, int tickRate, int mapSize, ServerResources resources)
+            throws Exception {
+        BotStats stats = new BotStats();
+        List<List<BotClient>> groups = new ArrayList<>();
+        for (int l = 0; l < lobbies; l++) {
+            List<BotClient> group = new ArrayList<>();
+            for (int b = 0; b < botsPerLobby; b++) {
+                BotClient bot = new BotClient("Bot" + l + "-" + b, "Load" + l, address, protocol, stats,
+                        (long) l * botsPerLobby + b);
+                if (bot.connect(b == 0, botsPerLobby)) {
+                    group.add(bot);
+                }
+            }
+            groups.add(group);
+        }
+        System.out.println(String.format("Connected %d bots in %d lobbies, %d join failures",
+                groups.stream().mapToInt(List::size).sum(), lobbies, stats.joinFailures.sum()));
+
+        // every lobby sends its inputs on one of the threads
+        ScheduledExecutorService executor = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors());
+        double itemChance = itemsPerSecond / tickRate;
+        long period = TimeUnit.SECONDS.toNanos(1) / tickRate;
+        for (List<BotClient> group : groups) {
+            executor.scheduleAtFixedRate(() -> group.forEach(bot -> bot.tick(itemChance)), period, period,
+                    TimeUnit.NANOSECONDS);
+        }
+
+        long end = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(seconds);
+        long nextReport = System.currentTimeMillis() + REPORT_INTERVAL;
+        long nextSample = System.currentTimeMillis();
+        while (System.currentTimeMillis() < end) {
+            for (List<BotClient> group : groups) {
+                restartGame(group, mapSize);
+            }
+            if (System.currentTimeMillis() >= nextSample) {
+                resources.sample(readMetrics(address));
+                nextSample += SAMPLE_INTERVAL;
+            }
+            if (System.currentTimeMillis() >= nextReport) {
+                report(address, stats, groups, stats.takeLatencies(), resources);
+                nextReport += REPORT_INTERVAL;
+            }
+            Thread.sleep(100);
+        }
+
+        executor.shutdownNow();
+        stats.takeLatencies();
+        System.out.println("Total: latency " + BotStats.percentiles(stats.getAllLatencies())
+                + String.format(", %d games, %d messages sent, %d received, %d disconnects",
+                stats.gamesFinished.sum(), stats.messagesSent.sum(), stats.messagesReceived.sum(),
+                stats.disconnects.sum()));
+        System.out.println(tickOverruns(readMetrics(address)) + ", " + resources);
+        groups.forEach(group -> group.forEach(BotClient::close));
+        return stats;
+    }
+
+    /**
+     * Let the host start a game if all bots joined and no game is running
+     *
+     * @param group   the bots of a lobby
+     * @param mapSize number of rows and columns of the map
+     */
+    private static void restartGame(List<BotClient> group, int mapSize) {
+        if (group.size() < 2) {
+            return;
+        }
+        BotClient host = group.stream().filter(BotClient::isHost).findFirst().orElse(null);
+        if (host == null || host.isInGame() || host.isStarting() || host.getPlayerCount() < group.size()) {
+            return;
+        }
+        if (System.currentTimeMillis() - host.getFinishedAt() >= RESTART_DELAY) {
+            host.startGame(mapSize);
+        }
+    }
+
+    /**
+     * Print the numbers of the last interval
+     *
+     * @param address   address of the server
+     * @param stats     numbers of the load test
+     * @param groups    the bots by their lobby
+     * @param latencies latencies of the interval in nanoseconds
+     * @param resources the threads and memory of the server
+     */
+    private static void report(String address, BotStats stats, List<List<BotClient>> groups, List<Long> latencies,
+                               ServerResources resources) {
+        long playing = groups.stream().flatMap(List::stream).filter(BotClient::isInGame).count();
+        System.out.println(String.format("%d bots playing, latency %s, %d games, %d disconnects, %s, %s", playing,
+                BotStats.percentiles(latencies), stats.gamesFinished.sum(), stats.disconnects.sum(),
+                tickOverruns(readMetrics(address)), resources.current()));
+    }
+
+    /**
+     * Read the metrics of the server, the samples of a metric are summed over all labels
+     *
+     * @param address address of the server
+     * @return the metrics by their name or null if they are not available
+     */
+    private static java.util.Map<String, Double> readMetrics(String address) {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://" + address + ":" + Server.HTTP_PORT + "/metrics"))
+                .GET()
+                .build();
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            java.util.Map<String, Double> metrics = new HashMap<>();
+            for (String line : response.body().split("\n")) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int nameEnd = line.indexOf('{') >= 0 ? line.indexOf('{') : line.indexOf(' ');
+                double value = Double.parseDouble(line.substring(line.lastIndexOf(' ') + 1));
+                metrics.merge(line.substring(0, nameEnd), value, Double::sum);
+            }
+            return metrics;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Get the tick overruns of the running games
+     *
+     * @param metrics metrics of the server, null if they are not available
+     * @return the summed overruns and skipped ticks
+     */
+    private static String tickOverruns(java.util.Map<String, Double> metrics) {
+        if (metrics == null) {
+            return "server metrics not available";
+        }
+        return String.format("server tick overruns %d, skipped ticks %d",
+                metrics.getOrDefault("multibomb_tick_overruns_total", 0.0).longValue(),
+                metrics.getOrDefault("multibomb_skipped_ticks_total", 0.0).longValue());
+    }
+
+    /**
+     * Samples of the platform threads and the resident memory of the server
+     */
+    private static class ServerResources {
+        /**
+         * Number of samples
+         */
+        private int samples = 0;
+        /**
+         * Threads of the last sample
+         */
+        private long threads = 0;
+        /**
+         * Sum of the threads of all samples
+         */
+        private long totalThreads = 0;
+        /**
+         * Most threads of a sample
+         */
+        private long maxThreads = 0;
+        /**
+         * Resident memory of the last sample in bytes
+         */
+        private long memory = 0;
+        /**
+         * Sum of the resident memory of all samples in bytes
+         */
+        private long totalMemory = 0;
+        /**
+         * Most resident memory of a sample in bytes
+         */
+        private long maxMemory = 0;
+
+        /**
+         * Add a sample
+         *
+         * @param metrics metrics of the server, null if they are not available
+         */
+        private void sample(java.util.Map<String, Double> metrics) {
+            if (metrics == null || !metrics.containsKey("multibomb_threads")) {
+                return;
+            }
+            samples++;
+            threads = metrics.get("multibomb_threads").longValue();
+            memory = metrics.getOrDefault("multibomb_resident_memory_bytes", -1.0).longValue();
+            totalThreads += threads;
+            totalMemory += memory;
+            maxThreads = Math.max(maxThreads, threads);
+            maxMemory = Math.max(maxMemory, memory);
+        }
+
+        /**
+         * @return the threads and memory of the last sample
+         */
+        private String current() {
+            return String.format("server threads %d, RSS %s", threads, megabytes(memory));
+        }
+
+        /**
+         * Format a memory size
+         *
+         * @param bytes the size in bytes, negative if it is unknown
+         * @return the size in megabytes
+         */
+        private static String megabytes(long bytes) {
+            return bytes < 0 ? "unknown" : String.format("%.1f MB", bytes / 1048576.0);
+        }
+
+        @Override
+        public String toString() {
+            if (samples == 0) {
+                return "server resources not available";
+            }
+            return String.format("server threads mean %d max %d, RSS mean %s max %s", totalThreads / samples,
+                    maxThreads, megabytes(totalMemory / samples), megabytes(maxMemory));
+        }
+    }
+}
@@ -143,7 +143,7 @@ public class Editor extends MBPanel {
         boolean right = SwingUtilities.isRightMouseButton(e);
 
         // Check if the mouse is in the field
-        if (m > 0 && m < Map.SIZE - 1 && n > 0 && n < Map.SIZE - 1) {
+        if (m > 0 && m < map.getSize() - 1 && n > 0 && n < map.getSize() - 1) {
             // Check if the field is a spawn point
             int spawn = -1;
             for (int i = 0; i < map.spawns.length; i++) {
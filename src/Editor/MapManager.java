@@ -129,7 +129,7 @@ public class MapManager {
     private static void save(Map map) {
         // Check if the map contains 8 spawn points
         if (!map.allSpawnsSet()) {
-            MB.activePanel.toastError("The map only has " + map.countSpawns() + " of 8 spawns!");
+            MB.activePanel.toastError("The map only has " + map.countSpawns() + " of " + map.spawns.length + " spawns!");
             return;
         }
 
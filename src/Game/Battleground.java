@@ -2,6 +2,7 @@ package Game;
 
 import Game.Items.Item;
 import Game.Models.Field;
+import Game.Models.InterpolationBuffer;
 import Game.Models.Player;
 import General.MB;
 import General.Shared.MBBackground;
@@ -11,6 +12,8 @@ import Server.Messages.Socket.Map;
 import Server.Messages.Socket.Position;
 
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collections;
 
 public class Battleground extends MBPanel {
     /**
@@ -41,6 +44,14 @@ public class Battleground extends MBPanel {
      * True if the panel should start drawing the battleground
      */
     public boolean startDrawing = false;
+    /**
+     * True if the battleground is rendered on a canvas instead of being painted by Swing
+     */
+    public boolean activeRendering = false;
+    /**
+     * The pre-rendered ground and obstacles
+     */
+    private final TerrainCache terrain = new TerrainCache();
 
     /**
      * Constructor
@@ -61,11 +72,11 @@ public class Battleground extends MBPanel {
      */
     public void calculateSize() {
         // Calculate the field size
-        fieldSize = (int) ((float) getHeight() / Map.SIZE);
+        fieldSize = (int) ((float) getHeight() / map.getSize());
         // Calculate the ratio
         ratio = (float) fieldSize / Map.FIELD_SIZE;
         // Calculate the offset
-        offset = (getHeight() - fieldSize * Map.SIZE) / 2;
+        offset = (getHeight() - fieldSize * map.getSize()) / 2;
         // Calculate the offset for fields
         Field.offset_x = (int) -((Field.WIDTH - Map.FIELD_SIZE) / 2 * ratio);
         // Calculate the offset for fields
@@ -92,23 +103,27 @@ public class Battleground extends MBPanel {
      */
     public void paintComponent(Graphics g) {
         super.paintComponent(g);
+        if (!activeRendering) {
+            render(g);
+        }
+    }
+
+    /**
+     * Render the battleground
+     *
+     * @param g the graphics of the panel or of the canvas it is rendered on
+     */
+    public void render(Graphics g) {
         if (!startDrawing) {
             return;
         }
         Graphics2D g2d = (Graphics2D) g;
         MB.settings.enableAntiAliasing(g);
+        int mapSize = map.getSize();
 
-        // Draw the ground
-        for (int m = 0; m < Map.SIZE; m++) {
-            for (int n = 0; n < Map.SIZE; n++) {
-                g.drawImage(
-                        Field.GROUND.image.image,
-                        n * fieldSize + offset + Field.offset_x,
-                        m * fieldSize + offset + Field.offset_y,
-                        null
-                );
-            }
-        }
+        // Draw the ground, the rows of fields that changed are rendered again
+        terrain.update(this, map);
+        terrain.paintGround(g);
 
         // Draw the spawns
         if (drawSpawns) {
@@ -124,27 +139,38 @@ public class Battleground extends MBPanel {
             }
         }
 
-        // Draw the map
-        for (int m = 0; m < Map.SIZE; m++) {
-            for (int n = 0; n < Map.SIZE; n++) {
-                // Identify the field item
-                Field field = Field.getItem(map.getField(m, n));
-
-                // Check if item doesn't exist or is ground
-                if (field != null && field.id != Field.GROUND.id) {
-                    // Draw the image respecting the images ratio and the required offset
-                    g.drawImage(
-                            field.image.image,
-                            n * fieldSize + offset + Field.offset_x,
-                            m * fieldSize + offset + Field.offset_y,
-                            null
-                    );
+        // Sort the players into their rows, so a field only checks the players of its row
+        ArrayList<ArrayList<Player>> playerRows = new ArrayList<>(Collections.nCopies(mapSize, null));
+        if (drawPlayers) {
+            // remote players are drawn slightly in the past, between the positions of the server around that time
+            long renderTime = InterpolationBuffer.renderTime(Lobby.tickRate);
+            for (Player player : Lobby.players.values()) {
+                if (player != null && !player.name.equals(Lobby.player)) {
+                    player.interpolate(renderTime);
                 }
+            }
+            for (Player player : Lobby.players.values()) {
+                int m = player == null ? -1 : (int) Math.floor(player.position.y / Map.FIELD_SIZE);
+                if (m >= 0 && m < mapSize) {
+                    if (playerRows.get(m) == null) {
+                        playerRows.set(m, new ArrayList<>());
+                    }
+                    playerRows.get(m).add(player);
+                }
+            }
+        }
+
+        // Draw the map
+        for (int m = 0; m < mapSize; m++) {
+            // The obstacles of a row cover the players of the rows behind it
+            terrain.paintRow(g, m);
 
+            ArrayList<Player> playerRow = playerRows.get(m);
+            for (int n = 0; n < mapSize; n++) {
                 // Check if it should draw the player
-                if (drawPlayers) {
-                    for (Player player : Lobby.players.values()) {
-                        if (player != null && player.isOnField(m, n)) {
+                if (playerRow != null) {
+                    for (Player player : playerRow) {
+                        if (player.isOnField(m, n)) {
                             g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, player.opacity));
                             player.draw(g);
                             g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 1f));
@@ -2,7 +2,6 @@ package Game;
 
 import Game.Models.Player;
 import General.MB;
-import General.MultiBomb;
 import General.Shared.MBPanel;
 import General.Shared.MBSpinner;
 
@@ -35,6 +34,10 @@ public class Game extends MBPanel {
      * The sidebar
      */
     private Sidebar sidebar;
+    /**
+     * The canvas the battleground is rendered on
+     */
+    private GameCanvas canvas;
 
     /**
      * Constructor
@@ -112,6 +115,13 @@ public class Game extends MBPanel {
         sidebar.afterVisible();
         battleground.afterVisible();
 
+        // Render the battleground on a canvas above the sidebar, but below the toasts and dialogs
+        battleground.activeRendering = true;
+        canvas = new GameCanvas(battleground);
+        canvas.setBounds(battleground.getBounds());
+        addResizeEvent(() -> canvas.setBounds(battleground.getBounds()));
+        add(canvas, 2);
+
         // Show the battleground
         spinner.setVisible(false);
         battleground.setVisible(true);
@@ -130,21 +140,7 @@ public class Game extends MBPanel {
 
         // Start the game loop
         gameOver = false;
-        MultiBomb.startTimedAction(WAIT_TIME, (deltaTime, lastTime) -> {
-            Game.deltaTime = deltaTime;
-
-            // Update the player and repaint
-            Lobby.players.get(Lobby.player).move();
-
-            // End the game if gameOver is true
-            return !gameOver;
-        });
-        MultiBomb.startTimedAction(WAIT_TIME, (deltaTime, lastTime) -> {
-            MB.frame.revalidate();
-            MB.frame.repaint();
-
-            // End the game if gameOver is true
-            return !gameOver;
-        });
+        GameCanvas.resetStats();
+        canvas.start(sidebar);
     }
 }
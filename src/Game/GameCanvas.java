@@ -0,0 +1,214 @@
+package Game;
+
+import General.MB;
+import General.Shared.MBButton;
+
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The canvas the battleground is rendered on during a game
+ * <p>
+ * A single render thread moves the player and draws the battleground straight into the buffers of the canvas, so
+ * Swing neither lays out nor repaints the frame for every game frame. The frames are paced by the refresh rate of the
+ * settings, Swing only paints the menus, the sidebar and the toasts.
+ */
+public class GameCanvas extends Canvas {
+    /**
+     * Number of buffers of the canvas
+     */
+    public static final int BUFFERS = 3;
+    /**
+     * Time in milliseconds between two repaints of the sidebar
+     */
+    public static final long SIDEBAR_REFRESH = 100;
+    /**
+     * Number of rendered frames
+     */
+    private static final AtomicLong frames = new AtomicLong();
+    /**
+     * Sum of the times it took to render the frames in nanoseconds
+     */
+    private static final AtomicLong renderTime = new AtomicLong();
+    /**
+     * Longest time it took to render a frame in nanoseconds
+     */
+    private static final AtomicLong maxRenderTime = new AtomicLong();
+    /**
+     * Number of frames that were finished after the next one should have started
+     */
+    private static final AtomicLong lateFrames = new AtomicLong();
+    /**
+     * Time the first frame was rendered at in nanoseconds
+     */
+    private static volatile long firstFrame = 0;
+    /**
+     * The battleground that is rendered
+     */
+    private final Battleground battleground;
+    /**
+     * The buffers, null if they have to be created again
+     */
+    private volatile BufferStrategy strategy;
+
+    /**
+     * Constructor
+     *
+     * @param battleground that is rendered
+     */
+    public GameCanvas(Battleground battleground) {
+        this.battleground = battleground;
+        setIgnoreRepaint(true);
+        // the key bindings of the panels only work while a Swing component has the focus
+        setFocusable(false);
+    }
+
+    /**
+     * Reset the numbers of the frames, used before a new game
+     */
+    public static void resetStats() {
+        frames.set(0);
+        renderTime.set(0);
+        maxRenderTime.set(0);
+        lateFrames.set(0);
+        firstFrame = 0;
+    }
+
+    /**
+     * @return the number of frames, the frame rate, the mean and maximum render time and the number of late frames
+     */
+    public static String getStats() {
+        long count = frames.get();
+        double seconds = firstFrame == 0 ? 0 : (System.nanoTime() - firstFrame) / 1e9;
+        return String.format("%d frames, %.1f fps, %.2f ms mean, %.2f ms max, %d late", count,
+                seconds == 0 ? 0 : count / seconds, count == 0 ? 0 : renderTime.get() / 1e6 / count,
+                maxRenderTime.get() / 1e6, lateFrames.get());
+    }
+
+    /**
+     * Start the render thread, it runs until the game is over
+     *
+     * @param sidebar that is repainted regularly
+     */
+    public void start(Sidebar sidebar) {
+        Thread thread = new Thread(() -> {
+            long next = System.nanoTime(), last = next / 1_000_000, lastSidebar = 0;
+            while (!Game.gameOver) {
+                long frameTime = 1_000_000_000L / Math.max(1, MB.settings.refreshRate);
+                long start = System.nanoTime();
+                // the delta of the truncated timestamps keeps the fractions of a millisecond for the next frame
+                Game.deltaTime = start / 1_000_000 - last;
+                last = start / 1_000_000;
+
+                // Update the player and render the frame
+                Lobby.players.get(Lobby.player).move();
+                if (render()) {
+                    record(System.nanoTime() - start, System.nanoTime() > next + frameTime);
+                }
+                if (start / 1_000_000 - lastSidebar >= SIDEBAR_REFRESH) {
+                    lastSidebar = start / 1_000_000;
+                    sidebar.repaint();
+                }
+
+                // Wait for the next frame, a thread that fell behind doesn't try to catch up
+                next = Math.max(next + frameTime, System.nanoTime());
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    try {
+                        Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        }, "Render");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Render a frame
+     *
+     * @return true if the frame was shown
+     */
+    private boolean render() {
+        if (!isShowing() || getWidth() <= 0 || getHeight() <= 0) {
+            return false;
+        }
+        try {
+            BufferStrategy buffers = strategy;
+            if (buffers == null) {
+                createBufferStrategy(BUFFERS);
+                buffers = strategy = getBufferStrategy();
+            }
+
+            // the buffers can lose their content while they are drawn, e.g. when the display mode changes
+            do {
+                do {
+                    Graphics2D g = (Graphics2D) buffers.getDrawGraphics();
+                    try {
+                        drawBackground(g);
+                        battleground.render(g);
+                    } finally {
+                        g.dispose();
+                    }
+                } while (buffers.contentsRestored());
+                buffers.show();
+            } while (buffers.contentsLost());
+        } catch (IllegalStateException e) {
+            // the canvas was hidden while the frame was rendered
+            strategy = null;
+            return false;
+        }
+        Toolkit.getDefaultToolkit().sync();
+        return true;
+    }
+
+    /**
+     * Draw what the panels behind the canvas would show, the background of the game and the sidebar
+     *
+     * @param g graphics of the buffer
+     */
+    private void drawBackground(Graphics2D g) {
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, getWidth(), getHeight());
+        Container game = getParent();
+        if (MB.background != null && game != null) {
+            g.drawImage(
+                    MB.background.image,
+                    game.getWidth() / 2 - MB.background.width / 2 - getX(),
+                    game.getHeight() / 2 - MB.background.height / 2 - getY(),
+                    null
+            );
+        }
+        g.setColor(MBButton.BACKGROUND_COLOR);
+        g.fillRect(0, 0, getWidth(), getHeight());
+    }
+
+    /**
+     * Add a frame to the numbers
+     *
+     * @param nanos the time it took to render the frame
+     * @param late  true if the frame was finished after the next one should have started
+     */
+    private static void record(long nanos, boolean late) {
+        if (frames.getAndIncrement() == 0) {
+            firstFrame = System.nanoTime();
+        }
+        renderTime.addAndGet(nanos);
+        maxRenderTime.accumulateAndGet(nanos, Math::max);
+        if (late) {
+            lateFrames.incrementAndGet();
+        }
+    }
+
+    /**
+     * The buffers belong to the peer of the canvas, they are created again after the canvas was shown again
+     */
+    @Override
+    public void removeNotify() {
+        strategy = null;
+        super.removeNotify();
+    }
+}
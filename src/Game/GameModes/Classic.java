@@ -3,7 +3,7 @@ package Game.GameModes;
 import Game.Models.Field;
 import Server.Messages.Message;
 import Server.Messages.Socket.PlayerState;
-import Server.Models.Player;
+import Simulation.Player;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -2,7 +2,7 @@ package Game.GameModes;
 
 import Server.Messages.Message;
 import Server.Messages.Socket.PlayerState;
-import Server.Models.Player;
+import Simulation.Player;
 
 import java.util.*;
 
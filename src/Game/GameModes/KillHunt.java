@@ -1,11 +1,11 @@
 package Game.GameModes;
 
 import Game.Models.Field;
-import Server.Items.ServerProtection;
 import Server.Messages.Message;
 import Server.Messages.Socket.PlayerState;
 import Server.Messages.Socket.Respawn;
-import Server.Models.Player;
+import Simulation.Items.ServerProtection;
+import Simulation.Player;
 
 import java.util.ArrayList;
 import java.util.List;
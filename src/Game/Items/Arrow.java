@@ -8,9 +8,9 @@ import Game.Models.Player;
 import Game.Models.Upgrades;
 import General.Shared.MBImage;
 import General.Shared.MBPanel;
-import Server.Items.ServerArrow;
 import Server.Messages.Socket.ItemAction;
 import Server.Messages.Socket.Map;
+import Simulation.Items.ServerArrow;
 
 import java.awt.*;
 
@@ -7,11 +7,13 @@ import Game.Models.Player;
 import Game.Models.Upgrades;
 import General.Shared.MBImage;
 import General.Shared.MBPanel;
+import General.Shared.TextureCache;
 import General.Sound.SoundControl;
 import General.Sound.SoundEffect;
-import Server.Items.ServerBomb;
 import Server.Messages.Socket.ItemAction;
 import Server.Messages.Socket.Map;
+import Simulation.Explosion;
+import Simulation.Items.ServerBomb;
 
 import java.awt.*;
 
@@ -48,10 +50,18 @@ public class Bomb extends Item {
      * The top end sprite
      */
     private static MBImage bottomEndImage;
+    /**
+     * Number of sizes the core is drawn in while it grows
+     */
+    private static final int CORE_STEPS = 32;
     /**
      * The core sprite
      */
     private static MBImage coreImage;
+    /**
+     * The core sprite in every size of the explosion
+     */
+    private static final Image[] coreSteps = new Image[CORE_STEPS];
     /**
      * The bomb sprite
      */
@@ -61,21 +71,9 @@ public class Bomb extends Item {
      */
     private long startTime = 0;
     /**
-     * The maximum possible range of the bomb on the east
-     */
-    private float percentageEast = 1;
-    /**
-     * The maximum possible range of the bomb on the south
-     */
-    private float percentageSouth = 1;
-    /**
-     * The maximum possible range of the bomb on the west
+     * The spreading of the explosion, the same as on the server
      */
-    private float percentageWest = 1;
-    /**
-     * The maximum possible range of the bomb on the north
-     */
-    private float percentageNorth = 1;
+    private Explosion explosion;
     /**
      * The player's upgrades
      */
@@ -94,7 +92,17 @@ public class Bomb extends Item {
      * @param parent the image size depends on
      */
     public static void loadTextures(MBPanel parent) {
-        coreImage = new MBImage("Items/Bomb/core.png", true, parent);
+        coreImage = new MBImage("Items/Bomb/core.png", parent, () -> {
+            coreImage.width = Battleground.fieldSize;
+            coreImage.height = Battleground.fieldSize;
+
+            // Scale the core for every step of the explosion
+            for (int i = 0; i < CORE_STEPS; i++) {
+                int size = (int) ((1 + 0.5 * i / (CORE_STEPS - 1)) * Battleground.fieldSize);
+                coreSteps[i] = TextureCache.get("Items/Bomb/core.png", Math.max(1, size), Math.max(1, size));
+            }
+        });
+        coreImage.refresh();
         horizontalImage = new MBImage("Items/Bomb/side.png", true, parent);
         leftEndImage = new MBImage("Items/Bomb/left_end.png", true, parent);
         rightEndImage = new MBImage("Items/Bomb/right_end.png", true, parent);
@@ -132,6 +140,7 @@ public class Bomb extends Item {
     public Item use(ItemAction action, Player player) {
         this.upgrades = player.state.upgrades;
         this.startTime = System.currentTimeMillis();
+        this.explosion = new Explosion(action.m, action.n, upgrades.bombSize);
 
         // Add the item to the map so that the battleground can draw it
         Map.setItem(action.m, action.n, this);
@@ -187,6 +196,9 @@ public class Bomb extends Item {
             AlphaComposite ac = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, (1 - percentage));
             g.setComposite(ac);
 
+            // Spread the explosion to the fields it reached
+            explosion.spread((int) (percentage * explosion.size + 0.5f), Bomb::stopsExplosion);
+
             // Draw the animations
             drawHorizontalExplosion(g, m, n, percentage);
             drawVerticalExplosion(g, m, n, percentage);
@@ -200,32 +212,34 @@ public class Bomb extends Item {
         return this;
     }
 
+    /**
+     * Check if a field stops the explosion, like on the server solid and breakable fields stop it
+     *
+     * @param m position
+     * @param n position
+     * @return true if the field stops the explosion
+     */
+    private static boolean stopsExplosion(int m, int n) {
+        int size = Lobby.map.getSize();
+        return m < 0 || n < 0 || m >= size || n >= size || !Field.getItem(Lobby.map.getField(m, n)).isPassable();
+    }
+
     /**
      * Calculate the endpoints of the explosion
      *
-     * @param field            the bomb was planted
-     * @param percentage       of the detonation
-     * @param firstPercentage  of the first endpoint
-     * @param secondPercentage of the second endpoint
+     * @param field      the bomb was planted
+     * @param percentage of the detonation
+     * @param first      direction of the first endpoint
+     * @param second     direction of the second endpoint
      * @return the endpoint values
      */
-    private int[] calculateEndpoints(int field, float percentage, float firstPercentage, float secondPercentage) {
+    private int[] calculateEndpoints(int field, float percentage, int first, int second) {
         int[] d = new int[2];
-        float offset = 0.5f;
-
-        // Calculate the first endpoint
-        if (firstPercentage < 1) {
-            d[0] = (int) ((field + offset - firstPercentage * upgrades.bombSize) * Map.FIELD_SIZE);
-        } else {
-            d[0] = (int) ((field + offset - percentage * upgrades.bombSize) * Map.FIELD_SIZE);
-        }
+        float offset = 0.5f, length = percentage * explosion.size;
 
-        // Calculate the second endpoint
-        if (secondPercentage < 1) {
-            d[1] = (int) ((field + offset + secondPercentage * upgrades.bombSize) * Map.FIELD_SIZE);
-        } else {
-            d[1] = (int) ((field + offset + percentage * upgrades.bombSize) * Map.FIELD_SIZE);
-        }
+        // The endpoints stop at the fields that stopped the explosion
+        d[0] = (int) ((field + offset - explosion.limit(first, length)) * Map.FIELD_SIZE);
+        d[1] = (int) ((field + offset + explosion.limit(second, length)) * Map.FIELD_SIZE);
         return d;
     }
 
@@ -239,20 +253,7 @@ public class Bomb extends Item {
      */
     private void drawHorizontalExplosion(Graphics g, int m, int n, float percentage) {
         // Calculate the explosion range
-        int[] dx = calculateEndpoints(n, percentage, percentageWest, percentageEast);
-
-        // Check if a solid block is reached
-        boolean reachedSolid = dx[0] < 0
-                || !Field.getItem(Lobby.map.getField(m, dx[0] / Map.FIELD_SIZE)).isPassable();
-        if (percentageWest >= 1 && reachedSolid) {
-            percentageWest = percentage;
-        }
-        reachedSolid = dx[1] / Map.FIELD_SIZE > Map.SIZE ||
-                !Field.getItem(Lobby.map.getField(m, dx[1] / Map.FIELD_SIZE)).isPassable();
-        if (percentageEast >= 1 && reachedSolid) {
-            percentageEast = percentage;
-
-        }
+        int[] dx = calculateEndpoints(n, percentage, Explosion.WEST, Explosion.EAST);
 
         // Draw the images
         dx[0] = (int) (dx[0] * Battleground.ratio);
@@ -289,20 +290,7 @@ public class Bomb extends Item {
      */
     private void drawVerticalExplosion(Graphics g, int m, int n, float percentage) {
         // Calculate the explosion range
-        int[] dy = calculateEndpoints(m, percentage, percentageNorth, percentageSouth);
-
-        // Check if a solid block is reached
-        boolean reachedSolid = dy[0] < 0
-                || !Field.getItem(Lobby.map.getField(dy[0] / Map.FIELD_SIZE, n)).isPassable();
-        if (percentageNorth >= 1 && reachedSolid) {
-            percentageNorth = percentage;
-        }
-        reachedSolid = dy[1] / Map.FIELD_SIZE > Map.SIZE ||
-                !Field.getItem(Lobby.map.getField(dy[1] / Map.FIELD_SIZE, n)).isPassable();
-        if (percentageSouth >= 1 && reachedSolid) {
-            percentageSouth = percentage;
-
-        }
+        int[] dy = calculateEndpoints(m, percentage, Explosion.NORTH, Explosion.SOUTH);
 
         // Draw the images
         dy[0] = (int) (dy[0] * Battleground.ratio);
@@ -338,15 +326,13 @@ public class Bomb extends Item {
      * @param percentage of the progress of the explosion
      */
     private void drawCore(Graphics g, int m, int n, float percentage) {
-        // Rescale the image
-        coreImage.rescale(
-                (int) ((1 + 0.5 * percentage) * Battleground.fieldSize),
-                (int) ((1 + 0.5 * percentage) * Battleground.fieldSize)
-        );
+        // Pick the size of the core
+        int step = Math.round(percentage * (CORE_STEPS - 1));
+        percentage = (float) step / (CORE_STEPS - 1);
 
         // Draw the core
         g.drawImage(
-                coreImage.image,
+                coreSteps[step],
                 (int) ((n - 0.25 * percentage) * Battleground.fieldSize + Battleground.offset),
                 (int) ((m - 0.25 * percentage) * Battleground.fieldSize + Battleground.offset),
                 null
@@ -4,11 +4,12 @@ import Game.Models.Field;
 import Game.Models.Player;
 import Game.Models.Upgrades;
 import General.Shared.MBPanel;
-import Server.Items.ServerArrow;
-import Server.Items.ServerBomb;
-import Server.Items.ServerSword;
 import Server.Messages.Socket.ItemAction;
 import Server.Messages.Socket.Map;
+import Simulation.Items.ServerArrow;
+import Simulation.Items.ServerBomb;
+import Simulation.Items.ServerSword;
+import Simulation.Items.ServerTeleport;
 
 import java.awt.*;
 
@@ -20,7 +21,7 @@ public abstract class Item {
      * The available items
      */
     public static final String BOMB = ServerBomb.NAME, ARROW = ServerArrow.NAME, SWORD = ServerSword.NAME,
-            TELEPORT = "Teleport";
+            TELEPORT = ServerTeleport.NAME;
     /**
      * The name of the item
      */
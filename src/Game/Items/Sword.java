@@ -6,9 +6,9 @@ import Game.Models.Player;
 import Game.Models.Upgrades;
 import General.Shared.MBImage;
 import General.Shared.MBPanel;
-import Server.Items.ServerSword;
 import Server.Messages.Socket.ItemAction;
 import Server.Messages.Socket.Map;
+import Simulation.Items.ServerSword;
 
 import java.awt.*;
 import java.awt.geom.AffineTransform;
@@ -1,26 +1,21 @@
 package Game.Items;
 
 import Game.Game;
-import Game.Lobby;
 import Game.Models.Field;
 import Game.Models.Player;
 import Game.Models.Upgrades;
 import General.MultiBomb;
 import Server.Messages.Socket.ItemAction;
+import Simulation.Items.ServerTeleport;
 
 import java.awt.*;
-import java.util.Random;
 
 public class Teleport extends Item {
 
-    /**
-     * The random object
-     */
-    private static final Random random = new Random();
     /**
      * The time it takes to teleport
      */
-    public static long PREPARATION_TIME = 500;
+    public static long PREPARATION_TIME = ServerTeleport.PREPARATION_TIME;
 
     /**
      * Constructor
@@ -52,19 +47,7 @@ public class Teleport extends Item {
             }
 
             if (totalTime > PREPARATION_TIME) {
-                // Choose a random player and change the position
-                if (!player.fadingOut && player.name.equals(Lobby.player)) {
-                    // Choose the player
-                    Player nextPlayer = null;
-                    Object[] players = Lobby.players.values().toArray();
-                    while (nextPlayer == null || nextPlayer.name.equals(player.name)) {
-                        nextPlayer = (Player) players[random.nextInt(players.length)];
-                    }
-
-                    // Go to the position
-                    player.position.x = nextPlayer.position.x;
-                    player.position.y = nextPlayer.position.y;
-                }
+                // The server chooses the player to teleport to and corrects the position
                 // Start to fade in the player
                 fadeIn(player);
 
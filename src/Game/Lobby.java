@@ -4,27 +4,44 @@ import Editor.MapManager;
 import Game.GameModes.BattleRoyale;
 import Game.GameModes.GameMode;
 import Game.Models.Field;
+import Game.Models.InterpolationBuffer;
 import Game.Models.Player;
 import General.MB;
 import General.MultiBomb;
 import General.Sound.SoundControl;
 import General.Sound.SoundEffect;
 import Menu.DetailedLobbyView;
+import Server.Messages.BinaryCodec;
 import Server.Messages.Message;
+import Server.Messages.MessageCodec;
 import Server.Messages.Socket.*;
+import Server.Models.SnapshotHistory;
 import Server.Server;
+import Server.UdpChannel;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.io.*;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
 
+import static General.MultiBomb.LOGGER;
 import static Server.Lobby.WAIT_TIME;
 
 public class Lobby {
+    /**
+     * Maximum number of received messages that wait for their handling, the receiver waits when it is reached
+     */
+    public static final int MAX_QUEUED_MESSAGES = 1024;
     /**
      * The players
      */
@@ -70,13 +87,17 @@ public class Lobby {
      */
     public static Game game;
     /**
-     * Reader for receiving server messages
+     * Stream for receiving server messages
      */
-    private static BufferedReader in;
+    private static InputStream in;
     /**
-     * Writer for communicating with the server
+     * Stream for communicating with the server
      */
-    private static PrintWriter out;
+    private static OutputStream out;
+    /**
+     * Codec for the protocol negotiated with the server
+     */
+    private static MessageCodec codec;
     /**
      * The socket for the server communication
      */
@@ -97,6 +118,51 @@ public class Lobby {
      * The state of the current game
      */
     private static GameState gameState;
+    /**
+     * Positions of the recent snapshots of the server
+     */
+    private static SnapshotHistory snapshots = new SnapshotHistory();
+    /**
+     * Tick of the newest snapshot that was applied
+     */
+    private static int lastSnapshot = Snapshot.NO_BASE;
+    /**
+     * Difference between the local time a snapshot arrived at and its tick time in milliseconds, the smallest
+     * difference belongs to the snapshot with the least delay
+     */
+    private static long snapshotOffset = Long.MAX_VALUE;
+    /**
+     * Socket for the unreliable position updates, null if the server doesn't offer the udp channel
+     */
+    private static DatagramSocket udpSocket;
+    /**
+     * Session token that binds the datagrams to the game socket
+     */
+    private static long udpToken;
+    /**
+     * Sequence number of the last datagram that was sent
+     */
+    private static int sentUdpSequence = 0;
+    /**
+     * Sequence number of the newest datagram of the server, 0 if none arrived yet
+     */
+    private static volatile int receivedUdpSequence = 0;
+    /**
+     * Received messages in the order they arrived
+     */
+    private static BlockingQueue<Message> inbound = new ArrayBlockingQueue<>(MAX_QUEUED_MESSAGES);
+    /**
+     * Messages that wait to be written to the socket
+     */
+    private static BlockingQueue<Message> outbound = new LinkedBlockingQueue<>();
+    /**
+     * The thread that handles the received messages
+     */
+    private static Thread dispatcher;
+    /**
+     * The thread that writes the messages to the socket
+     */
+    private static Thread writer;
 
     /**
      * Try to start a socket connection
@@ -105,24 +171,68 @@ public class Lobby {
      * @param ipAddress address
      * @param tickRate  of the server
      * @param player    name of the client
+     * @param protocol  of the game socket
+     * @param udpToken  session token for the udp channel, null if the server doesn't offer it
      * @throws IOException if the socket fails to connect
      */
-    public static void connect(String name, String ipAddress, int tickRate, String player,
-                               DetailedLobbyView lobby) throws IOException {
+    public static void connect(String name, String ipAddress, int tickRate, String player, String protocol,
+                               Long udpToken, DetailedLobbyView lobby) throws IOException {
         Lobby.name = name;
         Lobby.tickRate = tickRate;
         Lobby.player = player;
         Lobby.ipAddress = ipAddress;
         Lobby.lobby = lobby;
         leave = false;
+        snapshots = new SnapshotHistory();
+        lastSnapshot = Snapshot.NO_BASE;
 
         // Try to build up the connection
         socket = new Socket(ipAddress, Server.GAME_PORT);
-        in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-        out = new PrintWriter(socket.getOutputStream(), true);
+        in = new BufferedInputStream(socket.getInputStream());
+        out = new BufferedOutputStream(socket.getOutputStream());
+        codec = MessageCodec.create(protocol, new BinaryCodec.PlayerIndex() {
+            @Override
+            public int getPlayerIndex(String playerId) {
+                Player player = players.get(playerId);
+                return player == null ? -1 : player.color;
+            }
 
-        // Start waiting for messages
+            @Override
+            public String getPlayerName(int index) {
+                for (Player player : players.values()) {
+                    if (player.color == index) {
+                        return player.name;
+                    }
+                }
+                return null;
+            }
+        });
+
+        // Start handling, writing and waiting for messages
+        BlockingQueue<Message> inbound = Lobby.inbound = new ArrayBlockingQueue<>(MAX_QUEUED_MESSAGES);
+        BlockingQueue<Message> outbound = Lobby.outbound = new LinkedBlockingQueue<>();
+        OutputStream out = Lobby.out;
+        dispatcher = new Thread(() -> dispatch(inbound), "Dispatcher");
+        dispatcher.start();
+        writer = new Thread(() -> writeMessages(outbound, out), "Writer");
+        writer.start();
         new Thread(Lobby::receive).start();
+
+        // Open the channel for position updates
+        udpSocket = null;
+        receivedUdpSequence = 0;
+        if (udpToken != null) {
+            try {
+                DatagramSocket socket = new DatagramSocket();
+                socket.connect(new InetSocketAddress(ipAddress, Server.UDP_GAME_PORT));
+                Lobby.udpToken = udpToken;
+                udpSocket = socket;
+                new Thread(() -> receiveDatagrams(socket)).start();
+            } catch (SocketException e) {
+                // positions are sent over the game socket
+                LOGGER.log(Level.WARNING, "Udp channel could not be opened, positions use the game socket", e);
+            }
+        }
     }
 
     /**
@@ -176,20 +286,25 @@ public class Lobby {
      */
     private static void receive() {
         while (true) {
-            String data;
+            Message message;
 
             // Wait for next message
             try {
-                if ((data = in.readLine()) == null) {
+                if ((message = codec.read(in)) == null) {
                     break;
                 }
             } catch (IOException e) {
                 break;
             }
+            if (!Message.isValid(message)) {
+                continue;
+            }
 
-            // Parse the message
-            Message message = Message.fromJson(data);
-            new Thread(() -> handleMessage(message)).start();
+            try {
+                inbound.put(message);
+            } catch (InterruptedException e) {
+                break;
+            }
         }
 
         // Disconnect
@@ -199,6 +314,43 @@ public class Lobby {
         }
     }
 
+    /**
+     * Wait for datagrams of the server
+     *
+     * @param socket the udp socket
+     */
+    private static void receiveDatagrams(DatagramSocket socket) {
+        byte[] buffer = new byte[UdpChannel.MAX_DATAGRAM_SIZE];
+        while (!socket.isClosed()) {
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                socket.receive(packet);
+            } catch (IOException e) {
+                continue;
+            }
+
+            int length = packet.getLength() - UdpChannel.SERVER_HEADER_SIZE;
+            if (length <= 0) {
+                continue;
+            }
+
+            // drop datagrams that are older than the newest one
+            int sequence = ByteBuffer.wrap(buffer).getInt();
+            if (receivedUdpSequence != 0 && sequence - receivedUdpSequence <= 0) {
+                continue;
+            }
+            receivedUdpSequence = sequence;
+
+            // datagrams are unreliable anyway, so they are dropped if the handling falls behind
+            if (codec.frameLength(buffer, UdpChannel.SERVER_HEADER_SIZE, length) == length) {
+                Message message = codec.decode(buffer, UdpChannel.SERVER_HEADER_SIZE, length);
+                if (Message.isValid(message)) {
+                    inbound.offer(message);
+                }
+            }
+        }
+    }
+
     /**
      * Leave the lobby
      */
@@ -209,10 +361,73 @@ public class Lobby {
         players.clear();
         reset();
         leave = true;
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+            writer.interrupt();
+        }
+        if (udpSocket != null) {
+            udpSocket.close();
+        }
         try {
             socket.close();
         } catch (IOException e) {
-            e.printStackTrace();
+            LOGGER.log(Level.WARNING, "Game socket could not be closed", e);
+        }
+    }
+
+    /**
+     * Handle the received messages one after another in the order they arrived
+     * <p>
+     * The positions of the remote players that queued up behind each other are obsolete except for the newest one, so
+     * only the newest position of every player is applied before the next other message.
+     *
+     * @param queue the received messages
+     */
+    private static void dispatch(BlockingQueue<Message> queue) {
+        ArrayList<Message> batch = new ArrayList<>();
+        LinkedHashMap<String, Position> positions = new LinkedHashMap<>();
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch);
+
+            for (Message message : batch) {
+                if (!Message.isValid(message)) {
+                    continue;
+                }
+                if (message.type.equals(Message.POSITION_TYPE) && ((Position) message).input == null
+                        && ((Position) message).playerId != null) {
+                    positions.put(((Position) message).playerId, (Position) message);
+                    continue;
+                }
+                applyPositions(positions);
+                try {
+                    handleMessage(message);
+                } catch (RuntimeException e) {
+                    // a broken message must not stop the handling of the following ones
+                    LOGGER.log(Level.WARNING, "Message of type " + message.type + " could not be handled", e);
+                }
+            }
+            applyPositions(positions);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Apply the collected positions of the remote players
+     *
+     * @param positions the newest position of every player
+     */
+    private static void applyPositions(LinkedHashMap<String, Position> positions) {
+        if (!positions.isEmpty()) {
+            long time = InterpolationBuffer.now();
+            for (Position position : positions.values()) {
+                updatePosition(position, time);
+            }
+            positions.clear();
         }
     }
 
@@ -234,7 +449,16 @@ public class Lobby {
                 break;
 
             case Message.POSITION_TYPE:
-                updatePosition((Position) message);
+                Position position = (Position) message;
+                if (position.input != null) {
+                    correctPosition(position);
+                } else {
+                    updatePosition(position, InterpolationBuffer.now());
+                }
+                break;
+
+            case Message.SNAPSHOT_TYPE:
+                applySnapshot((Snapshot) message);
                 break;
 
             case Message.ITEM_ACTION_TYPE:
@@ -310,6 +534,9 @@ public class Lobby {
      */
     private static synchronized void startGame(Map map) {
         Lobby.map = map;
+        Map.resetItems(map.getSize());
+        snapshotOffset = Long.MAX_VALUE;
+        InterpolationBuffer.resetStats();
         game = new Game();
         new Thread(() -> MB.show(game, false)).start();
         sendMessage(GameState.preparing());
@@ -365,10 +592,15 @@ public class Lobby {
         // Make the player controllable
         players.get(player).setupControls(game);
 
-        // Start sending positions
+        // Start sending the input commands
         int waitTime = 1000 / tickRate;
         MultiBomb.startTimedAction(waitTime, ((deltaTime, totalTime) -> {
-            out.println(players.get(player).position.toJson());
+            PlayerInput input = players.get(player).getUnacknowledgedInput();
+            // acknowledge the newest snapshot, so the server can send deltas against it
+            if (lastSnapshot != Snapshot.NO_BASE) {
+                input.ack = lastSnapshot;
+            }
+            writeInput(input);
             return gameState.state == GameState.RUNNING && players.get(player).state.isAlive();
         }));
     }
@@ -379,17 +611,141 @@ public class Lobby {
      * @param message to be sent
      */
     public static void sendMessage(Message message) {
-        new Thread(() -> out.println(message.toJson())).start();
+        outbound.offer(message);
+    }
+
+    /**
+     * Send input commands over the udp channel if the server offers it
+     *
+     * @param input of the player
+     */
+    private static void writeInput(PlayerInput input) {
+        DatagramSocket socket = udpSocket;
+        if (socket != null) {
+            byte[] frame = codec.encode(input);
+            byte[] datagram = new byte[UdpChannel.CLIENT_HEADER_SIZE + frame.length];
+            ByteBuffer.wrap(datagram)
+                    .putLong(udpToken)
+                    .putInt(++sentUdpSequence)
+                    .putInt(receivedUdpSequence)
+                    .put(frame);
+            try {
+                socket.send(new DatagramPacket(datagram, datagram.length));
+            } catch (IOException e) {
+                // the datagram is lost, the next input repeats its commands anyway
+            }
+        }
+
+        // until the first datagram of the server arrived, the channel might be blocked
+        if (socket == null || receivedUdpSequence == 0) {
+            sendMessage(input);
+        }
+    }
+
+    /**
+     * Write the messages to the socket, the messages that queued up are written with a single flush
+     *
+     * @param queue the messages
+     * @param out   stream of the socket
+     */
+    private static void writeMessages(BlockingQueue<Message> queue, OutputStream out) {
+        ArrayList<Message> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, Server.DEFAULT_MAX_BATCH_SIZE - 1);
+
+            try {
+                for (Message message : batch) {
+                    out.write(codec.encode(message));
+                }
+                out.flush();
+            } catch (IOException e) {
+                // the receiver notices the lost connection
+                return;
+            }
+            batch.clear();
+        }
     }
 
     /**
      * Update a player's position
      *
      * @param position of the player
+     * @param time     local time in milliseconds the position belongs to
+     */
+    private static void updatePosition(Position position, long time) {
+        Player remote = position.playerId == null ? null : players.get(position.playerId);
+        if (remote != null && !position.playerId.equals(player)) {
+            remote.addPosition(time, position);
+        }
+    }
+
+    /**
+     * Correct the predicted position of the player
+     *
+     * @param correction position of the server with the last input command it includes
      */
-    private static void updatePosition(Position position) {
-        if (position.playerId != null && !position.playerId.equals(player)) {
-            players.get(position.playerId).position = position;
+    private static void correctPosition(Position correction) {
+        if (player.equals(correction.playerId)) {
+            players.get(player).reconcile(correction);
+        }
+    }
+
+    /**
+     * Get the local time a snapshot belongs to
+     * <p>
+     * The ticks of the server are evenly spaced, so the tick time of a snapshot is more precise than the time it
+     * arrived at. The tick time is moved to the local clock by the smallest difference between arrival and tick time
+     * that was seen, which slowly grows again so the clocks can't drift apart.
+     *
+     * @param tick of the snapshot
+     * @return the local time in milliseconds
+     */
+    private static synchronized long snapshotTime(int tick) {
+        long tickTime = tick * 1000L / Math.max(1, tickRate);
+        long offset = InterpolationBuffer.now() - tickTime;
+        if (offset < snapshotOffset) {
+            snapshotOffset = offset;
+        } else {
+            snapshotOffset += (offset - snapshotOffset + 99) / 100;
+        }
+        return tickTime + snapshotOffset;
+    }
+
+    /**
+     * Apply a snapshot of the server to its base, update the positions of all players and hide the players that left
+     * the area of the player
+     *
+     * @param snapshot of the server
+     */
+    private static void applySnapshot(Snapshot snapshot) {
+        HashMap<String, Position> state = snapshots.apply(snapshot);
+        synchronized (snapshots) {
+            // snapshots of the game socket and of the udp channel might overtake each other
+            if (state == null || snapshot.tick <= lastSnapshot) {
+                return;
+            }
+            lastSnapshot = snapshot.tick;
+        }
+        for (String name : snapshot.hidden) {
+            Player remote = players.get(name);
+            if (remote != null && !name.equals(player)) {
+                remote.hide();
+            }
+        }
+        if (state.isEmpty()) {
+            return;
+        }
+        long time = snapshotTime(snapshot.tick);
+        for (Position position : state.values()) {
+            // players that left the lobby might still be part of the base
+            if (players.containsKey(position.playerId)) {
+                updatePosition(position, time);
+            }
         }
     }
 
@@ -472,9 +828,15 @@ public class Lobby {
             for (Player player : players.values()) {
                 player.disable();
             }
-
-            // Show the winner
-            MB.activePanel.toastSuccess(winner + " won the game!");
+            LOGGER.info("Interpolation of the remote players: " + InterpolationBuffer.getStats());
+            LOGGER.info("Rendering of the battleground: " + GameCanvas.getStats());
+
+            // Show the winner, a game without a winner was ended by the server
+            if (winner == null) {
+                MB.activePanel.toastError("The game was ended by the server!");
+            } else {
+                MB.activePanel.toastSuccess(winner + " won the game!");
+            }
             MultiBomb.sleep(3000);
             reset();
 
@@ -499,7 +861,7 @@ public class Lobby {
         } else {
             map = MapManager.maps.get("X-Factor");
         }
-        Map.resetItems();
+        Map.resetItems(map.getSize());
 
         // Reset the mode
         mode = GameMode.getMode(mode.name);
@@ -1,8 +1,12 @@
 package Game.Models;
 
 import Game.Game;
+import General.Shared.MBImage;
+import Server.Messages.Socket.Map;
 import Server.Messages.Socket.Position;
 
+import java.awt.*;
+
 /**
  * This enum contains all the required information for the animations
  */
@@ -32,7 +36,7 @@ public enum Animation {
     /**
      * The current time counter for the animation
      */
-    public long[] currentTimes = new long[]{0, 0, 0, 0, 0, 0, 0, 0};
+    public long[] currentTimes = new long[Map.MAX_SPAWNS];
     /**
      * The row in which the corresponding sprite is in
      */
@@ -45,38 +49,31 @@ public enum Animation {
         this.m = m;
     }
 
-
     /**
-     * Calculate the right sprite position for the walking direction
+     * Get the frame of the sprite for the walking direction
      *
      * @param position of the player
      * @param index    of the player
-     * @return the positions [m, n]
+     * @param atlas    the frames of the sprite
+     * @param sprite   the sprite the frames are cut out of
+     * @return the frame
      */
-    public static int[] getSpritePosition(Position position, int index) {
-        int[] positions = new int[2];
+    public static Image getSprite(Position position, int index, SpriteAtlas atlas, MBImage sprite) {
+        Animation animation = WALK_SOUTH;
         switch (position.direction) {
             case NORTH:
-                positions[0] = Animation.WALK_NORTH.m;
-                positions[1] = Animation.WALK_NORTH.getN(position, index);
+                animation = WALK_NORTH;
                 break;
 
             case EAST:
-                positions[0] = Animation.WALK_EAST.m;
-                positions[1] = Animation.WALK_EAST.getN(position, index);
-                break;
-
-            case SOUTH:
-                positions[0] = Animation.WALK_SOUTH.m;
-                positions[1] = Animation.WALK_SOUTH.getN(position, index);
+                animation = WALK_EAST;
                 break;
 
             case WEST:
-                positions[0] = Animation.WALK_WEST.m;
-                positions[1] = Animation.WALK_WEST.getN(position, index);
+                animation = WALK_WEST;
                 break;
         }
-        return positions;
+        return atlas.getFrame(sprite, animation.m, animation.getN(position, index));
     }
 
     /**
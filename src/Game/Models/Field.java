@@ -40,6 +40,14 @@ public enum Field {
      * The vertical offset for fields
      */
     public static int offset_y = (int) -((HEIGHT - Map.FIELD_SIZE) * Battleground.ratio);
+    /**
+     * Smallest id of all items
+     */
+    private static final int MIN_ID = -7;
+    /**
+     * All items by their id minus the smallest id
+     */
+    private static final Field[] BY_ID = new Field[13];
     /**
      * The id of the item
      */
@@ -61,6 +69,12 @@ public enum Field {
      */
     public MBImage image;
 
+    static {
+        for (Field field : values()) {
+            BY_ID[field.id - MIN_ID] = field;
+        }
+    }
+
     /**
      * Constructor
      */
@@ -105,12 +119,11 @@ public enum Field {
      * @return the right item
      */
     public static Field getItem(byte id) {
-        for (Field field : Field.values()) {
-            if (field.id == id) {
-                return field;
-            }
+        int index = id - MIN_ID;
+        if (index < 0 || index >= BY_ID.length) {
+            return SOLID_0;
         }
-        return SOLID_0;
+        return BY_ID[index];
     }
 
     /**
@@ -0,0 +1,221 @@
+package Game.Models;
+
+import Server.Messages.Socket.Map;
+import Server.Messages.Socket.Position;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The recent positions of a remote player with the local time they belong to
+ * <p>
+ * The player is drawn a few ticks in the past, between the two positions around that time, so late or irregular
+ * updates don't make the player stutter. If no newer position arrived in time, the last movement is continued for a
+ * short while and the buffer counts an underrun.
+ */
+public class InterpolationBuffer {
+    /**
+     * Number of ticks the remote players are drawn in the past
+     */
+    public static int delayTicks = 2;
+    /**
+     * Longest time in milliseconds the last movement is continued when no newer position arrived
+     */
+    public static long maxExtrapolation = 100;
+    /**
+     * Number of positions that are kept
+     */
+    private static final int CAPACITY = 32;
+    /**
+     * Players that move further than this between two positions are not interpolated (respawn or teleport)
+     */
+    private static final float MAX_STEP = 2 * Map.FIELD_SIZE;
+    /**
+     * Number of drawn positions that were interpolated
+     */
+    private static final AtomicLong interpolated = new AtomicLong();
+    /**
+     * Number of drawn positions that had to be extrapolated or held because no newer position was there
+     */
+    private static final AtomicLong underruns = new AtomicLong();
+    /**
+     * Number of underruns that were longer than the extrapolation limit
+     */
+    private static final AtomicLong stalls = new AtomicLong();
+    /**
+     * Local times of the positions in milliseconds
+     */
+    private final long[] times = new long[CAPACITY];
+    /**
+     * The positions, ordered like the times
+     */
+    private final Position[] positions = new Position[CAPACITY];
+    /**
+     * Index of the oldest position
+     */
+    private int first = 0;
+    /**
+     * Number of stored positions
+     */
+    private int size = 0;
+    /**
+     * The last dropped position, used to continue the movement of the newest position
+     */
+    private Position previous;
+    /**
+     * Local time of the last dropped position
+     */
+    private long previousTime;
+
+    /**
+     * Get the local time the remote players are drawn at
+     *
+     * @param tickRate tick rate of the server
+     * @return the time in milliseconds
+     */
+    public static long renderTime(int tickRate) {
+        return now() - delayTicks * 1000L / Math.max(1, tickRate);
+    }
+
+    /**
+     * @return the local clock of the buffers in milliseconds
+     */
+    public static long now() {
+        return System.nanoTime() / 1_000_000;
+    }
+
+    /**
+     * Reset the numbers of the buffers, used before a new game
+     */
+    public static void resetStats() {
+        interpolated.set(0);
+        underruns.set(0);
+        stalls.set(0);
+    }
+
+    /**
+     * @return the numbers of drawn, interpolated, underrun and stalled positions
+     */
+    public static String getStats() {
+        long underrun = underruns.get();
+        long total = interpolated.get() + underrun;
+        return String.format("%d drawn, %d interpolated, %d underruns (%.1f%%), %d stalls", total,
+                interpolated.get(), underrun, total == 0 ? 0 : 100.0 * underrun / total, stalls.get());
+    }
+
+    /**
+     * Add a position
+     *
+     * @param time     local time of the position in milliseconds
+     * @param position the position
+     */
+    public synchronized void add(long time, Position position) {
+        // positions that arrive out of order are dropped
+        if (size > 0 && time <= times[index(size - 1)]) {
+            if (time == times[index(size - 1)]) {
+                positions[index(size - 1)] = position;
+            }
+            return;
+        }
+        if (size == CAPACITY) {
+            dropFirst();
+        }
+        times[index(size)] = time;
+        positions[index(size)] = position;
+        size++;
+    }
+
+    /**
+     * Drop every position, the next position is drawn without interpolation
+     */
+    public synchronized void clear() {
+        Arrays.fill(positions, null);
+        first = 0;
+        size = 0;
+        previous = null;
+    }
+
+    /**
+     * Get the position of the player at a time
+     *
+     * @param time local time in milliseconds
+     * @return the interpolated position, null if there is no position yet
+     */
+    public synchronized Position sample(long time) {
+        if (size == 0) {
+            return null;
+        }
+
+        // drop the positions that are older than the one before the time
+        while (size > 1 && times[index(1)] <= time) {
+            dropFirst();
+        }
+
+        Position from = positions[index(0)];
+        if (size > 1) {
+            // the time is between the first two positions
+            Position to = positions[index(1)];
+            interpolated.incrementAndGet();
+            if (time <= times[index(0)]) {
+                return from;
+            }
+            float fraction = (float) (time - times[index(0)]) / (times[index(1)] - times[index(0)]);
+            return between(from, to, fraction);
+        }
+
+        // there is no newer position, continue the last movement for a while
+        underruns.incrementAndGet();
+        long late = time - times[index(0)];
+        if (late > maxExtrapolation) {
+            stalls.incrementAndGet();
+            late = maxExtrapolation;
+        }
+        if (!from.moving || previous == null || late <= 0) {
+            return from;
+        }
+        float fraction = (float) late / Math.max(1, times[index(0)] - previousTime);
+        return between(previous, from, 1 + fraction);
+    }
+
+    /**
+     * Drop the oldest position, it is still used for the extrapolation of the next one
+     */
+    private void dropFirst() {
+        previous = positions[index(0)];
+        previousTime = times[index(0)];
+        positions[index(0)] = null;
+        first = index(1);
+        size--;
+    }
+
+    /**
+     * Calculate a position between two positions
+     *
+     * @param from     the older position
+     * @param to       the newer position
+     * @param fraction 0 for the older position and 1 for the newer one, above 1 to continue the movement
+     * @return the new position with the direction and movement of the newer position
+     */
+    private static Position between(Position from, Position to, float fraction) {
+        float dx = to.x - from.x;
+        float dy = to.y - from.y;
+        if (Math.abs(dx) > MAX_STEP || Math.abs(dy) > MAX_STEP) {
+            return to;
+        }
+        Position position = new Position(from.x + dx * fraction, from.y + dy * fraction);
+        position.playerId = to.playerId;
+        position.direction = to.direction;
+        position.moving = to.moving;
+        return position;
+    }
+
+    /**
+     * Get the index of the n-th oldest position in the arrays
+     *
+     * @param n number of the position
+     * @return the index
+     */
+    private int index(int n) {
+        return (first + n) % CAPACITY;
+    }
+}
@@ -0,0 +1,82 @@
+package Game.Models;
+
+import Server.Messages.Socket.Map;
+import Server.Messages.Socket.PlayerInput;
+import Server.Messages.Socket.Position;
+
+/**
+ * The movement of a player, shared by the prediction of the client and the simulation of the server
+ * <p>
+ * Both sides apply the same commands with the same arithmetic, so a client that knows the obstacles the server knows
+ * ends up at exactly the position the server calculates.
+ */
+public class Movement {
+    /**
+     * The maximum speed value for a player
+     */
+    public static final float MAX_SPEED = 0.1f;
+    /**
+     * The minimum speed value for a player
+     */
+    public static final float MIN_SPEED = 0.06f;
+    /**
+     * Longest time in milliseconds a single command can move a player
+     */
+    public static final int MAX_COMMAND_DURATION = 100;
+    /**
+     * Distance in pixels in front of the player that is checked for obstacles
+     */
+    private static final int LOOK_AHEAD = 10;
+
+    /**
+     * Get the speed of a player
+     *
+     * @param upgrades of the player
+     * @return the speed in pixels per millisecond
+     */
+    public static float getSpeed(Upgrades upgrades) {
+        return (MAX_SPEED - MIN_SPEED) * upgrades.speed / Upgrades.MAX_SPEED + MIN_SPEED;
+    }
+
+    /**
+     * Move a position by a command, the direction and movement of the position are left to the caller
+     *
+     * @param position  the position that is changed
+     * @param command   the command
+     * @param speed     the speed of the player
+     * @param obstacles the fields the player can enter
+     * @return true if the player moved
+     */
+    public static boolean step(Position position, PlayerInput.Command command, float speed, Obstacles obstacles) {
+        if (!command.moving || command.direction == null) {
+            return false;
+        }
+
+        // Calculate the next position
+        long duration = Math.max(0, Math.min(command.duration, MAX_COMMAND_DURATION));
+        float newX = position.x + command.direction.x * duration * speed;
+        float newY = position.y + command.direction.y * duration * speed;
+
+        // Calculate the field in front of the next position
+        int m = (int) (newY + command.direction.y * LOOK_AHEAD) / Map.FIELD_SIZE;
+        int n = (int) (newX + command.direction.x * LOOK_AHEAD) / Map.FIELD_SIZE;
+        if (!obstacles.isPassable(m, n)) {
+            return false;
+        }
+        position.x = newX;
+        position.y = newY;
+        return true;
+    }
+
+    /**
+     * The fields a player can enter
+     */
+    public interface Obstacles {
+        /**
+         * @param m position
+         * @param n position
+         * @return true if the player can enter the field
+         */
+        boolean isPassable(int m, int n);
+    }
+}
@@ -8,11 +8,13 @@ import General.MultiBomb;
 import General.Shared.*;
 import General.Sound.SoundControl;
 import General.Sound.SoundEffect;
-import Server.Items.ServerProtection;
 import Server.Messages.Socket.*;
+import Server.PlayerConnection;
+import Simulation.Items.ServerProtection;
 
 import java.awt.*;
 import java.awt.event.KeyEvent;
+import java.util.ArrayDeque;
 
 import static Game.Models.Animation.*;
 
@@ -26,9 +28,9 @@ public class Player {
      */
     public static final Font nameFont = new Font(MBLabel.FONT_NAME, Font.BOLD, 14);
     /**
-     * The maximum speed value for a player
+     * The number of colors that have their own character, higher colors reuse the characters
      */
-    public static final float MAX_SPEED = 0.1f, MIN_SPEED = 0.06f;
+    public static final int CHARACTERS = 8;
     /**
      * The time the player fades out after dying
      */
@@ -41,10 +43,22 @@ public class Player {
      * True if the player is on an item
      */
     private final Item.OnItem onItem = new Item.OnItem();
+    /**
+     * Input commands that were predicted but not acknowledged by the server yet, oldest first
+     */
+    private final ArrayDeque<PlayerInput.Command> pendingInputs = new ArrayDeque<>();
+    /**
+     * Sequence number of the newest input command
+     */
+    private int inputSequence = 0;
+    /**
+     * Sequence number of the last input command of the newest correction of the server
+     */
+    private int correctedInput = 0;
     /**
      * The current speed value for a player
      */
-    public float speed = MIN_SPEED;
+    public float speed = Movement.MIN_SPEED;
     /**
      * The name of the player
      */
@@ -53,6 +67,14 @@ public class Player {
      * The position of the player
      */
     public Position position = new Position();
+    /**
+     * The recent positions of the server, used to draw a remote player smoothly
+     */
+    public final InterpolationBuffer buffer = new InterpolationBuffer();
+    /**
+     * Indicate if a remote player is outside of the area the server sends the positions of
+     */
+    private volatile boolean hidden = false;
     /**
      * The theme of the player
      */
@@ -81,6 +103,10 @@ public class Player {
      * The sprite of the player
      */
     private MBImage sprite;
+    /**
+     * The animation frames of the sprite
+     */
+    private SpriteAtlas atlas;
     /**
      * True if the player is currently using an item
      */
@@ -102,7 +128,7 @@ public class Player {
         setSpawn();
 
         // Load the sprite
-        sprite = new MBImage("Characters/" + color + ".png", Lobby.game.battleground, () -> {
+        sprite = new MBImage("Characters/" + color % CHARACTERS + ".png", Lobby.game.battleground, () -> {
             // Update the ratio
             spriteRatio = (float) Battleground.fieldSize / PLAYER_WIDTH;
 
@@ -113,6 +139,37 @@ public class Player {
         sprite.refresh();
     }
 
+    /**
+     * Add a position of the server for a remote player, a hidden player is drawn again
+     *
+     * @param time     local time of the position in milliseconds
+     * @param position the position
+     */
+    public void addPosition(long time, Position position) {
+        buffer.add(time, position);
+        hidden = false;
+    }
+
+    /**
+     * Stop drawing a remote player that left the area the server sends the positions of
+     */
+    public void hide() {
+        hidden = true;
+        buffer.clear();
+    }
+
+    /**
+     * Move a remote player to its position at the time it is drawn at
+     *
+     * @param renderTime local time in milliseconds
+     */
+    public void interpolate(long renderTime) {
+        Position position = buffer.sample(renderTime);
+        if (position != null) {
+            this.position = position;
+        }
+    }
+
     /**
      * Set the spawn
      */
@@ -151,7 +208,7 @@ public class Player {
      * Update the speed of the player
      */
     private void updateSpeed() {
-        speed = (MAX_SPEED - MIN_SPEED) * state.upgrades.speed / Upgrades.MAX_SPEED + MIN_SPEED;
+        speed = Movement.getSpeed(state.upgrades);
     }
 
     /**
@@ -379,27 +436,76 @@ public class Player {
      * Update the players position
      */
     public void move() {
-        // Calculate the next position
-        float newX = position.x + position.direction.x * Game.deltaTime * speed;
-        float newY = position.y + position.direction.y * Game.deltaTime * speed;
-
-        // Calculate the item on the next field (with some offset for collision detection)
-        int m = (int) (newY + position.direction.y * 10) / Map.FIELD_SIZE;
-        int n = (int) (newX + position.direction.x * 10) / Map.FIELD_SIZE;
-        // Check if character should move
-        if (position.moving && Field.getItem(Lobby.map.getField(m, n)).isPassable()
-                && Item.isPassable(onItem, m, n)) {
-            // Update the position
-            position.x = newX;
-            position.y = newY;
+        PlayerInput.Command command = new PlayerInput.Command(position.direction, position.moving,
+                (int) Math.min(Game.deltaTime, Movement.MAX_COMMAND_DURATION));
+        synchronized (pendingInputs) {
+            // the command is predicted now and simulated by the server later
+            inputSequence++;
+            pendingInputs.add(command);
+            if (pendingInputs.size() > PlayerConnection.MAX_QUEUED_INPUTS) {
+                pendingInputs.poll();
+            }
+            predict(command);
+        }
+    }
 
+    /**
+     * Apply an input command to the position like the server does
+     *
+     * @param command the command
+     */
+    private void predict(PlayerInput.Command command) {
+        if (Movement.step(position, command, speed, (m, n) -> Field.getItem(Lobby.map.getField(m, n)).isPassable()
+                && Item.isPassable(onItem, m, n))) {
             // Update on item state
-            m = (int) (position.y) / Map.FIELD_SIZE;
-            n = (int) (position.x) / Map.FIELD_SIZE;
+            int m = (int) (position.y) / Map.FIELD_SIZE;
+            int n = (int) (position.x) / Map.FIELD_SIZE;
             onItem.onItem = Map.getItem(m, n) != null && onItem.m == m && onItem.n == n;
         }
     }
 
+    /**
+     * Get the input commands the server didn't acknowledge yet
+     *
+     * @return the input with the newest commands
+     */
+    public PlayerInput getUnacknowledgedInput() {
+        synchronized (pendingInputs) {
+            PlayerInput input = new PlayerInput(inputSequence);
+            int skip = pendingInputs.size() - PlayerInput.MAX_COMMANDS;
+            for (PlayerInput.Command command : pendingInputs) {
+                if (skip-- <= 0) {
+                    input.commands.add(command);
+                }
+            }
+            return input;
+        }
+    }
+
+    /**
+     * Move the player to the position the server calculated and predict the commands the server didn't simulate yet
+     *
+     * @param correction the position of the server with the last input command it includes
+     */
+    public void reconcile(Position correction) {
+        synchronized (pendingInputs) {
+            // corrections over the udp channel might arrive out of order
+            if (correction.input < correctedInput) {
+                return;
+            }
+            correctedInput = correction.input;
+            while (!pendingInputs.isEmpty() && inputSequence - pendingInputs.size() < correction.input) {
+                pendingInputs.poll();
+            }
+
+            position.x = correction.x;
+            position.y = correction.y;
+            for (PlayerInput.Command command : pendingInputs) {
+                predict(command);
+            }
+        }
+    }
+
     /**
      * Determine whether the player is on a given field
      *
@@ -424,22 +530,20 @@ public class Player {
      * @param g the corresponding graphics object
      */
     public void draw(Graphics g) {
-        if (sprite == null || !state.isAlive()) {
+        if (sprite == null || !state.isAlive() || hidden) {
             return;
         }
         // Calculate the destination position
         int dx = (int) ((position.x - 18) * Battleground.ratio) + Battleground.offset;
         int dy = (int) ((position.y - 32) * Battleground.ratio) + Battleground.offset;
-        // Calculate the position of the sprite
-        int[] spritePosition = Animation.getSpritePosition(position, color);
-
-        // Create the sub image
-        Image image = sprite.getSub(
-                (int) (spriteRatio * SCALE * spritePosition[1] * PLAYER_WIDTH),
-                (int) (spriteRatio * SCALE * spritePosition[0] * PLAYER_HEIGHT),
-                (int) (spriteRatio * SCALE * PLAYER_WIDTH),
-                (int) (spriteRatio * SCALE * PLAYER_HEIGHT)
-        );
+        // Get the frames for the current size
+        float frameWidth = spriteRatio * SCALE * PLAYER_WIDTH, frameHeight = spriteRatio * SCALE * PLAYER_HEIGHT;
+        if (atlas == null || !atlas.fits(frameWidth, frameHeight)) {
+            atlas = SpriteAtlas.get(color % CHARACTERS, frameWidth, frameHeight);
+        }
+
+        // Pick the frame of the animation
+        Image image = Animation.getSprite(position, color, atlas, sprite);
 
         // Draw the image
         g.drawImage(image, dx, dy, null);
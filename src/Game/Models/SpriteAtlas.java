@@ -0,0 +1,149 @@
+package Game.Models;
+
+import General.Shared.MBImage;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+
+/**
+ * The animation frames of a character, cut out of its sprite once for every size
+ * <p>
+ * Drawing a player only picks one of the frames instead of copying it out of the sprite. Players with the same
+ * character share the frames, the atlases of the last sizes are kept so the sidebar and the battleground don't replace
+ * each other's frames.
+ */
+public class SpriteAtlas {
+    /**
+     * Number of rows (directions) and columns (animation steps) of a sprite
+     */
+    public static final int ROWS = 4, COLUMNS = 3;
+    /**
+     * Maximum number of atlases that are kept
+     */
+    private static final int MAX_ATLASES = 32;
+    /**
+     * The atlases by character and frame size, least recently used first
+     */
+    private static final LinkedHashMap<String, SpriteAtlas> atlases = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(java.util.Map.Entry<String, SpriteAtlas> eldest) {
+            return size() > MAX_ATLASES;
+        }
+    };
+    /**
+     * The character of the sprite
+     */
+    public final int character;
+    /**
+     * Width of a frame in the sprite
+     */
+    public final float frameWidth;
+    /**
+     * Height of a frame in the sprite
+     */
+    public final float frameHeight;
+    /**
+     * The frames [m, n]
+     */
+    private final BufferedImage[][] frames = new BufferedImage[ROWS][COLUMNS];
+    /**
+     * False while the sprite is still being scaled and the frames have to be cut again
+     */
+    private boolean complete = false;
+
+    /**
+     * Constructor
+     *
+     * @param character   the character of the sprite
+     * @param frameWidth  width of a frame in the sprite
+     * @param frameHeight height of a frame in the sprite
+     */
+    private SpriteAtlas(int character, float frameWidth, float frameHeight) {
+        this.character = character;
+        this.frameWidth = frameWidth;
+        this.frameHeight = frameHeight;
+        int width = Math.max(1, (int) frameWidth), height = Math.max(1, (int) frameHeight);
+        for (int m = 0; m < ROWS; m++) {
+            for (int n = 0; n < COLUMNS; n++) {
+                frames[m][n] = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            }
+        }
+    }
+
+    /**
+     * Get the shared atlas of a character
+     *
+     * @param character   the character of the sprite
+     * @param frameWidth  width of a frame in the sprite
+     * @param frameHeight height of a frame in the sprite
+     * @return the atlas
+     */
+    public static synchronized SpriteAtlas get(int character, float frameWidth, float frameHeight) {
+        return atlases.computeIfAbsent(
+                character + ":" + frameWidth + "x" + frameHeight,
+                key -> new SpriteAtlas(character, frameWidth, frameHeight)
+        );
+    }
+
+    /**
+     * Check if the atlas has frames of a size, used to keep an atlas until the size changes
+     *
+     * @param frameWidth  width of a frame in the sprite
+     * @param frameHeight height of a frame in the sprite
+     * @return true if the frames have this size
+     */
+    public boolean fits(float frameWidth, float frameHeight) {
+        return this.frameWidth == frameWidth && this.frameHeight == frameHeight;
+    }
+
+    /**
+     * Get a frame
+     *
+     * @param sprite the sprite of the character, scaled to the size of the frames
+     * @param m      row of the frame
+     * @param n      column of the frame
+     * @return the frame
+     */
+    public synchronized Image getFrame(MBImage sprite, int m, int n) {
+        if (!complete) {
+            cut(sprite.image);
+        }
+        return frames[m][n];
+    }
+
+    /**
+     * Cut all frames out of the sprite
+     *
+     * @param image the scaled sprite
+     */
+    private void cut(Image image) {
+        boolean drawn = true;
+        for (int m = 0; m < ROWS; m++) {
+            for (int n = 0; n < COLUMNS; n++) {
+                BufferedImage frame = frames[m][n];
+                int x = (int) (n * frameWidth), y = (int) (m * frameHeight);
+                Graphics2D g = frame.createGraphics();
+                g.setComposite(AlphaComposite.Clear);
+                g.fillRect(0, 0, frame.getWidth(), frame.getHeight());
+                g.setComposite(AlphaComposite.SrcOver);
+                drawn &= g.drawImage(
+                        image,
+                        0,
+                        0,
+                        frame.getWidth(),
+                        frame.getHeight(),
+                        x,
+                        y,
+                        x + frame.getWidth(),
+                        y + frame.getHeight(),
+                        null
+                );
+                g.dispose();
+            }
+        }
+        // the sprite is still being scaled or has another size, the frames are cut again when they are drawn next time
+        complete = drawn && Math.abs(image.getWidth(null) - COLUMNS * frameWidth) <= 1
+                && Math.abs(image.getHeight(null) - ROWS * frameHeight) <= 1;
+    }
+}
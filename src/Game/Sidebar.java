@@ -1,6 +1,7 @@
 package Game;
 
 import Game.Models.Player;
+import Game.Models.SpriteAtlas;
 import General.MB;
 import General.MultiBomb;
 import General.Shared.*;
@@ -210,6 +211,10 @@ public class Sidebar extends MBPanel {
          * The width of the item
          */
         private int width = 0;
+        /**
+         * The frames of the player's character
+         */
+        private SpriteAtlas atlas;
 
         /**
          * Constructor
@@ -265,9 +270,13 @@ public class Sidebar extends MBPanel {
         public void paintComponent(Graphics g) {
             super.paintComponent(g);
             MB.settings.enableAntiAliasing(g);
-            if (playerSprites.size() > player.color) {
+            if (!playerSprites.isEmpty()) {
+                int character = player.color % playerSprites.size();
+                if (atlas == null || atlas.character != character) {
+                    atlas = SpriteAtlas.get(character, 32, 36);
+                }
                 g.drawImage(
-                        playerSprites.get(player.color).getSub(32, 0, 32, 36),
+                        atlas.getFrame(playerSprites.get(character), 0, 1),
                         padding,
                         (height - 36) / 2,
                         null
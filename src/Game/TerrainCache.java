@@ -0,0 +1,228 @@
+package Game;
+
+import Game.Models.Field;
+import General.MB;
+import Server.Messages.Socket.Map;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Pre-rendered ground and obstacles of the battleground
+ * <p>
+ * The ground is one image of the whole panel. The obstacles are taller than a field and cover the players in the row
+ * behind them, so every row of obstacles has its own image that is drawn between the rows of players. The fields of
+ * the map are compared once per frame and only the rows that changed are drawn again, the textures are only drawn
+ * again when they were scaled to a new size.
+ */
+public class TerrainCache {
+    /**
+     * Image of the ground tiles
+     */
+    private BufferedImage ground;
+    /**
+     * Images of the obstacles of every row
+     */
+    private BufferedImage[] rows = new BufferedImage[0];
+    /**
+     * Field ids the row images were drawn with
+     */
+    private byte[][] drawn = new byte[0][0];
+    /**
+     * Field ids of the current frame
+     */
+    private byte[][] fields = new byte[0][0];
+    /**
+     * Rows whose image has to be drawn again
+     */
+    private boolean[] dirty = new boolean[0];
+    /**
+     * Indicate if the ground image has to be drawn again
+     */
+    private boolean groundDirty = true;
+    /**
+     * The textures the images were drawn with
+     */
+    private Image[] textures = new Image[0];
+    /**
+     * Size of the panel and of the fields the images were drawn for
+     */
+    private int width, height, fieldSize, offset;
+
+    /**
+     * Bring the images up to date with the map and the size of the panel
+     *
+     * @param component the panel the images are drawn on
+     * @param map       the map
+     */
+    public void update(Component component, Map map) {
+        int size = map.getSize();
+        boolean rescaled = texturesChanged();
+        if (rescaled || fields.length != size || component.getWidth() != width || component.getHeight() != height
+                || Battleground.fieldSize != fieldSize || Battleground.offset != offset) {
+            // everything is drawn again
+            width = component.getWidth();
+            height = component.getHeight();
+            fieldSize = Battleground.fieldSize;
+            offset = Battleground.offset;
+            fields = new byte[size][size];
+            drawn = new byte[size][];
+            rows = new BufferedImage[size];
+            dirty = new boolean[size];
+            Arrays.fill(dirty, true);
+            ground = null;
+            groundDirty = true;
+        }
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+
+        map.copyFields(fields);
+        if (groundDirty) {
+            drawGround(component);
+        }
+        for (int m = 0; m < size; m++) {
+            if (dirty[m] || !Arrays.equals(fields[m], drawn[m])) {
+                drawRow(component, m);
+            }
+        }
+    }
+
+    /**
+     * Draw the ground image
+     *
+     * @param g graphics of the panel
+     */
+    public void paintGround(Graphics g) {
+        if (ground != null) {
+            g.drawImage(ground, 0, 0, null);
+        }
+    }
+
+    /**
+     * Draw the obstacles of a row
+     *
+     * @param g graphics of the panel
+     * @param m the row
+     */
+    public void paintRow(Graphics g, int m) {
+        if (m < rows.length && rows[m] != null) {
+            g.drawImage(rows[m], 0, rowTop(m), null);
+        }
+    }
+
+    /**
+     * Draw the ground tiles into the ground image
+     *
+     * @param component the panel the image is drawn on
+     */
+    private void drawGround(Component component) {
+        if (ground == null) {
+            ground = createImage(component, width, height);
+        }
+        Graphics2D g = prepare(ground);
+        boolean complete = true;
+        for (int m = 0; m < fields.length; m++) {
+            for (int n = 0; n < fields.length; n++) {
+                complete &= g.drawImage(
+                        Field.GROUND.image.image,
+                        n * fieldSize + offset + Field.offset_x,
+                        m * fieldSize + offset + Field.offset_y,
+                        null
+                );
+            }
+        }
+        g.dispose();
+        // textures that are still being scaled are drawn again in the next frame
+        groundDirty = !complete;
+    }
+
+    /**
+     * Draw the obstacles of a row into its image
+     *
+     * @param component the panel the image is drawn on
+     * @param m         the row
+     */
+    private void drawRow(Component component, int m) {
+        if (rows[m] == null) {
+            rows[m] = createImage(component, width, (int) (Field.HEIGHT * Battleground.ratio) + 1);
+        }
+        Graphics2D g = prepare(rows[m]);
+        boolean complete = true;
+        for (int n = 0; n < fields.length; n++) {
+            Field field = Field.getItem(fields[m][n]);
+            if (field != null && field.id != Field.GROUND.id && field.image != null) {
+                complete &= g.drawImage(
+                        field.image.image,
+                        n * fieldSize + offset + Field.offset_x,
+                        0,
+                        null
+                );
+            }
+        }
+        g.dispose();
+        drawn[m] = fields[m].clone();
+        dirty[m] = !complete;
+    }
+
+    /**
+     * @param m the row
+     * @return the y coordinate of the image of a row on the panel
+     */
+    private int rowTop(int m) {
+        return m * fieldSize + offset + Field.offset_y;
+    }
+
+    /**
+     * Check if a texture was replaced since the images were drawn, which happens when the panel is resized
+     *
+     * @return true if the images have to be drawn again
+     */
+    private boolean texturesChanged() {
+        Field[] values = Field.values();
+        boolean changed = textures.length != values.length;
+        if (changed) {
+            textures = new Image[values.length];
+        }
+        for (int i = 0; i < values.length; i++) {
+            Image texture = values[i].image == null ? null : values[i].image.image;
+            if (textures[i] != texture) {
+                textures[i] = texture;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Create a transparent image the graphics device can keep in video memory
+     *
+     * @param component the panel the image is drawn on
+     * @param width     width of the image
+     * @param height    height of the image
+     * @return the image
+     */
+    private static BufferedImage createImage(Component component, int width, int height) {
+        GraphicsConfiguration configuration = component.getGraphicsConfiguration();
+        if (configuration == null) {
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        }
+        return configuration.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+    }
+
+    /**
+     * Clear an image and get its graphics
+     *
+     * @param image the image
+     * @return the graphics with the settings of the battleground
+     */
+    private static Graphics2D prepare(BufferedImage image) {
+        Graphics2D g = image.createGraphics();
+        g.setComposite(AlphaComposite.Clear);
+        g.fillRect(0, 0, image.getWidth(), image.getHeight());
+        g.setComposite(AlphaComposite.SrcOver);
+        MB.settings.enableAntiAliasing(g);
+        return g;
+    }
+}
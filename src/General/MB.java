@@ -2,6 +2,7 @@ package General;
 
 
 import Editor.MapManager;
+import Game.Models.Player;
 import General.Shared.MBImage;
 import General.Shared.MBPanel;
 import General.Sound.SoundControl;
@@ -114,7 +115,7 @@ public class MB {
      */
     public static ArrayList<MBImage> getPlayerSprites() {
         ArrayList<MBImage> playerSprites = new ArrayList<>();
-        for (int i = 0; i < 8; i++) {
+        for (int i = 0; i < Player.CHARACTERS; i++) {
             playerSprite = new MBImage("Characters/" + i + ".png", null, () -> {
                 playerSprite.width = 96;
                 playerSprite.height = 144;
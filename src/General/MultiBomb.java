@@ -35,22 +35,34 @@ public class MultiBomb {
 
             if (!"-s".equals(args[0]) || args.length < 4) {
                 System.out.println("To start only the server use the following syntax:");
-                System.out.println("-s <serverName> <tickRate> <maxLobbies>");
+                System.out.println("-s <serverName> <tickRate> <maxLobbies> [transport] [maxBatchSize] [maxBatchLatency]");
             } else {
                 String serverName = args[1];
                 try {
                     int tickRate = Integer.parseInt(args[2]);
                     int maxLobbies = Integer.parseInt(args[3]);
+                    String transport = args.length > 4 ? args[4] : Server.THREAD_TRANSPORT;
+                    int maxBatchSize = args.length > 5 ? Integer.parseInt(args[5]) : Server.DEFAULT_MAX_BATCH_SIZE;
+                    long maxBatchLatency = args.length > 6 ? Long.parseLong(args[6]) : -1;
 
                     if (serverName.equals("")) {
                         System.out.println("Server name cannot be empty");
-                    } else if (tickRate == 64 || tickRate == 128) {
-                        new Server(serverName, tickRate, maxLobbies).run();
-                    } else {
+                    } else if (tickRate != 64 && tickRate != 128) {
                         System.out.println("TickRate must be 64 or 128");
+                    } else if (!Server.isTransport(transport)) {
+                        System.out.println("Transport must be " + Server.THREAD_TRANSPORT + ", "
+                                + Server.VIRTUAL_TRANSPORT + " or " + Server.NIO_TRANSPORT);
+                    } else if (maxBatchSize < 1 || args.length > 6 && maxBatchLatency < 0) {
+                        System.out.println("maxBatchSize must be positive and maxBatchLatency must not be negative");
+                    } else {
+                        // by default a batch waits at most one tick
+                        if (args.length <= 6) {
+                            maxBatchLatency = 1000 / tickRate;
+                        }
+                        new Server(serverName, tickRate, maxLobbies, transport, maxBatchSize, maxBatchLatency).run();
                     }
                 } catch (NumberFormatException e) {
-                    System.out.println("TickRate and maxLobbies must be integers!");
+                    System.out.println("TickRate, maxLobbies, maxBatchSize and maxBatchLatency must be integers!");
                 }
             }
         } else {
@@ -4,12 +4,10 @@ import Game.Battleground;
 import Game.Models.Field;
 import General.MB;
 
-import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
 import java.awt.image.BufferedImage;
-import java.io.IOException;
 
 public class MBImage {
     /**
@@ -32,6 +30,10 @@ public class MBImage {
      * The actual image
      */
     public Image original;
+    /**
+     * Path of the image in the resources
+     */
+    private String path;
 
     /**
      * Constructor for global images that are used all over the project.
@@ -91,11 +93,8 @@ public class MBImage {
      */
     private void initialize(String relativePath, boolean onFrame, MBPanel parent) {
         // Load the image
-        try {
-            this.original = ImageIO.read(MBImage.class.getResource("/Resources/" + relativePath));
-        } catch (IOException e) {
-            this.original = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
-        }
+        this.path = relativePath;
+        this.original = TextureCache.getOriginal(relativePath);
         this.image = this.original;
 
         // Listen for resize events
@@ -184,19 +183,12 @@ public class MBImage {
      * Rescale the image without losing quality
      */
     private void rescale() {
-        Image scaled;
-
         // If image width or height is zero return transparent image
         if (width <= 0 || height <= 0) {
             return;
         }
 
-        // Resize the image
-        scaled = original.getScaledInstance(width, height, Image.SCALE_SMOOTH);
-
-        // Check if resizing was successful
-        if (scaled != null) {
-            this.image = scaled;
-        }
+        // Get the resized image
+        this.image = TextureCache.get(path, width, height);
     }
 }
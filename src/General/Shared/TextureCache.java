@@ -0,0 +1,136 @@
+package General.Shared;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * The decoded resource images and their scaled versions
+ * <p>
+ * Every resource is only read once. The scaled versions are drawn right away into images that fit the screen, so
+ * they can be drawn without scaling and are ready in the first frame. The least recently used ones are dropped when
+ * the cache holds too many pixels.
+ */
+public class TextureCache {
+    /**
+     * Maximum number of pixels of all scaled images
+     */
+    public static long maxPixels = 16_000_000;
+    /**
+     * The decoded images by path
+     */
+    private static final HashMap<String, BufferedImage> originals = new HashMap<>();
+    /**
+     * The scaled images by path and size, least recently used first
+     */
+    private static final LinkedHashMap<String, BufferedImage> scaled = new LinkedHashMap<>(64, 0.75f, true);
+    /**
+     * Number of pixels of all scaled images
+     */
+    private static long pixels = 0;
+
+    /**
+     * Get a resource image
+     *
+     * @param relativePath path of the image in the resources
+     * @return the image, a transparent pixel if it can't be read
+     */
+    public static synchronized BufferedImage getOriginal(String relativePath) {
+        BufferedImage original = originals.get(relativePath);
+        if (original == null) {
+            try {
+                URL url = TextureCache.class.getResource("/Resources/" + relativePath);
+                original = url == null ? null : ImageIO.read(url);
+            } catch (IOException e) {
+                original = null;
+            }
+            if (original == null) {
+                original = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+            }
+            originals.put(relativePath, original);
+        }
+        return original;
+    }
+
+    /**
+     * Get a resource image in a certain size
+     *
+     * @param relativePath path of the image in the resources
+     * @param width        the width
+     * @param height       the height
+     * @return the scaled image
+     */
+    public static synchronized BufferedImage get(String relativePath, int width, int height) {
+        String key = relativePath + ":" + width + "x" + height;
+        BufferedImage image = scaled.get(key);
+        if (image == null) {
+            image = scale(getOriginal(relativePath), width, height);
+            scaled.put(key, image);
+            pixels += (long) width * height;
+
+            // Drop the least recently used images
+            Iterator<BufferedImage> iterator = scaled.values().iterator();
+            while (pixels > maxPixels && scaled.size() > 1) {
+                BufferedImage eldest = iterator.next();
+                pixels -= (long) eldest.getWidth() * eldest.getHeight();
+                iterator.remove();
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Scale an image smoothly, bigger steps down are split into halves so no pixels are skipped
+     *
+     * @param original the image
+     * @param width    the new width
+     * @param height   the new height
+     * @return the scaled image
+     */
+    private static BufferedImage scale(BufferedImage original, int width, int height) {
+        BufferedImage current = original;
+        int currentWidth = original.getWidth(), currentHeight = original.getHeight();
+        do {
+            currentWidth = currentWidth / 2 > width ? currentWidth / 2 : width;
+            currentHeight = currentHeight / 2 > height ? currentHeight / 2 : height;
+            boolean last = currentWidth == width && currentHeight == height;
+            BufferedImage next = last
+                    ? createImage(width, height)
+                    : new BufferedImage(currentWidth, currentHeight, BufferedImage.TYPE_INT_ARGB_PRE);
+            Graphics2D g = next.createGraphics();
+            g.setRenderingHint(
+                    RenderingHints.KEY_INTERPOLATION,
+                    last && (width > original.getWidth() || height > original.getHeight())
+                            ? RenderingHints.VALUE_INTERPOLATION_BICUBIC
+                            : RenderingHints.VALUE_INTERPOLATION_BILINEAR
+            );
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            g.dispose();
+            current = next;
+        } while (currentWidth != width || currentHeight != height);
+        return current;
+    }
+
+    /**
+     * Create a transparent image in the format of the screen
+     *
+     * @param width  the width
+     * @param height the height
+     * @return the image
+     */
+    private static BufferedImage createImage(int width, int height) {
+        if (GraphicsEnvironment.isHeadless()) {
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        }
+        return GraphicsEnvironment.getLocalGraphicsEnvironment()
+                .getDefaultScreenDevice()
+                .getDefaultConfiguration()
+                .createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+    }
+}
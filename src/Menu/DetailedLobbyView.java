@@ -64,12 +64,15 @@ public class DetailedLobbyView extends MBPanel {
      * @param name     of the lobby
      * @param ip       address
      * @param tickRate of the server
+     * @param protocol of the game socket
+     * @param udpToken session token for the udp channel, null if the server doesn't offer it
      */
-    public DetailedLobbyView(String player, String name, String ip, int tickRate) throws IOException {
+    public DetailedLobbyView(String player, String name, String ip, int tickRate, String protocol, Long udpToken)
+            throws IOException {
         super(true);
         this.player = player;
         setupLayout();
-        setupLobby(name, ip, tickRate);
+        setupLobby(name, ip, tickRate, protocol, udpToken);
     }
 
     /**
@@ -78,12 +81,15 @@ public class DetailedLobbyView extends MBPanel {
      * @param lobbyName of the lobby
      * @param ip        address
      * @param tickRate  of the server
+     * @param protocol  of the game socket
+     * @param udpToken  session token for the udp channel, null if the server doesn't offer it
      */
-    public void setupLobby(String lobbyName, String ip, int tickRate) throws IOException {
+    public void setupLobby(String lobbyName, String ip, int tickRate, String protocol, Long udpToken)
+            throws IOException {
         setupLobbyEvents();
 
         // Start the connection
-        Lobby.connect(lobbyName, ip, tickRate, player, this);
+        Lobby.connect(lobbyName, ip, tickRate, player, protocol, udpToken, this);
     }
 
     /**
@@ -365,8 +371,8 @@ public class DetailedLobbyView extends MBPanel {
         public void paintComponent(Graphics g) {
             super.paintComponent(g);
             MB.settings.enableAntiAliasing(g);
-            if (playerSprites.size() > color) {
-                g.drawImage(playerSprites.get(color).getSub(32, 0, 32, 36), 8, 8, null);
+            if (!playerSprites.isEmpty()) {
+                g.drawImage(playerSprites.get(color % playerSprites.size()).getSub(32, 0, 32, 36), 8, 8, null);
             }
 
             // Draw the crown if player is host
@@ -7,9 +7,11 @@ import General.Shared.*;
 import Server.DetectLobby;
 import Server.Messages.ErrorMessage;
 import Server.Messages.Message;
+import Server.Messages.MessageCodec;
 import Server.Messages.REST.CreateLobby;
 import Server.Messages.REST.JoinLobby;
 import Server.Messages.REST.LobbyInfo;
+import Server.Messages.Socket.Map;
 import Server.Server;
 
 import javax.swing.*;
@@ -234,6 +236,7 @@ public class LobbyView extends MBPanel {
                 CreateLobby message = new CreateLobby();
                 message.playerID = MB.settings.playerName;
                 message.lobbyName = name;
+                message.protocol = MessageCodec.BINARY;
                 String query = message.toJson();
                 urlConn.setRequestProperty("Content-Length", Integer.toString(query.length()));
                 urlConn.getOutputStream().write(query.getBytes(StandardCharsets.UTF_8));
@@ -242,6 +245,7 @@ public class LobbyView extends MBPanel {
                 JoinLobby message = new JoinLobby();
                 message.playerID = MB.settings.playerName;
                 message.lobbyName = name;
+                message.protocol = MessageCodec.BINARY;
                 String query = message.toJson();
                 urlConn.setRequestProperty("Content-Length", Integer.toString(query.length()));
                 urlConn.getOutputStream().write(query.getBytes(StandardCharsets.UTF_8));
@@ -251,13 +255,27 @@ public class LobbyView extends MBPanel {
             if (urlConn.getResponseCode() == 200) {
                 running = false;
 
+                // Older servers respond without a body and only speak json
+                String protocol = MessageCodec.JSON;
+                Long udpToken = null;
+                String body = new BufferedReader(new InputStreamReader(urlConn.getInputStream())).readLine();
+                if (body != null && !body.isEmpty()) {
+                    Message response = Message.fromJson(body);
+                    if (response.type.equals(Message.JOIN_LOBBY_TYPE)) {
+                        protocol = ((JoinLobby) response).protocol;
+                        udpToken = ((JoinLobby) response).udpToken;
+                    }
+                }
+
                 // Show the detailed lobby view
                 MB.show(
                         new DetailedLobbyView(
                                 MB.settings.playerName,
                                 name,
                                 Lobby.ipAddress,
-                                128
+                                128,
+                                protocol,
+                                udpToken
                         ),
                         false
                 );
@@ -329,9 +347,11 @@ public class LobbyView extends MBPanel {
             if (lobby == null) {
                 return;
             }
+            // older servers don't send the player limit
+            int maxPlayers = lobby.maxPlayers > 0 ? lobby.maxPlayers : Map.SPAWNS;
             descriptionLabel.setText(
                     "Players " + lobby.players
-                            + "/8 \u2022 Game Mode " + lobby.gameMode
+                            + "/" + maxPlayers + " \u2022 Game Mode " + lobby.gameMode
                             + " \u2022 Status " + lobby.status
             );
         }
@@ -1,63 +1,73 @@
 package Server;
 
-import Game.GameModes.GameMode;
 import Game.Models.Field;
-import General.MultiBomb;
-import Server.Items.ServerArrow;
-import Server.Items.ServerBomb;
-import Server.Items.ServerSword;
+import Server.Messages.Message;
+import Server.Messages.OutgoingMessage;
 import Server.Messages.Socket.*;
-import Server.Models.Player;
+import Simulation.Inputs;
+import Simulation.Player;
+import Simulation.Replay;
+import Simulation.World;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Random;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 
 import static General.MultiBomb.LOGGER;
 
-public class GameWorld extends Thread {
-    /**
-     * A threshold for random values to handle the rate at which items are spawned on the map
-     */
-    private static final float RANDOM_THRESHOLD = 0.2f;
-    /**
-     * Random object for random spawning of items
-     */
-    private final Random random;
+/**
+ * Game loop of a lobby, its ticks are run by the tick scheduler of the server
+ * <p>
+ * The game itself is a world of the simulation, the game loop hands it the inputs of the clients and sends the
+ * events and positions of every tick to the clients. The world doesn't log, its events are logged here.
+ */
+public class GameWorld implements World.Events {
     /**
      * Lobby the GameWorld is running in
      */
     private final Lobby lobby;
     /**
-     * Map of all player names to the according player objects
+     * The state of the game, only used by the game loop
      */
-    private final HashMap<String, Player> players;
+    private final World world;
     /**
-     * The map of the game
+     * Names of the players that left and are removed in the next tick
      */
-    private final Map map;
+    private final ConcurrentLinkedQueue<String> leaving = new ConcurrentLinkedQueue<>();
     /**
-     * Time the game loop has to sleep for in order to reach the desired tick rate
+     * Time between two ticks in nanoseconds
      */
-    private final long waitTime = 1000 / Server.ticksPerSecond;
+    private final long tickPeriod = TimeUnit.SECONDS.toNanos(1) / Server.ticksPerSecond;
     /**
      * The time at which the game loop can start
      */
     private final long startTime;
     /**
-     * The GameMode of the game
+     * Serializations that were saved by sharing encoded broadcasts during the last tick
      */
-    private final GameMode gameMode;
+    public volatile int savedEncodings = 0;
     /**
-     * The number of items currently on the map
+     * Serializations that were saved by sharing encoded broadcasts during the whole game
      */
-    private final AtomicInteger currentItems = new AtomicInteger();
+    private long totalSavedEncodings = 0;
+    /**
+     * Number of ticks the game loop ran
+     */
+    private long ticks = 0;
+    /**
+     * Timing of the ticks of the game loop
+     */
+    public final TickStats tickStats = new TickStats(tickPeriod);
     /**
      * Indicate if the game is still running
      */
-    private boolean isRunning = true;
+    private volatile boolean isRunning = true;
+    /**
+     * Number of item timers that are not executed yet, updated after every tick for the metrics
+     */
+    private volatile int activeTimers = 0;
     /**
      * The name of the winner of the game
      */
@@ -71,409 +81,250 @@ public class GameWorld extends Thread {
      * @param startTime the time at which the game loop should start
      */
     public GameWorld(Lobby lobby, Map map, long startTime) {
+        this(lobby, map, startTime, System.nanoTime() ^ System.identityHashCode(lobby));
+    }
+
+    /**
+     * Constructor
+     *
+     * @param lobby     the lobby the GameWorld runs in
+     * @param map       the map of the game
+     * @param startTime the time at which the game loop should start
+     * @param seed      the seed of the random numbers
+     */
+    public GameWorld(Lobby lobby, Map map, long startTime, long seed) {
         LOGGER.config(String.format("Entering: %s %s", GameWorld.class.getName(), "GameWorld()"));
         this.lobby = lobby;
-        this.map = map;
         this.startTime = startTime;
+        this.world = new World(map, lobby.gameMode, lobby.getPlayerColors(), seed, Server.ticksPerSecond, this);
 
-        this.players = new HashMap<>();
-        this.gameMode = GameMode.getMode(lobby.gameMode);
-
-        this.random = new Random();
-
-        LOGGER.info("Initialized new GameWorld");
+        LOGGER.info("Initialized new GameWorld with seed " + seed);
 
-        // For every playerConnection in the lobby
-        lobby.players.values().forEach(pc -> {
-            // create new Player object
-            Player player = new Player(pc.name);
-            // save the player object
-            players.put(pc.name, player);
-            // put the player's PlayerState object in the gameMode
-            gameMode.players.put(pc.name, player.playerState);
-        });
+        // the players start at their spawns
+        lobby.players.values().forEach(pc -> pc.lastPosition = world.getPlayer(pc.name).position);
         LOGGER.config(String.format("Exiting: %s %s", GameWorld.class.getName(), "GameWorld()"));
     }
 
-    @Override
-    public void run() {
-        LOGGER.config(String.format("Entering: %s %s", GameWorld.class.getName(), "run()"));
-        try {
-            // wait until the game loop can start
-            Thread.sleep(startTime - System.currentTimeMillis());
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
-
-        LOGGER.info("Start game loop");
-
-        while (isRunning) {
-            long startTime = System.currentTimeMillis();
-
-            // handle events for every player
-            players.values().forEach(this::handlePlayerEvents);
-
-            // spawn an item randomly on the map
-            spawnItem();
-
-            synchronized (players) {
-                gameMode.calculateWinner().ifPresent(s -> {
-                    // if there is a winner, set the variable and stop the game loop
-                    winner = s;
-                    stopGame();
-                });
-            }
-
-            // calculate sleep time for target tick rate
-            long delta = System.currentTimeMillis() - startTime;
-
-            if (delta < waitTime) {
-                MultiBomb.sleep(waitTime - delta);
-            }
-        }
-
-        // end the game
-        lobby.endGame(winner);
-        LOGGER.config(String.format("Exiting: %s %s", GameWorld.class.getName(), "run()"));
-    }
-
     /**
-     * Remove player, used when socket connection is faulty
+     * Record the inputs of the game, must be called before the game loop starts
      *
-     * @param name name of the player
+     * @return the replay the inputs are recorded in
      */
-    public void removePlayer(String name) {
-        LOGGER.config(String.format("Entering: %s %s", GameWorld.class.getName(), "removePlayer(" + name + ")"));
-        synchronized (players) {
-            // disconnected players are dead
-            players.get(name).kill();
-        }
-
-        // send update about dead player to all players
-        lobby.sendToAllPlayers(players.get(name).playerState);
-        LOGGER.config(String.format("Exiting: %s %s", GameWorld.class.getName(), "removePlayer(" + name + ")"));
+    public Replay record() {
+        return world.record();
     }
 
     /**
-     * Stop the game loop
+     * Start ticking the game loop at its start time
+     *
+     * @param scheduler the tick scheduler of the server
      */
-    public void stopGame() {
-        LOGGER.config(String.format("Entering: %s %s", GameWorld.class.getName(), "stopGame()"));
-        isRunning = false;
-        LOGGER.config(String.format("Exiting: %s %s", GameWorld.class.getName(), "stopGame()"));
+    public void start(TickScheduler scheduler) {
+        LOGGER.config(String.format("Entering: %s %s", GameWorld.class.getName(), "start()"));
+        scheduler.schedule(this, startTime);
+        LOGGER.config(String.format("Exiting: %s %s", GameWorld.class.getName(), "start()"));
     }
 
     /**
-     * Handle hit on a field, the player that is using the item can be hit
+     * Run one tick of the game loop
      *
-     * @param from               the player that used the item
-     * @param m                  coordinate on the map
-     * @param n                  coordinate on the map
-     * @param stoppedByBreakable item is stopped by breakable
-     * @return indication if something was hit
+     * @return false if the game ended and the game loop must not be ticked anymore
      */
-    private boolean handleHits(String from, int m, int n, boolean stoppedByBreakable) {
-        LOGGER.config(String.format("Entering: %s %s", GameWorld.class.getName(), "handleHits(" + from + ")"));
-        boolean hitSomething = false;
-
-        // if pos is inside map
-        if (m < Map.SIZE && m >= 0 && n < Map.SIZE && n >= 0) {
-            // handle hits on the map
-            hitSomething = handleMapHit(m, n, stoppedByBreakable);
-
-            synchronized (players) {
-                // a hit occurs if any of the players are on the hit's position
-                players.values().forEach(p -> {
-                    if (p.isAlive()
-                            && (int) (p.position.y / Map.FIELD_SIZE) == m
-                            && (int) (p.position.x / Map.FIELD_SIZE) == n) {
-                        // hit player
-                        gameMode.handleHit(p, players.get(from)).forEach(lobby::sendToAllPlayers);
-                    }
-                });
-            }
-
+    public boolean tick() {
+        if (!isRunning) {
+            finish();
+            return false;
+        }
+        if (ticks == 0) {
+            LOGGER.info("Start game loop");
         }
-        LOGGER.config(String.format("Exiting: %s %s", GameWorld.class.getName(), "handleHits(" + from + ")"));
-        return hitSomething;
-    }
 
-    /**
-     * Handle hit from an item to a field
-     *
-     * @param m                  coordinate on the map
-     * @param n                  coordinate on the map
-     * @param stoppedByBreakable item is stopped by breakable
-     * @return indication if something was hit
-     */
-    private boolean handleMapHit(int m, int n, boolean stoppedByBreakable) {
-        boolean hitSomething = false;
-        boolean hitBreakable = false;
-        synchronized (map) {
-            // get the field of the position
-            Field field = Field.getItem(map.getField(m, n));
+        // hand the inputs of the clients to the world
+        for (String name; (name = leaving.poll()) != null; ) {
+            Inputs inputs = world.getInputs(name);
+            if (inputs != null) {
+                inputs.left = true;
+            }
+        }
+        for (Player player : world.getPlayers()) {
+            takeInputs(player);
+        }
 
-            if (!field.isPassable() && field != Field.SPAWN) {
-                // field is solid or breakable, so it's a hit
-                hitSomething = true;
+        // run the timers, the movement, the items and the hits of this tick
+        world.step();
+        activeTimers = world.getActiveTimers();
 
-                if (field == Field.BREAKABLE_0 || field == Field.BREAKABLE_1) {
-                    LOGGER.info("Field broken at m=" + m + ", n=" + n);
+        // notify all players about the new positions
+        sendPositions();
 
-                    hitBreakable = true;
+        world.calculateWinner().ifPresent(s -> {
+            // if there is a winner, set the variable and stop the game loop
+            winner = s;
+            stopGame();
+        });
 
-                    // if stopped by breakable, register hit
-                    hitSomething = stoppedByBreakable;
+        // write everything that was queued during this tick with one flush per player
+        lobby.flushPlayers();
 
-                    // set the field to ground
-                    map.setField(m, n, Field.GROUND.id);
-                }
-            }
-        }
+        // sample the serializations saved during this tick
+        savedEncodings = lobby.takeSavedEncodings();
+        totalSavedEncodings += savedEncodings;
+        ticks++;
+        return true;
+    }
 
-        if (hitBreakable) {
-            // field is destroyed, notify players
-            lobby.sendToAllPlayers(new FieldDestroyed(m, n));
+    /**
+     * @return check sum of the state of the game, a replay of the game ends with the same sum
+     */
+    public long checksum() {
+        return world.checksum();
+    }
 
-            // randomly spawn a new item at the fields position
-            spawnItem(m, n, true);
-        }
-        return hitSomething;
+    /**
+     * @return number of item timers that are not executed yet, may be slightly outdated when read by another thread
+     */
+    public int getActiveTimers() {
+        return activeTimers;
     }
 
     /**
-     * Handle hit of players in a certain distance to a middle point of a field
-     * <p>
-     * The player that is using the item does not get hit
-     *
-     * @param from   the player that used the item
-     * @param x      pixel position of the circle center
-     * @param y      pixel position of the circle center
-     * @param radius the radius around the item
+     * End the game after the last tick
      */
-    private void handlePlayerHitCircle(String from, float x, float y, float radius) {
-        synchronized (players) {
-            // a hit occurs if any of the players are on the hit's position
-            players.values().forEach(p -> {
-                float px = p.position.x;
-                float py = p.position.y;
-
-                double distance = Math.sqrt(Math.pow(px - x, 2) + Math.pow(py - y, 2));
-
-                if (p.isAlive()
-                        && distance <= radius
-                        && !p.name.equals(from)) {
-                    // hit player
-                    gameMode.handleHit(p, players.get(from)).forEach(lobby::sendToAllPlayers);
-                }
-            });
-        }
+    private void finish() {
+        LOGGER.config(String.format("Entering: %s %s", GameWorld.class.getName(), "finish()"));
+        LOGGER.info(String.format("Shared broadcasts saved %d serializations in %d ticks", totalSavedEncodings, ticks));
+        LOGGER.info(String.format("Messages per flush: %.2f", PlayerConnection.getMessagesPerFlush()));
+        LOGGER.info("Tick timing: " + tickStats);
+        LOGGER.info(String.format("Game with seed %d ended after %d ticks with check sum %x", world.getSeed(),
+                world.getTick(), world.checksum()));
+
+        // end the game
+        lobby.endGame(winner);
+        LOGGER.config(String.format("Exiting: %s %s", GameWorld.class.getName(), "finish()"));
     }
 
     /**
-     * Handle all player events for one player
+     * Take the input commands and item actions of a player that is alive from its connection
      *
      * @param player the player
      */
-    private void handlePlayerEvents(Player player) {
-        LOGGER.config(String.format("Entering: %s %s", GameWorld.class.getName(), "handlePlayerEvents(" + player.name + ")"));
-        if (player.isAlive()) {
-
-            PlayerConnection playerConnection;
-            // get the PlayerConnection for the player
+    private void takeInputs(Player player) {
+        if (!player.isAlive()) {
+            return;
+        }
+        PlayerConnection playerConnection;
+        // get the PlayerConnection for the player, it is gone if the player left during this tick
+        synchronized (lobby.players) {
             playerConnection = lobby.players.get(player.name);
+        }
+        if (playerConnection == null) {
+            return;
+        }
+        Inputs inputs = world.getInputs(player.name);
+        inputs.sequence = playerConnection.takeInputs(inputs.commands);
+        inputs.position = playerConnection.takePosition();
+        synchronized (playerConnection.itemActions) {
+            inputs.itemActions.addAll(playerConnection.itemActions);
+            playerConnection.itemActions.clear();
+        }
+    }
 
-            // set the last position of the player
-            player.position = playerConnection.lastPosition;
-
-            if (player.position != null) {
-                // notify all players about the new position
-                lobby.sendToAllPlayers(player.position);
-
-                // position on the map
-                int m = (int) (player.position.y / Map.FIELD_SIZE);
-                int n = (int) (player.position.x / Map.FIELD_SIZE);
-
-                Field field;
-                synchronized (map) {
-                    // Collect items
-                    field = Field.getItem(map.getField(m, n));
-                    if (field.id < 0) {
-                        // item is collectible
-                        map.setField(m, n, Field.GROUND.id);
-                        currentItems.decrementAndGet();
-
-                        LOGGER.info(player.name + " collected " + field.name);
-                    }
-                }
-                if (field.id < 0) {
-                    synchronized (players) {
-                        // handle the collected item
-                        player.playerState.collectItem(field, true);
+    /**
+     * Send the positions of all alive players
+     */
+    private void sendPositions() {
+        List<Position> positions = new ArrayList<>(world.getPlayers().size());
+        synchronized (lobby.players) {
+            for (Player player : world.getPlayers()) {
+                // positions without a player id are the placeholders before the first update of the client
+                if (player.isAlive() && player.position != null && player.position.playerId != null) {
+                    positions.add(player.position);
+                    PlayerConnection playerConnection = lobby.players.get(player.name);
+                    if (playerConnection != null) {
+                        playerConnection.lastPosition = player.position;
                     }
-
-                    // notify all players about the collected item and the new player state
-                    lobby.sendToAllPlayers(new ItemCollected(player.name, field, m, n));
-                    lobby.sendToAllPlayers(player.playerState);
                 }
-
-                // handle item actions of the player
-                handleItemActions(player, playerConnection);
             }
         }
-        LOGGER.config(String.format("Exiting: %s %s", GameWorld.class.getName(), "handlePlayerEvents(" + player.name + ")"));
+        lobby.sendPositions(positions);
     }
 
     /**
-     * Handle item actions of a player
+     * Remove player, used when socket connection is faulty, the player dies in the next tick
      *
-     * @param player           the player
-     * @param playerConnection the corresponding PlayerConnection object
+     * @param name name of the player
      */
-    private void handleItemActions(Player player, PlayerConnection playerConnection) {
-        LOGGER.config(String.format("Entering: %s %s", GameWorld.class.getName(), "handleItemActions(" + player.name + ")"));
-        // position on the map
-        if (player.isAlive()) {
-            int item_m = (int) (player.position.y / Map.FIELD_SIZE);
-            int item_n = (int) (player.position.x / Map.FIELD_SIZE);
-
-            List<ItemAction> itemActions;
-
-            synchronized (playerConnection.itemActions) {
-                // for each item action
-                itemActions = new ArrayList<>(playerConnection.itemActions);
-                playerConnection.itemActions.clear();
-            }
-
-            itemActions.forEach(iA -> {
-                // send item action to all players
-                lobby.sendToAllPlayers(iA);
-
-                LOGGER.info(player.name + " used item " + iA.itemId);
-
-                switch (iA.itemId) {
-                    case ServerBomb.NAME:
-                        // start the server logic of the bomb
-                        ServerBomb.serverLogic(
-                                (hit_m, hit_n) -> handleHits(player.name, hit_m, hit_n, true),
-                                item_m,
-                                item_n,
-                                player.playerState.upgrades.bombSize
-                        );
-                        break;
-                    case ServerArrow.NAME:
-                        ServerArrow.serverLogic(
-                                (hit_m, hit_n) -> handleHits(player.name, hit_m, hit_n, false),
-                                item_m,
-                                item_n,
-                                iA.direction
-                        );
-                        break;
-                    case ServerSword.NAME:
-                        ServerSword.serverLogic(
-                                (m, n) -> {
-                                    float x = (float) n * Map.FIELD_SIZE + Map.FIELD_SIZE * 0.5f;
-                                    float y = (float) m * Map.FIELD_SIZE + Map.FIELD_SIZE * 0.5f;
-
-                                    handleMapHit(m, n, false);
-                                    handleMapHit(m + 1, n, false);
-                                    handleMapHit(m, n + 1, false);
-                                    handleMapHit(m - 1, n, false);
-                                    handleMapHit(m, n - 1, false);
-
-                                    handlePlayerHitCircle(player.name, x, y, Map.FIELD_SIZE * 1.5f);
-                                    return false;
-                                },
-                                item_m,
-                                item_n
-                        );
-                        break;
-                }
-            });
-        }
-
-        LOGGER.config(String.format("Exiting: %s %s", GameWorld.class.getName(), "handleItemActions(" + player.name + ")"));
+    public void removePlayer(String name) {
+        LOGGER.config(String.format("Entering: %s %s", GameWorld.class.getName(), "removePlayer(" + name + ")"));
+        leaving.add(name);
+        LOGGER.config(String.format("Exiting: %s %s", GameWorld.class.getName(), "removePlayer(" + name + ")"));
     }
 
     /**
-     * Randomly spawn a new item
-     *
-     * @param m coordinate on the map
-     * @param n coordinate on the map
+     * End the game without a winner after a tick failed, the game loop must not be ticked anymore
      */
-    private void spawnItem(int m, int n, boolean fromBreakable) {
-        LOGGER.config(String.format("Entering: %s %s", GameWorld.class.getName(), "spawnItem(m, n)"));
-
-        long alivePlayers;
-        float randomOffset = 0;
-        synchronized (players) {
-            alivePlayers = players.values().stream().filter(Player::isAlive).count();
-            if (alivePlayers > 2) {
-                randomOffset = (alivePlayers - 2) * 0.05f;
-            }
-        }
-
-        synchronized (map) {
-            if (currentItems.get() < alivePlayers + 2) {
-                float random_threshold;
-                if (fromBreakable) {
-                    random_threshold = RANDOM_THRESHOLD * 2;
-                } else {
-                    random_threshold = (RANDOM_THRESHOLD + randomOffset) / Server.ticksPerSecond;
-                }
-
-                if (random.nextFloat() < random_threshold && map.getField(m, n) == Field.GROUND.id) {
+    public void fail() {
+        LOGGER.config(String.format("Entering: %s %s", GameWorld.class.getName(), "fail()"));
+        isRunning = false;
+        winner = null;
+        finish();
+        LOGGER.config(String.format("Exiting: %s %s", GameWorld.class.getName(), "fail()"));
+    }
 
-                    // get random new item
-                    int index = random.nextInt(gameMode.items.length);
+    /**
+     * Stop the game loop
+     */
+    public void stopGame() {
+        LOGGER.config(String.format("Entering: %s %s", GameWorld.class.getName(), "stopGame()"));
+        isRunning = false;
+        LOGGER.config(String.format("Exiting: %s %s", GameWorld.class.getName(), "stopGame()"));
+    }
 
-                    LOGGER.info(String.format("Set new item %s at m=%d, n=%d",
-                            Field.getItem(gameMode.items[index]).name, m, n));
+    @Override
+    public void itemCollected(Player player, Field item, int m, int n) {
+        LOGGER.log(Level.FINE, "{0} collected {1}", new Object[]{player.name, item.name});
+        lobby.sendToPlayersNear(new ItemCollected(player.name, item, m, n), m, n, true);
+    }
 
-                    // set new item on map
-                    map.setField(m, n, gameMode.items[index]);
+    @Override
+    public void fieldDestroyed(int m, int n) {
+        LOGGER.log(Level.FINE, "Field broken at m={0}, n={1}", new Object[]{m, n});
+        lobby.sendToPlayersNear(new FieldDestroyed(m, n), m, n, true);
+    }
 
-                    currentItems.incrementAndGet();
+    @Override
+    public void itemSpawned(Field item, int m, int n) {
+        LOGGER.log(Level.FINE, "Set new item {0} at m={1}, n={2}", new Object[]{item.name, m, n});
+        lobby.sendToPlayersNear(new NewItem(item, m, n), m, n, true);
+    }
 
-                    // notify all players about new item
-                    lobby.sendToAllPlayers(new NewItem(Field.getItem(gameMode.items[index]), m, n));
-                }
-            }
-        }
-        LOGGER.config(String.format("Exiting: %s %s", GameWorld.class.getName(), "spawnItem(m, n)"));
+    @Override
+    public void itemUsed(Player player, ItemAction action) {
+        LOGGER.log(Level.FINE, "{0} used item {1}", new Object[]{player.name, action.itemId});
+        lobby.sendToPlayersNear(action, action.m, action.n, false);
     }
 
-    /**
-     * Randomly spawn a new item on a random location on the map
-     */
-    private void spawnItem() {
-        LOGGER.config(String.format("Entering: %s %s", GameWorld.class.getName(), "spawnItem()"));
-        // set number for maximum number of tries a new random position is generated
-        int maxTries = 40;
-        for (int i = 0; i < maxTries; i++) {
-            // generate random position that is not on the border of the map
-            int m = random.nextInt(Map.SIZE - 2) + 1;
-            int n = random.nextInt(Map.SIZE - 2) + 1;
-
-            synchronized (players) {
-                if (players.values().stream().anyMatch(p -> {
-                    int pm = (int) (p.position.y / Map.FIELD_SIZE);
-                    int pn = (int) (p.position.x / Map.FIELD_SIZE);
-
-                    return Math.abs(m - pm) + Math.abs(n - pn) < 3;
-                })) {
-                    continue;
-                }
-            }
+    @Override
+    public void broadcast(Message message) {
+        lobby.sendToAllPlayers(message);
+    }
 
-            // check if location is ground on the map
-            if (map.getField(m, n) == Field.GROUND.id) {
-                // spawn new item at position
-                spawnItem(m, n, false);
-                // break loop because field with ground was found
-                break;
-            }
+    @Override
+    public void corrected(Player player) {
+        PlayerConnection playerConnection;
+        synchronized (lobby.players) {
+            playerConnection = lobby.players.get(player.name);
         }
-        LOGGER.config(String.format("Exiting: %s %s", GameWorld.class.getName(), "spawnItem()"));
+        if (playerConnection == null) {
+            return;
+        }
+
+        // tell the client which of its commands the position includes
+        Position correction = new Position(player.position.x, player.position.y);
+        correction.playerId = player.name;
+        correction.direction = player.position.direction;
+        correction.moving = player.position.moving;
+        correction.input = player.lastInput;
+        playerConnection.sendUnreliable(new OutgoingMessage(correction));
     }
 }
@@ -2,6 +2,7 @@ package Server;
 
 import Server.Messages.ErrorMessage;
 import Server.Messages.Message;
+import Server.Messages.MessageCodec;
 import Server.Messages.REST.CreateLobby;
 import Server.Messages.REST.JoinLobby;
 import Server.Messages.REST.LobbyInfo;
@@ -15,6 +16,7 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadPoolExecutor;
 
@@ -53,9 +55,10 @@ public class HttpThread extends Thread {
             // create new ThreadPoolExecutor for the HttpServer
             ThreadPoolExecutor threadPool = (ThreadPoolExecutor) Executors.newFixedThreadPool(2);
 
-            // add handlers for two routes /server and /lobby
+            // add handlers for the routes /server, /lobby and /metrics
             httpServer.createContext("/server", new ServerRequestHandler());
             httpServer.createContext("/lobby", new LobbyRequestHandler());
+            httpServer.createContext("/metrics", new MetricsRequestHandler());
 
             // assign ThreadPool to the HttpServer
             httpServer.setExecutor(threadPool);
@@ -110,6 +113,38 @@ public class HttpThread extends Thread {
         }
     }
 
+    public class MetricsRequestHandler implements HttpHandler {
+
+        @Override
+        public void handle(HttpExchange httpExchange) throws IOException {
+            LOGGER.config(String.format("Entering: %s %s", MetricsRequestHandler.class.getName(), "handle()"));
+
+            int code;
+            String responseString;
+
+            if (httpExchange.getRequestMethod().equals("GET")) {
+                code = 200; // OK
+
+                // render the counters in the Prometheus text format
+                responseString = Metrics.render(server);
+                httpExchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+
+            } else {
+                code = 405; // Method Not Allowed
+                responseString = new ErrorMessage("Method Not Allowed").toJson();
+            }
+
+            byte[] response = responseString.getBytes(StandardCharsets.UTF_8);
+            httpExchange.sendResponseHeaders(code, response.length);
+
+            OutputStream os = httpExchange.getResponseBody();
+            os.write(response);
+            os.close();
+
+            LOGGER.config(String.format("Exiting: %s %s", MetricsRequestHandler.class.getName(), "handle()"));
+        }
+    }
+
     public class LobbyRequestHandler implements HttpHandler {
         private HttpExchange httpExchange;
 
@@ -171,10 +206,12 @@ public class HttpThread extends Thread {
                 remoteIp = httpExchange.getRemoteAddress().getAddress().getHostAddress();
             }
 
-            ErrorMessage errorMessage = server.prepareNewPlayer(remoteIp, lobbyName, playerID);
+            String protocol = acceptProtocol(joinLobby.protocol);
+            long udpToken = server.createUdpToken();
+            ErrorMessage errorMessage = server.prepareNewPlayer(remoteIp, lobbyName, playerID, protocol, udpToken);
 
             if (errorMessage == null) {
-                sendResponse(200, ""); // OK
+                sendResponse(200, joinResponse(lobbyName, playerID, protocol, udpToken)); // OK
             } else {
                 sendResponse(400, errorMessage.toJson()); // Bad Request
             }
@@ -198,17 +235,20 @@ public class HttpThread extends Thread {
                 remoteIp = httpExchange.getRemoteAddress().getAddress().getHostAddress();
             }
 
-            ErrorMessage errorMessage = server.createLobby(lobbyName);
+            int maxPlayers = createLobby.maxPlayers == null ? Lobby.DEFAULT_MAX_PLAYERS : createLobby.maxPlayers;
+            ErrorMessage errorMessage = server.createLobby(lobbyName, maxPlayers);
 
             if (errorMessage != null) {
                 // Error with creating lobby
                 sendResponse(400, errorMessage.toJson()); // Bad Request
 
             } else {
-                errorMessage = server.prepareNewPlayer(remoteIp, lobbyName, playerID);
+                String protocol = acceptProtocol(createLobby.protocol);
+                long udpToken = server.createUdpToken();
+                errorMessage = server.prepareNewPlayer(remoteIp, lobbyName, playerID, protocol, udpToken);
 
                 if (errorMessage == null) {
-                    sendResponse(200, ""); // OK
+                    sendResponse(200, joinResponse(lobbyName, playerID, protocol, udpToken)); // OK
                 } else {
                     // Error with joining lobby
                     sendResponse(400, errorMessage.toJson());
@@ -221,6 +261,35 @@ public class HttpThread extends Thread {
             LOGGER.config(String.format("Exiting: %s %s", LobbyRequestHandler.class.getName(), "handleCreate()"));
         }
 
+        /**
+         * Choose the protocol for the game socket
+         *
+         * @param requested protocol requested by the client, null for older clients
+         * @return the protocol the server accepts
+         */
+        private String acceptProtocol(String requested) {
+            return MessageCodec.BINARY.equals(requested) ? MessageCodec.BINARY : MessageCodec.JSON;
+        }
+
+        /**
+         * Generate the response for a successful join, which tells the client the accepted protocol and its session
+         * token for the udp channel
+         *
+         * @param lobbyName name of the lobby
+         * @param playerID  name of the player
+         * @param protocol  the accepted protocol
+         * @param udpToken  session token for the udp channel, 0 if the server has no udp channel
+         * @return json string of the response
+         */
+        private String joinResponse(String lobbyName, String playerID, String protocol, long udpToken) {
+            JoinLobby response = new JoinLobby();
+            response.lobbyName = lobbyName;
+            response.playerID = playerID;
+            response.protocol = protocol;
+            response.udpToken = udpToken == 0 ? null : udpToken;
+            return response.toJson();
+        }
+
         /**
          * Send http response to the requester
          *
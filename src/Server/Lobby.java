@@ -1,17 +1,24 @@
 package Server;
 
 import Game.GameModes.GameMode;
+import Game.Models.Player;
+import Server.Messages.BinaryCodec;
 import Server.Messages.Message;
+import Server.Messages.MessageCodec;
+import Server.Messages.OutgoingMessage;
 import Server.Messages.Socket.GameState;
 import Server.Messages.Socket.LobbyState;
 import Server.Messages.Socket.Map;
 import Server.Messages.Socket.Position;
+import Server.Messages.Socket.Snapshot;
+import Server.Models.SnapshotHistory;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static General.MultiBomb.LOGGER;
 
-public class Lobby {
+public class Lobby implements BinaryCodec.PlayerIndex {
     /**
      * Possible states of the lobby
      */
@@ -20,6 +27,10 @@ public class Lobby {
      * The wait time until the game starts
      */
     public static final long WAIT_TIME = 5000;
+    /**
+     * Number of players that can join a lobby if the host didn't choose a limit
+     */
+    public static final int DEFAULT_MAX_PLAYERS = Map.SPAWNS;
     /**
      * List of all players inside the lobby
      */
@@ -28,6 +39,10 @@ public class Lobby {
      * Colors that are not used
      */
     private final Set<Integer> freeColors;
+    /**
+     * Number of players that can join the lobby
+     */
+    public final int maxPlayers;
     /**
      * Server object of the lobby
      */
@@ -36,6 +51,18 @@ public class Lobby {
      * Random number generator for random selection of colors
      */
     private final Random random = new Random();
+    /**
+     * Serializations that were saved by sharing encoded broadcasts since the last tick
+     */
+    private final AtomicInteger savedEncodings = new AtomicInteger();
+    /**
+     * Positions of the recent snapshots
+     */
+    private final SnapshotHistory snapshots = new SnapshotHistory();
+    /**
+     * Tick of the last snapshot, keeps counting across games so old acknowledgements never match a new snapshot
+     */
+    private int snapshotTick = Snapshot.NO_BASE;
     /**
      * Name of the Lobby
      */
@@ -63,7 +90,7 @@ public class Lobby {
     /**
      * GameWorld object that manages the game loop
      */
-    private GameWorld gameWorld;
+    private volatile GameWorld gameWorld;
 
     /**
      * Constructor
@@ -71,6 +98,16 @@ public class Lobby {
      * @param name name of the lobby
      */
     public Lobby(String name, Server server) {
+        this(name, server, DEFAULT_MAX_PLAYERS);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param name       name of the lobby
+     * @param maxPlayers number of players that can join, limited to the number of spawns a map can have
+     */
+    public Lobby(String name, Server server, int maxPlayers) {
         LOGGER.config(String.format("Entering: %s %s", Lobby.class.getName(), "Lobby(" + name + ")"));
 
         this.name = name;
@@ -78,9 +115,13 @@ public class Lobby {
         this.state = WAITING;
 
         this.server = server;
+        this.maxPlayers = Math.max(2, Math.min(Map.MAX_SPAWNS, maxPlayers));
 
         players = new HashMap<>();
-        freeColors = new HashSet<>(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7));
+        freeColors = new HashSet<>();
+        for (int color = 0; color < this.maxPlayers; color++) {
+            freeColors.add(color);
+        }
 
         LOGGER.config(String.format("Exiting: %s %s", Lobby.class.getName(), "Lobby(" + name + ")"));
     }
@@ -103,7 +144,9 @@ public class Lobby {
             }
 
             if (!players.containsKey(playerConnection.name)) {
-                this.players.put(playerConnection.name, playerConnection);
+                synchronized (players) {
+                    this.players.put(playerConnection.name, playerConnection);
+                }
                 playerConnection.color = getFreeColor();
 
                 sendToAllPlayers(new LobbyState(this));
@@ -126,7 +169,10 @@ public class Lobby {
     public synchronized void removePlayer(PlayerConnection playerConnection) {
         LOGGER.config(String.format("Entering: %s %s", Lobby.class.getName(), "removePlayer(" + playerConnection.name + ")"));
 
-        players.remove(playerConnection.name);
+        // the game loop iterates the players while they leave
+        synchronized (players) {
+            players.remove(playerConnection.name);
+        }
         setFreeColor(playerConnection.color);
 
         if (players.isEmpty()) {
@@ -156,34 +202,189 @@ public class Lobby {
      * @param msg the message to send
      */
     public void sendToAllPlayers(Message msg) {
-        if (!msg.type.equals(Message.POSITION_TYPE)) {
-            LOGGER.info(String.format("Entering: %s %s", Lobby.class.getName(), "sendToAllPlayers(" + msg.type + ")"));
+        // the frames are encoded once per protocol and shared by all connections
+        OutgoingMessage outgoing = new OutgoingMessage(msg);
+        boolean log = !msg.type.equals(Message.POSITION_TYPE);
 
-            LOGGER.info(String.format("Message(%s): %s", msg.type, msg.toJson()));
+        if (log) {
+            LOGGER.info(() -> String.format("Entering: %s %s", Lobby.class.getName(), "sendToAllPlayers(" + msg.type + ")"));
+            LOGGER.info(() -> String.format("Message(%s): %s", msg.type, outgoing.toJson()));
+        }
 
-            synchronized (players) {
-                LOGGER.info("Message " + msg.type + " sent");
-                players.values().forEach(p -> p.send(msg));
+        synchronized (players) {
+            boolean json = false, binary = false;
+            for (PlayerConnection player : players.values()) {
+                player.send(outgoing);
+                if (MessageCodec.BINARY.equals(player.protocol())) {
+                    binary = true;
+                } else {
+                    json = true;
+                }
             }
-            LOGGER.info(String.format("Exiting: %s %s", Lobby.class.getName(), "sendToAllPlayers(" + msg.type + ")"));
-        } else {
-            synchronized (players) {
-                players.values().forEach(p -> p.send(msg));
+            savedEncodings.addAndGet(players.size() - (json ? 1 : 0) - (binary ? 1 : 0));
+        }
+
+        if (log) {
+            LOGGER.info(() -> "Message " + msg.type + " sent");
+            LOGGER.info(() -> String.format("Exiting: %s %s", Lobby.class.getName(), "sendToAllPlayers(" + msg.type + ")"));
+        }
+    }
+
+    /**
+     * Send a message about a field to the players whose interest area contains the field
+     * <p>
+     * Messages that change the field are kept for the other players until the field comes into their area, the other
+     * messages are dropped for them.
+     *
+     * @param msg  the message
+     * @param m    position of the field
+     * @param n    position of the field
+     * @param keep true if the message changes the field
+     */
+    public void sendToPlayersNear(Message msg, int m, int n, boolean keep) {
+        OutgoingMessage outgoing = new OutgoingMessage(msg);
+        LOGGER.info(() -> String.format("Message(%s) at m=%d, n=%d: %s", msg.type, m, n, outgoing.toJson()));
+
+        synchronized (players) {
+            for (PlayerConnection player : players.values()) {
+                if (player.interest.contains(m, n)) {
+                    player.send(outgoing);
+                } else if (keep) {
+                    player.interest.keep(m, n, outgoing);
+                }
             }
         }
     }
 
+    /**
+     * Send the positions of the current tick
+     * <p>
+     * Every client only gets the positions of the players inside of its interest area. Binary clients get one
+     * snapshot that only contains the players that changed since the snapshot they acknowledged or that came into
+     * their area since then, clients with the same acknowledgement and the same visible players share the encoded
+     * snapshot. Json clients get every visible position. Clients that opened the udp channel receive the updates as
+     * datagrams. Players that leave the area of a client are hidden by the client, binary clients get them with the
+     * next snapshot and json clients with a snapshot without positions.
+     *
+     * @param positions positions of the alive players
+     */
+    public void sendPositions(List<Position> positions) {
+        int tick = ++snapshotTick;
+        HashMap<String, Position> state = new HashMap<>();
+        for (Position position : positions) {
+            state.put(position.playerId, Snapshot.quantize(position));
+        }
+        snapshots.put(tick, state);
+
+        HashMap<List<Long>, OutgoingMessage> deltas = new HashMap<>();
+        HashMap<String, OutgoingMessage> fullPositions = new HashMap<>();
+        int sent = 0, encoded = 0;
+
+        synchronized (players) {
+            // one bit for every player, the colors are the player indices of the binary codec
+            HashMap<String, Long> bits = new HashMap<>();
+            players.values().forEach(p -> bits.put(p.name, 1L << p.color));
+            long[] positionBits = new long[positions.size()];
+            int[] fields = new int[2 * positions.size()];
+            for (int i = 0; i < positions.size(); i++) {
+                Position position = positions.get(i);
+                positionBits[i] = bits.getOrDefault(position.playerId, 0L);
+                fields[2 * i] = (int) (position.y / Map.FIELD_SIZE);
+                fields[2 * i + 1] = (int) (position.x / Map.FIELD_SIZE);
+            }
+
+            for (PlayerConnection player : players.values()) {
+                player.interest.update(player.lastPosition, Server.interestRadius);
+                // changes of fields that were out of sight until now
+                player.interest.takeVisible().forEach(player::send);
+
+                long visible = 0;
+                for (int i = 0; i < positions.size(); i++) {
+                    if (player.interest.contains(fields[2 * i], fields[2 * i + 1])) {
+                        visible |= positionBits[i];
+                    }
+                }
+
+                if (MessageCodec.BINARY.equals(player.protocol())) {
+                    int base = player.acknowledgedSnapshot;
+                    long known = player.interest.visibleAt(base);
+                    List<Long> key = List.of((long) base, visible, known);
+                    OutgoingMessage delta = deltas.get(key);
+                    if (delta == null && !deltas.containsKey(key)) {
+                        Snapshot snapshot = snapshots.delta(tick, base, p -> bits.getOrDefault(p.playerId, 0L),
+                                visible, known);
+                        delta = snapshot == null ? null : new OutgoingMessage(snapshot);
+                        deltas.put(key, delta);
+                        encoded += delta == null ? 0 : 1;
+                    }
+                    player.interest.sent(tick, visible);
+                    if (delta != null) {
+                        player.sendUnreliable(delta);
+                        sent++;
+                    }
+                } else {
+                    long left = player.interest.visibleBefore(tick) & ~visible;
+                    player.interest.sent(tick, visible);
+                    Snapshot leave = new Snapshot(tick, Snapshot.NO_BASE);
+                    for (int i = 0; i < positions.size(); i++) {
+                        Position position = positions.get(i);
+                        if ((left & positionBits[i]) != 0) {
+                            leave.hidden.add(position.playerId);
+                        }
+                        if ((visible & positionBits[i]) != 0) {
+                            OutgoingMessage outgoing = fullPositions.get(position.playerId);
+                            if (outgoing == null) {
+                                // the position of the game loop changes with the next move, the copy doesn't
+                                outgoing = new OutgoingMessage(state.get(position.playerId));
+                                fullPositions.put(position.playerId, outgoing);
+                                encoded++;
+                            }
+                            player.sendUnreliable(outgoing);
+                            sent++;
+                        }
+                    }
+                    if (!leave.hidden.isEmpty()) {
+                        player.send(new OutgoingMessage(leave));
+                    }
+                }
+            }
+        }
+        savedEncodings.addAndGet(sent - encoded);
+    }
+
+    /**
+     * Flush the messages that were queued for all players during the current tick
+     */
+    public void flushPlayers() {
+        synchronized (players) {
+            players.values().forEach(PlayerConnection::flush);
+        }
+    }
+
+    /**
+     * Get the number of serializations that were saved by sharing encoded broadcasts and reset the counter
+     *
+     * @return the saved serializations since the last call
+     */
+    public int takeSavedEncodings() {
+        return savedEncodings.getAndSet(0);
+    }
+
     /**
      * Get a free color and reserve it
+     * <p>
+     * Colors with their own character are chosen randomly, after that the lowest free color is used, so the colors
+     * of the players always fit the spawns of a map for that many players.
      *
      * @return integer representing the color
      */
     public synchronized int getFreeColor() {
         LOGGER.config(String.format("Entering: %s %s", Lobby.class.getName(), "getFreeColor()"));
 
-        int i = random.nextInt(freeColors.size());
-
-        int color = freeColors.toArray(Integer[]::new)[i];
+        Integer[] characters = freeColors.stream().filter(c -> c < Player.CHARACTERS).toArray(Integer[]::new);
+        int color = characters.length > 0
+                ? characters[random.nextInt(characters.length)]
+                : Collections.min(freeColors);
         freeColors.remove(color);
 
         LOGGER.config(String.format("Exiting: %s %s", Lobby.class.getName(), "getFreeColor()"));
@@ -197,7 +398,7 @@ public class Lobby {
      */
     public synchronized void setFreeColor(int color) {
         LOGGER.config(String.format("Entering: %s %s", Lobby.class.getName(), "setFreeColor()"));
-        if (color >= 0 && color < 8) {
+        if (color >= 0 && color < maxPlayers) {
             freeColors.add(color);
         }
         LOGGER.config(String.format("Exiting: %s %s", Lobby.class.getName(), "setFreeColor()"));
@@ -218,6 +419,26 @@ public class Lobby {
         return colors;
     }
 
+    @Override
+    public int getPlayerIndex(String playerId) {
+        synchronized (players) {
+            PlayerConnection player = players.get(playerId);
+            return player == null ? -1 : player.color;
+        }
+    }
+
+    @Override
+    public String getPlayerName(int index) {
+        synchronized (players) {
+            for (PlayerConnection player : players.values()) {
+                if (player.color == index) {
+                    return player.name;
+                }
+            }
+        }
+        return null;
+    }
+
     /**
      * Update lobby with new lobby state
      *
@@ -240,13 +461,17 @@ public class Lobby {
      */
     public synchronized void prepareGame(Map map) {
         LOGGER.config(String.format("Entering: %s %s", Lobby.class.getName(), "prepareGame()"));
-        if (players.size() > 1) {
+        if (!map.hasValidSize() || !hasSpawnsFor(map)) {
+            LOGGER.warning(String.format("Map %s of lobby %s has an invalid size or misses spawns", map.name, name));
+        } else if (players.size() > 1) {
             state = GAME_STARTING;
 
             players.values().forEach(p -> {
                 p.preparationReady = false;
                 p.itemActions.clear();
                 p.lastPosition = new Position(-5, -5);
+                p.resetInputs();
+                p.interest.reset();
             });
 
             sendToAllPlayers(map);
@@ -255,6 +480,17 @@ public class Lobby {
         LOGGER.config(String.format("Exiting: %s %s", Lobby.class.getName(), "prepareGame()"));
     }
 
+    /**
+     * Check if a map has the spawn of every player
+     *
+     * @param map game map
+     * @return true if there is a spawn for the color of every player
+     */
+    private boolean hasSpawnsFor(Map map) {
+        return players.values().stream()
+                .allMatch(p -> p.color < map.spawns.length && map.spawns[p.color] != null);
+    }
+
     /**
      * Start game if all players are ready
      */
@@ -268,7 +504,7 @@ public class Lobby {
             long timestamp = System.currentTimeMillis() + WAIT_TIME;
             sendToAllPlayers(GameState.running(timestamp));
             this.gameWorld = new GameWorld(this, map, timestamp);
-            this.gameWorld.start();
+            this.gameWorld.start(server.tickScheduler);
         }
 
         LOGGER.config(String.format("Exiting: %s %s", Lobby.class.getName(), "startGame()"));
@@ -316,10 +552,17 @@ public class Lobby {
     public boolean isFull() {
         LOGGER.config(String.format("Calling: %s %s", Lobby.class.getName(), "isFull()"));
         synchronized (players) {
-            return players.size() >= 8;
+            return players.size() >= maxPlayers;
         }
     }
 
+    /**
+     * @return the game loop of the running or last game, null if no game was started yet
+     */
+    public GameWorld getGameWorld() {
+        return gameWorld;
+    }
+
     /**
      * Indicate if lobby is open so players can join
      *
@@ -0,0 +1,496 @@
+package Server.Messages;
+
+import Game.Models.Direction;
+import Game.Models.Field;
+import Server.Messages.Socket.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.logging.Level;
+
+import static General.MultiBomb.LOGGER;
+
+/**
+ * Codec for compact length-prefixed binary messages
+ * <p>
+ * Every frame consists of an unsigned short with the length of the rest of the frame, a byte with the type of
+ * the message and the payload of the message. Positions carry the index (color) of the player instead of the name.
+ */
+public class BinaryCodec extends MessageCodec {
+    /**
+     * Type ids of the messages, messages without binary encoding are sent as json inside a frame
+     */
+    public static final byte JSON_FRAME = 0, POSITION = 1, ITEM_ACTION = 2, MAP = 3, FIELD_DESTROYED = 4,
+            GAME_STATE = 5, ITEM_COLLECTED = 6, LOBBY_STATE = 7, PLAYER_STATE = 8, ERROR_MESSAGE = 9,
+            CLOSE_CONNECTION = 10, NEW_ITEM = 11, RESPAWN = 12, SNAPSHOT = 13, INPUT = 14;
+    /**
+     * Size of the length prefix
+     */
+    private static final int HEADER_SIZE = 2;
+    /**
+     * Maximum length of a frame without the length prefix
+     */
+    private static final int MAX_FRAME_LENGTH = 0xFFFF;
+    /**
+     * Index for positions that belong to no player
+     */
+    private static final int NO_PLAYER = 0xFF;
+    /**
+     * Value for a missing direction
+     */
+    private static final int NO_DIRECTION = 0xFF;
+    /**
+     * Value for a missing input sequence number, the sequence numbers start at 1
+     */
+    private static final int NO_INPUT = 0;
+    /**
+     * Directions by their ordinal
+     */
+    private static final Direction[] DIRECTIONS = Direction.values();
+    /**
+     * Resolves player names to their index in the lobby
+     */
+    private final PlayerIndex playerIndex;
+
+    /**
+     * Constructor
+     *
+     * @param playerIndex resolves player names to their index in the lobby
+     */
+    public BinaryCodec(PlayerIndex playerIndex) {
+        this.playerIndex = playerIndex;
+    }
+
+    @Override
+    public String protocol() {
+        return BINARY;
+    }
+
+    @Override
+    public byte[] encode(Message message) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            // placeholder for the length prefix
+            out.writeShort(0);
+            writeMessage(message, out);
+        } catch (IOException e) {
+            // writing to a byte array can't fail
+            throw new UncheckedIOException(e);
+        }
+
+        byte[] frame = bytes.toByteArray();
+        int length = frame.length - HEADER_SIZE;
+        if (length > MAX_FRAME_LENGTH) {
+            throw new IllegalArgumentException("Message " + message.type + " is too large for a binary frame");
+        }
+        frame[0] = (byte) (length >>> 8);
+        frame[1] = (byte) length;
+        return frame;
+    }
+
+    @Override
+    public int frameLength(byte[] data, int offset, int length) {
+        if (length < HEADER_SIZE) {
+            return -1;
+        }
+        int frameLength = HEADER_SIZE + (((data[offset] & 0xFF) << 8) | (data[offset + 1] & 0xFF));
+        return frameLength <= length ? frameLength : -1;
+    }
+
+    @Override
+    public Message decode(byte[] data, int offset, int length) {
+        DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(data, offset + HEADER_SIZE, length - HEADER_SIZE)
+        );
+        try {
+            return readMessage(in);
+        } catch (IOException | RuntimeException e) {
+            // the caller skips invalid messages, a broken frame must not flood the log
+            LOGGER.log(Level.FINE, "Dropping undecodable frame", e);
+            return new Message(Message.INVALID_TYPE) {};
+        }
+    }
+
+    @Override
+    public Message read(InputStream in) throws IOException {
+        int high = in.read();
+        int low = in.read();
+        if (high < 0 || low < 0) {
+            return null;
+        }
+
+        byte[] frame = new byte[HEADER_SIZE + ((high << 8) | low)];
+        frame[0] = (byte) high;
+        frame[1] = (byte) low;
+        try {
+            new DataInputStream(in).readFully(frame, HEADER_SIZE, frame.length - HEADER_SIZE);
+        } catch (EOFException e) {
+            return null;
+        }
+        return decode(frame, 0, frame.length);
+    }
+
+    /**
+     * Write the type and the payload of a message
+     *
+     * @param message the message
+     * @param out     stream to write to
+     * @throws IOException if the stream can't be written
+     */
+    private void writeMessage(Message message, DataOutputStream out) throws IOException {
+        switch (message.type) {
+            case Message.POSITION_TYPE:
+                Position position = (Position) message;
+                int index = position.playerId == null ? NO_PLAYER : playerIndex.getPlayerIndex(position.playerId);
+                if (index < 0) {
+                    // the player is unknown to the receiver, so the name has to be sent
+                    break;
+                }
+                out.writeByte(POSITION);
+                out.writeByte(index);
+                writePosition(position, out);
+                out.writeInt(position.ack == null ? Snapshot.NO_BASE : position.ack);
+                out.writeInt(position.input == null ? NO_INPUT : position.input);
+                return;
+            case Message.ITEM_ACTION_TYPE:
+                ItemAction itemAction = (ItemAction) message;
+                out.writeByte(ITEM_ACTION);
+                writeString(itemAction.itemId, out);
+                writeString(itemAction.playerId, out);
+                writeDirection(itemAction.direction, out);
+                out.writeShort(itemAction.m);
+                out.writeShort(itemAction.n);
+                return;
+            case Message.MAP_TYPE:
+                Map map = (Map) message;
+                out.writeByte(MAP);
+                writeString(map.name, out);
+                writeString(map.description, out);
+                writeString(map.theme, out);
+                out.writeShort(map.getSize());
+                for (int m = 0; m < map.getSize(); m++) {
+                    for (int n = 0; n < map.getSize(); n++) {
+                        out.writeByte(map.getField(m, n));
+                    }
+                }
+                out.writeByte(map.spawns.length);
+                for (Position spawn : map.spawns) {
+                    out.writeBoolean(spawn != null);
+                    if (spawn != null) {
+                        writePosition(spawn, out);
+                    }
+                }
+                return;
+            case Message.FIELD_DESTROYED_TYPE:
+                FieldDestroyed fieldDestroyed = (FieldDestroyed) message;
+                out.writeByte(FIELD_DESTROYED);
+                out.writeShort(fieldDestroyed.m);
+                out.writeShort(fieldDestroyed.n);
+                return;
+            case Message.GAME_STATE_TYPE:
+                GameState gameState = (GameState) message;
+                out.writeByte(GAME_STATE);
+                out.writeByte(gameState.state);
+                out.writeLong(gameState.timestamp);
+                writeString(gameState.winner, out);
+                return;
+            case Message.ITEM_COLLECTED_TYPE:
+                ItemCollected itemCollected = (ItemCollected) message;
+                out.writeByte(ITEM_COLLECTED);
+                writeString(itemCollected.playerId, out);
+                out.writeByte(itemCollected.item.id);
+                out.writeShort(itemCollected.m);
+                out.writeShort(itemCollected.n);
+                return;
+            case Message.LOBBY_STATE_TYPE:
+                LobbyState lobbyState = (LobbyState) message;
+                out.writeByte(LOBBY_STATE);
+                writeString(lobbyState.hostId, out);
+                writeString(lobbyState.gameMode, out);
+                out.writeBoolean(lobbyState.players != null);
+                if (lobbyState.players != null) {
+                    out.writeByte(lobbyState.players.size());
+                    for (java.util.Map.Entry<String, Integer> player : lobbyState.players.entrySet()) {
+                        writeString(player.getKey(), out);
+                        out.writeByte(player.getValue());
+                    }
+                }
+                return;
+            case Message.PLAYER_STATE_TYPE:
+                PlayerState playerState = (PlayerState) message;
+                out.writeByte(PLAYER_STATE);
+                writeString(playerState.playerId, out);
+                out.writeByte(playerState.health);
+                out.writeShort(playerState.kills);
+                out.writeByte(playerState.upgrades.bombSize);
+                out.writeShort(playerState.upgrades.bombCount);
+                out.writeByte(playerState.upgrades.speed);
+                writeString(playerState.item, out);
+                return;
+            case Message.ERROR_MESSAGE_TYPE:
+                out.writeByte(ERROR_MESSAGE);
+                writeString(((ErrorMessage) message).error, out);
+                return;
+            case Message.CLOSE_CONNECTION_TYPE:
+                out.writeByte(CLOSE_CONNECTION);
+                return;
+            case Message.NEW_ITEM_TYPE:
+                NewItem newItem = (NewItem) message;
+                out.writeByte(NEW_ITEM);
+                out.writeByte(newItem.item.id);
+                out.writeShort(newItem.m);
+                out.writeShort(newItem.n);
+                return;
+            case Message.RESPAWN_TYPE:
+                out.writeByte(RESPAWN);
+                writeString(((Respawn) message).playerId, out);
+                return;
+            case Message.SNAPSHOT_TYPE:
+                Snapshot snapshot = (Snapshot) message;
+                int[] indices = new int[snapshot.positions.size()];
+                boolean unknown = false;
+                for (int i = 0; i < indices.length; i++) {
+                    indices[i] = playerIndex.getPlayerIndex(snapshot.positions.get(i).playerId);
+                    unknown |= indices[i] < 0;
+                }
+                int[] hidden = new int[snapshot.hidden.size()];
+                for (int i = 0; i < hidden.length; i++) {
+                    hidden[i] = playerIndex.getPlayerIndex(snapshot.hidden.get(i));
+                    unknown |= hidden[i] < 0;
+                }
+                if (unknown) {
+                    // a player is unknown to the receiver, so the names have to be sent
+                    break;
+                }
+                out.writeByte(SNAPSHOT);
+                out.writeInt(snapshot.tick);
+                out.writeInt(snapshot.baseTick);
+                out.writeByte(indices.length);
+                for (int i = 0; i < indices.length; i++) {
+                    Position entry = snapshot.positions.get(i);
+                    out.writeByte(indices[i]);
+                    // coordinates are sent as multiples of the snapshot precision
+                    out.writeShort(Math.round(entry.x / Snapshot.QUANTUM));
+                    out.writeShort(Math.round(entry.y / Snapshot.QUANTUM));
+                    writeDirection(entry.direction, out);
+                    out.writeBoolean(entry.moving);
+                }
+                out.writeByte(hidden.length);
+                for (int hiddenIndex : hidden) {
+                    out.writeByte(hiddenIndex);
+                }
+                return;
+            case Message.INPUT_TYPE:
+                PlayerInput input = (PlayerInput) message;
+                out.writeByte(INPUT);
+                out.writeInt(input.sequence);
+                out.writeInt(input.ack == null ? Snapshot.NO_BASE : input.ack);
+                out.writeByte(input.commands.size());
+                for (PlayerInput.Command command : input.commands) {
+                    writeDirection(command.direction, out);
+                    out.writeBoolean(command.moving);
+                    out.writeShort(command.duration);
+                }
+                return;
+        }
+
+        // every other message is sent as json
+        out.writeByte(JSON_FRAME);
+        out.write(message.toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Read the type and the payload of a message
+     *
+     * @param in stream to read from
+     * @return the message
+     * @throws IOException if the payload is incomplete
+     */
+    private Message readMessage(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case POSITION:
+                int index = in.readUnsignedByte();
+                Position position = readPosition(in);
+                position.playerId = index == NO_PLAYER ? null : playerIndex.getPlayerName(index);
+                int ack = in.readInt();
+                position.ack = ack == Snapshot.NO_BASE ? null : ack;
+                int lastInput = in.readInt();
+                position.input = lastInput == NO_INPUT ? null : lastInput;
+                return position;
+            case ITEM_ACTION:
+                String itemId = readString(in);
+                String playerId = readString(in);
+                Direction direction = readDirection(in);
+                return new ItemAction(itemId, playerId, direction, in.readShort(), in.readShort());
+            case MAP:
+                String mapName = readString(in);
+                String description = readString(in);
+                String theme = readString(in);
+                int size = in.readUnsignedShort();
+                if (size < Map.MIN_SIZE || size > Map.MAX_SIZE) {
+                    throw new IOException("Unsupported map size " + size);
+                }
+                Map map = new Map(size, 0);
+                map.name = mapName;
+                map.description = description;
+                map.theme = theme;
+                for (int m = 0; m < size; m++) {
+                    for (int n = 0; n < size; n++) {
+                        map.setField(m, n, in.readByte());
+                    }
+                }
+                int spawns = in.readUnsignedByte();
+                if (spawns > Map.MAX_SPAWNS) {
+                    throw new IOException("Unsupported number of spawns " + spawns);
+                }
+                map.spawns = new Position[spawns];
+                for (int i = 0; i < map.spawns.length; i++) {
+                    map.spawns[i] = in.readBoolean() ? readPosition(in) : null;
+                }
+                return map;
+            case FIELD_DESTROYED:
+                return new FieldDestroyed(in.readShort(), in.readShort());
+            case GAME_STATE:
+                int state = in.readUnsignedByte();
+                long timestamp = in.readLong();
+                return new GameState(state, readString(in), timestamp);
+            case ITEM_COLLECTED:
+                String collector = readString(in);
+                Field collected = Field.getItem(in.readByte());
+                return new ItemCollected(collector, collected, in.readShort(), in.readShort());
+            case LOBBY_STATE:
+                LobbyState lobbyState = new LobbyState(readString(in), readString(in));
+                if (in.readBoolean()) {
+                    lobbyState.players = new HashMap<>();
+                    int players = in.readUnsignedByte();
+                    for (int i = 0; i < players; i++) {
+                        lobbyState.players.put(readString(in), in.readUnsignedByte());
+                    }
+                }
+                return lobbyState;
+            case PLAYER_STATE:
+                PlayerState playerState = new PlayerState(readString(in));
+                playerState.health = in.readByte();
+                playerState.kills = in.readShort();
+                playerState.upgrades.bombSize = in.readByte();
+                playerState.upgrades.bombCount = in.readShort();
+                playerState.upgrades.speed = in.readByte();
+                playerState.item = readString(in);
+                return playerState;
+            case ERROR_MESSAGE:
+                return new ErrorMessage(readString(in));
+            case CLOSE_CONNECTION:
+                return new CloseConnection();
+            case NEW_ITEM:
+                Field item = Field.getItem(in.readByte());
+                return new NewItem(item, in.readShort(), in.readShort());
+            case RESPAWN:
+                return new Respawn(readString(in));
+            case SNAPSHOT:
+                Snapshot snapshot = new Snapshot(in.readInt(), in.readInt());
+                int entries = in.readUnsignedByte();
+                for (int i = 0; i < entries; i++) {
+                    String name = playerIndex.getPlayerName(in.readUnsignedByte());
+                    Position entry = new Position(in.readShort() * Snapshot.QUANTUM, in.readShort() * Snapshot.QUANTUM);
+                    entry.playerId = name;
+                    entry.direction = readDirection(in);
+                    entry.moving = in.readBoolean();
+                    snapshot.positions.add(entry);
+                }
+                int hidden = in.readUnsignedByte();
+                for (int i = 0; i < hidden; i++) {
+                    snapshot.hidden.add(playerIndex.getPlayerName(in.readUnsignedByte()));
+                }
+                return snapshot;
+            case INPUT:
+                PlayerInput input = new PlayerInput(in.readInt());
+                int inputAck = in.readInt();
+                input.ack = inputAck == Snapshot.NO_BASE ? null : inputAck;
+                int commands = in.readUnsignedByte();
+                if (commands > PlayerInput.MAX_COMMANDS) {
+                    throw new IOException("Too many input commands " + commands);
+                }
+                for (int i = 0; i < commands; i++) {
+                    Direction commandDirection = readDirection(in);
+                    input.commands.add(new PlayerInput.Command(commandDirection, in.readBoolean(), in.readUnsignedShort()));
+                }
+                return input;
+            default:
+                Message message = Message.fromJson(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                // gson returns null for an empty payload
+                return message == null ? new Message(Message.INVALID_TYPE) {} : message;
+        }
+    }
+
+    /**
+     * Write the coordinates, direction and movement of a position
+     */
+    private static void writePosition(Position position, DataOutputStream out) throws IOException {
+        out.writeFloat(position.x);
+        out.writeFloat(position.y);
+        writeDirection(position.direction, out);
+        out.writeBoolean(position.moving);
+    }
+
+    /**
+     * Read the coordinates, direction and movement of a position
+     */
+    private static Position readPosition(DataInputStream in) throws IOException {
+        Position position = new Position(in.readFloat(), in.readFloat());
+        position.direction = readDirection(in);
+        position.moving = in.readBoolean();
+        return position;
+    }
+
+    /**
+     * Write a direction that might be null
+     */
+    private static void writeDirection(Direction direction, DataOutputStream out) throws IOException {
+        out.writeByte(direction == null ? NO_DIRECTION : direction.ordinal());
+    }
+
+    /**
+     * Read a direction that might be null
+     */
+    private static Direction readDirection(DataInputStream in) throws IOException {
+        int ordinal = in.readUnsignedByte();
+        return ordinal == NO_DIRECTION ? null : DIRECTIONS[ordinal];
+    }
+
+    /**
+     * Write a string that might be null
+     */
+    private static void writeString(String value, DataOutputStream out) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    /**
+     * Read a string that might be null
+     */
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * Maps player names to a small index that is unique inside a lobby
+     */
+    public interface PlayerIndex {
+        /**
+         * @param playerId name of the player
+         * @return index of the player or -1 if the player is unknown
+         */
+        int getPlayerIndex(String playerId);
+
+        /**
+         * @param index index of the player
+         * @return name of the player or null if the index is unknown
+         */
+        String getPlayerName(int index);
+    }
+}
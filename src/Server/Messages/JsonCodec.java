@@ -0,0 +1,68 @@
+package Server.Messages;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Codec for newline-delimited json messages, which is the protocol of older clients
+ */
+public class JsonCodec extends MessageCodec {
+    /**
+     * The codec has no state, so one instance is shared by all connections
+     */
+    public static final JsonCodec INSTANCE = new JsonCodec();
+
+    /**
+     * Constructor
+     */
+    private JsonCodec() {
+    }
+
+    @Override
+    public String protocol() {
+        return JSON;
+    }
+
+    @Override
+    public byte[] encode(Message message) {
+        return (message.toJson() + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int frameLength(byte[] data, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            if (data[i] == '\n') {
+                return i - offset + 1;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Message decode(byte[] data, int offset, int length) {
+        // strip the line break, clients on windows terminate lines with \r\n
+        int end = offset + length;
+        while (end > offset && (data[end - 1] == '\n' || data[end - 1] == '\r')) {
+            end--;
+        }
+        Message message = Message.fromJson(new String(data, offset, end - offset, StandardCharsets.UTF_8));
+        // gson returns null for empty lines
+        return message == null ? new Message(Message.INVALID_TYPE) {} : message;
+    }
+
+    @Override
+    public Message read(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) {
+                return null;
+            }
+            line.write(b);
+        }
+        byte[] data = line.toByteArray();
+        return decode(data, 0, data.length);
+    }
+}
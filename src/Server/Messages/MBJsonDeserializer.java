@@ -74,6 +74,12 @@ public class MBJsonDeserializer implements JsonDeserializer<Message> {
             case Message.RESPAWN_TYPE:
                 typeModel = context.deserialize(json, Respawn.class);
                 break;
+            case Message.SNAPSHOT_TYPE:
+                typeModel = context.deserialize(json, Snapshot.class);
+                break;
+            case Message.INPUT_TYPE:
+                typeModel = context.deserialize(json, PlayerInput.class);
+                break;
             default:
                 typeModel = new Message(Message.INVALID_TYPE) {};
         }
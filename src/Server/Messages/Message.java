@@ -15,7 +15,7 @@ public abstract class Message {
             JOIN_LOBBY_TYPE = "joinLobby", CREATE_LOBBY_TYPE = "createLobby",
             INVALID_TYPE = "invalidMessage", ERROR_MESSAGE_TYPE = "errorMessage",
             CLOSE_CONNECTION_TYPE = "closeConnection", NEW_ITEM_TYPE = "newItem",
-            RESPAWN_TYPE = "respawn";
+            RESPAWN_TYPE = "respawn", SNAPSHOT_TYPE = "snapshot", INPUT_TYPE = "input";
 
     /**
      * Gson object with deserializer for Message.class
@@ -51,6 +51,16 @@ public abstract class Message {
         }
     }
 
+    /**
+     * Check if a decoded message can be handled, empty json lines decode to null
+     *
+     * @param message the decoded message, might be null
+     * @return true if the message has a known type
+     */
+    public static boolean isValid(Message message) {
+        return message != null && message.type != null && !INVALID_TYPE.equals(message.type);
+    }
+
     /**
      * Turn Message object into json string
      *
@@ -0,0 +1,70 @@
+package Server.Messages;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Turns messages into frames for the game socket and back
+ */
+public abstract class MessageCodec {
+    /**
+     * Protocols that can be negotiated when joining a lobby
+     */
+    public static final String JSON = "json", BINARY = "binary";
+
+    /**
+     * Get the codec for a protocol, unknown protocols fall back to json
+     *
+     * @param protocol    name of the protocol
+     * @param playerIndex resolves player names to their index in the lobby
+     * @return the codec
+     */
+    public static MessageCodec create(String protocol, BinaryCodec.PlayerIndex playerIndex) {
+        if (BINARY.equals(protocol)) {
+            return new BinaryCodec(playerIndex);
+        }
+        return JsonCodec.INSTANCE;
+    }
+
+    /**
+     * @return the name of the protocol
+     */
+    public abstract String protocol();
+
+    /**
+     * Encode a message into a complete frame
+     *
+     * @param message the message
+     * @return the frame
+     */
+    public abstract byte[] encode(Message message);
+
+    /**
+     * Get the length of the frame at the beginning of the data
+     *
+     * @param data   buffer with received data
+     * @param offset start of the frame
+     * @param length number of available bytes
+     * @return length of the frame or -1 if the frame is not complete yet
+     */
+    public abstract int frameLength(byte[] data, int offset, int length);
+
+    /**
+     * Decode a complete frame
+     *
+     * @param data   buffer with the frame
+     * @param offset start of the frame
+     * @param length length of the frame
+     * @return the message, an invalid message if the frame is empty or broken
+     */
+    public abstract Message decode(byte[] data, int offset, int length);
+
+    /**
+     * Read the next frame from a blocking stream
+     *
+     * @param in the stream
+     * @return the message or null if the stream was closed
+     * @throws IOException if the stream can't be read
+     */
+    public abstract Message read(InputStream in) throws IOException;
+}
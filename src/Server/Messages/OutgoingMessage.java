@@ -0,0 +1,63 @@
+package Server.Messages;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A message that is queued for one or more connections
+ * <p>
+ * The frame of each protocol is encoded only once and then shared by all connections that use the protocol,
+ * so a broadcast is not serialized again for every player
+ */
+public class OutgoingMessage {
+    /**
+     * The message
+     */
+    public final Message message;
+    /**
+     * The encoded json frame
+     */
+    private byte[] json;
+    /**
+     * The encoded binary frame
+     */
+    private byte[] binary;
+
+    /**
+     * Constructor
+     *
+     * @param message the message
+     */
+    public OutgoingMessage(Message message) {
+        this.message = message;
+    }
+
+    /**
+     * Get the frame for a codec, the frame must not be modified
+     *
+     * @param codec the codec of the connection
+     * @return the encoded frame
+     */
+    public synchronized byte[] encode(MessageCodec codec) {
+        if (MessageCodec.BINARY.equals(codec.protocol())) {
+            if (binary == null) {
+                binary = codec.encode(message);
+            }
+            return binary;
+        }
+        if (json == null) {
+            json = codec.encode(message);
+        }
+        return json;
+    }
+
+    /**
+     * Get the message as json string, reusing the json frame if it was already encoded
+     *
+     * @return the json string
+     */
+    public String toJson() {
+        byte[] frame = encode(JsonCodec.INSTANCE);
+        // strip the line break
+        return new String(frame, 0, frame.length - 1, StandardCharsets.UTF_8);
+    }
+}
@@ -11,6 +11,14 @@ public class CreateLobby extends Message {
      * Name of the player who creates the lobby
      */
     public String playerID;
+    /**
+     * Protocol for the game socket, older clients don't send it and use json
+     */
+    public String protocol;
+    /**
+     * Number of players that can join the lobby, older clients don't send it and get the default
+     */
+    public Integer maxPlayers;
 
     /**
      * Constructor
@@ -11,6 +11,14 @@ public class JoinLobby extends Message {
      * Name of the player who joins the lobby
      */
     public String playerID;
+    /**
+     * Protocol for the game socket, older clients don't send it and use json
+     */
+    public String protocol;
+    /**
+     * Session token for the udp channel, only set in the response of servers that offer the channel
+     */
+    public Long udpToken;
 
     /**
      * Constructor
@@ -41,6 +41,10 @@ public class LobbyInfo extends Message {
          * Number of players in the lobby
          */
         public int players;
+        /**
+         * Number of players that can join the lobby
+         */
+        public int maxPlayers;
         /**
          * Name of the game mode
          */
@@ -58,6 +62,7 @@ public class LobbyInfo extends Message {
         public SingleLobbyInfo(Lobby lobby) {
             name = lobby.name;
             players = lobby.getPlayerColors().size();
+            maxPlayers = lobby.maxPlayers;
             gameMode = lobby.gameMode;
             status = (lobby.state == Lobby.WAITING) ? IN_LOBBY : IN_GAME;
         }
@@ -21,9 +21,25 @@ public class Map extends Message {
      */
     public static int FIELD_SIZE = 30;
     /**
-     * The size of the map
+     * The size of a new map
      */
     public static int SIZE = 19;
+    /**
+     * The smallest possible size of a map
+     */
+    public static final int MIN_SIZE = 5;
+    /**
+     * The biggest possible size of a map
+     */
+    public static final int MAX_SIZE = 101;
+    /**
+     * The number of spawns of a new map
+     */
+    public static final int SPAWNS = 8;
+    /**
+     * The biggest possible number of spawns and therefore players on a map
+     */
+    public static final int MAX_SPAWNS = 64;
     /**
      * The description for a custom map
      */
@@ -32,10 +48,14 @@ public class Map extends Message {
      * The items on the battleground
      */
     private static Item[][] items = new Item[SIZE][SIZE];
+    /**
+     * The number of rows and columns of the map
+     */
+    private int size;
     /**
      * The battleground
      */
-    private final byte[][] fields = new byte[SIZE][SIZE];
+    private byte[][] fields;
     /**
      * The name of the map
      */
@@ -47,7 +67,7 @@ public class Map extends Message {
     /**
      * The spawn points
      */
-    public Position[] spawns = new Position[8];
+    public Position[] spawns;
     /**
      * The theme of the map
      */
@@ -57,41 +77,79 @@ public class Map extends Message {
      * Constructor
      */
     public Map() {
+        this(SIZE, SPAWNS);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param size   number of rows and columns, limited to {@link #MIN_SIZE} and {@link #MAX_SIZE}
+     * @param spawns number of spawns, limited to {@link #MAX_SPAWNS}
+     */
+    public Map(int size, int spawns) {
         // Initialize Map as message
         super(Message.MAP_TYPE);
+        this.size = Math.max(MIN_SIZE, Math.min(MAX_SIZE, size));
+        this.fields = new byte[this.size][this.size];
+        this.spawns = new Position[Math.max(0, Math.min(MAX_SPAWNS, spawns))];
 
         // Initialize the left and the right side of the field
         for (int m = 0; m < fields.length; m++) {
             // The left and right line
             fields[m][0] = Field.SOLID_0.id;
-            fields[m][SIZE - 1] = Field.SOLID_0.id;
+            fields[m][this.size - 1] = Field.SOLID_0.id;
         }
         for (int n = 0; n < fields.length; n++) {
             // The top and bottom line
             fields[0][n] = Field.SOLID_0.id;
-            fields[SIZE - 1][n] = Field.SOLID_0.id;
+            fields[this.size - 1][n] = Field.SOLID_0.id;
         }
 
         // Initialize the spawn points
-        spawns[0] = new Position(1, 1);
-        spawns[1] = new Position(SIZE - 2, 1);
-        spawns[2] = new Position(1, SIZE - 2);
-        spawns[3] = new Position(SIZE - 2, SIZE - 2);
-        spawns[4] = new Position(4, 4);
-        spawns[5] = new Position(SIZE - 5, 4);
-        spawns[6] = new Position(4, SIZE - 5);
-        spawns[7] = new Position(SIZE - 5, SIZE - 5);
+        if (this.spawns.length <= SPAWNS && this.size >= 10) {
+            // two rings of four spawns in the corners
+            Position[] corners = {
+                    new Position(1, 1),
+                    new Position(this.size - 2, 1),
+                    new Position(1, this.size - 2),
+                    new Position(this.size - 2, this.size - 2),
+                    new Position(4, 4),
+                    new Position(this.size - 5, 4),
+                    new Position(4, this.size - 5),
+                    new Position(this.size - 5, this.size - 5)
+            };
+            System.arraycopy(corners, 0, this.spawns, 0, this.spawns.length);
+        } else {
+            placeSpawns();
+        }
+    }
+
+    /**
+     * Spread the spawns evenly over the inner fields of the map
+     */
+    private void placeSpawns() {
+        int inner = size - 2;
+        // the smallest square grid of spawns that has enough points and fits the map
+        int columns = (int) Math.ceil(Math.sqrt(spawns.length));
+        int rows = (int) Math.ceil((double) spawns.length / Math.max(1, columns));
+        for (int i = 0; i < spawns.length; i++) {
+            int row = i / columns;
+            int column = i % columns;
+            int m = 1 + (rows > 1 ? row * (inner - 1) / (rows - 1) : inner / 2);
+            int n = 1 + (columns > 1 ? column * (inner - 1) / (columns - 1) : inner / 2);
+            spawns[i] = new Position(n, m);
+        }
     }
 
     /**
      * Copy a field
      */
     public static Map copy(Map map) {
-        Map copy = new Map();
+        Map copy = new Map(map.size, map.spawns.length);
 
         // Copy the fields
-        for (int m = 0; m < SIZE; m++) {
-            System.arraycopy(map.fields[m], 0, copy.fields[m], 0, SIZE);
+        for (int m = 0; m < map.size; m++) {
+            System.arraycopy(map.fields[m], 0, copy.fields[m], 0, map.size);
         }
 
         // Copy the spawns
@@ -106,12 +164,13 @@ public class Map extends Message {
     /**
      * Check if a given position is out of bounds
      *
-     * @param m position
-     * @param n position
+     * @param m    position
+     * @param n    position
+     * @param size number of rows and columns
      * @return true if the position is out of bounds
      */
-    private static boolean outOfBounds(int m, int n) {
-        return m < 0 || m >= SIZE || n < 0 || n >= SIZE;
+    private static boolean outOfBounds(int m, int n, int size) {
+        return m < 0 || m >= size || n < 0 || n >= size;
     }
 
     /**
@@ -122,7 +181,7 @@ public class Map extends Message {
      * @param item the new value for the field
      */
     public static synchronized void setItem(int m, int n, Item item) {
-        if (outOfBounds(m, n)) {
+        if (outOfBounds(m, n, items.length)) {
             return;
         }
         items[m][n] = item;
@@ -136,7 +195,7 @@ public class Map extends Message {
      * @return the value of the field
      */
     public static synchronized Item getItem(int m, int n) {
-        if (outOfBounds(m, n)) {
+        if (outOfBounds(m, n, items.length)) {
             return null;
         }
         return items[m][n];
@@ -144,9 +203,11 @@ public class Map extends Message {
 
     /**
      * Reset the items
+     *
+     * @param size number of rows and columns of the map that is played
      */
-    public static synchronized void resetItems() {
-        items = new Item[SIZE][SIZE];
+    public static synchronized void resetItems(int size) {
+        items = new Item[size][size];
     }
 
     /**
@@ -157,7 +218,7 @@ public class Map extends Message {
      * @param value of the field
      */
     public synchronized void setField(int m, int n, byte value) {
-        if (outOfBounds(m, n)) {
+        if (outOfBounds(m, n, size)) {
             return;
         }
         fields[m][n] = value;
@@ -171,12 +232,48 @@ public class Map extends Message {
      * @return the value of the field
      */
     public synchronized byte getField(int m, int n) {
-        if (outOfBounds(m, n)) {
+        if (outOfBounds(m, n, size)) {
             return Field.SOLID_0.id;
         }
         return fields[m][n];
     }
 
+    /**
+     * Copy the values of all fields at once
+     *
+     * @param into rows the values are copied to, with at least the size of the map
+     */
+    public synchronized void copyFields(byte[][] into) {
+        for (int m = 0; m < size; m++) {
+            System.arraycopy(fields[m], 0, into[m], 0, size);
+        }
+    }
+
+    /**
+     * @return the number of rows and columns of the map
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Check if the size and the fields of a received map match and are within the limits
+     *
+     * @return true if the map can be played
+     */
+    public boolean hasValidSize() {
+        if (size < MIN_SIZE || size > MAX_SIZE || fields == null || fields.length != size
+                || spawns == null || spawns.length > MAX_SPAWNS) {
+            return false;
+        }
+        for (byte[] row : fields) {
+            if (row == null || row.length != size) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * @return true if the map is custom
      */
@@ -0,0 +1,81 @@
+package Server.Messages.Socket;
+
+import Game.Models.Direction;
+import Server.Messages.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The movement commands of a player, the server simulates them instead of trusting the position of the client
+ * <p>
+ * Every command has a sequence number. A message carries the commands the server didn't acknowledge yet, so a lost
+ * message is covered by the next one.
+ */
+public class PlayerInput extends Message {
+    /**
+     * Maximum number of commands in one message
+     */
+    public static final int MAX_COMMANDS = 64;
+    /**
+     * The sequence number of the last command, the commands before it are numbered backwards
+     */
+    public int sequence;
+    /**
+     * The last snapshot the client received, null if the client doesn't use snapshots
+     */
+    public Integer ack;
+    /**
+     * The commands, oldest first
+     */
+    public List<Command> commands = new ArrayList<>();
+
+    /**
+     * Constructor
+     *
+     * @param sequence the sequence number of the last command
+     */
+    public PlayerInput(int sequence) {
+        // Initialize message with type
+        super(Message.INPUT_TYPE);
+        this.sequence = sequence;
+    }
+
+    /**
+     * @return the sequence number of the first command
+     */
+    public int firstSequence() {
+        return sequence - commands.size() + 1;
+    }
+
+    /**
+     * The direction and movement of a player during a short time
+     */
+    public static class Command {
+        /**
+         * The direction
+         */
+        public Direction direction;
+        /**
+         * True if the player is moving in the direction
+         */
+        public boolean moving;
+        /**
+         * The time the command lasts in milliseconds
+         */
+        public int duration;
+
+        /**
+         * Constructor
+         *
+         * @param direction the direction
+         * @param moving    true if the player is moving in the direction
+         * @param duration  the time the command lasts in milliseconds
+         */
+        public Command(Direction direction, boolean moving, int duration) {
+            this.direction = direction;
+            this.moving = moving;
+            this.duration = duration;
+        }
+    }
+}
@@ -27,6 +27,14 @@ public class Position extends Message {
      * True if the player is moving in the corresponding direction
      */
     public boolean moving = false;
+    /**
+     * The last snapshot the client received, null if the client doesn't use snapshots
+     */
+    public Integer ack;
+    /**
+     * The last input command the position includes, only set on the corrections the server sends to the player itself
+     */
+    public Integer input;
 
     /**
      * Constructor
@@ -0,0 +1,79 @@
+package Server.Messages.Socket;
+
+import Server.Messages.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The positions of all players in one tick, delta-encoded against a snapshot the client acknowledged
+ */
+public class Snapshot extends Message {
+    /**
+     * Base of a snapshot that contains every player
+     */
+    public static final int NO_BASE = -1;
+    /**
+     * Precision of the coordinates in pixels
+     */
+    public static final float QUANTUM = 1 / 8f;
+    /**
+     * The tick of the snapshot
+     */
+    public int tick;
+    /**
+     * The tick of the snapshot this one is based on
+     */
+    public int baseTick = NO_BASE;
+    /**
+     * The positions of the players that changed since the base snapshot
+     */
+    public List<Position> positions = new ArrayList<>();
+    /**
+     * The players that left the area of the client since the base snapshot, the client stops drawing them
+     */
+    public List<String> hidden = new ArrayList<>();
+
+    /**
+     * Constructor
+     *
+     * @param tick     the tick of the snapshot
+     * @param baseTick the tick of the snapshot this one is based on
+     */
+    public Snapshot(int tick, int baseTick) {
+        // Initialize message with type
+        super(Message.SNAPSHOT_TYPE);
+
+        this.tick = tick;
+        this.baseTick = baseTick;
+    }
+
+    /**
+     * Round the coordinates of a position to the precision of a snapshot
+     *
+     * @param position the position
+     * @return the rounded copy of the position
+     */
+    public static Position quantize(Position position) {
+        Position quantized = new Position(
+                Math.round(position.x / QUANTUM) * QUANTUM,
+                Math.round(position.y / QUANTUM) * QUANTUM
+        );
+        quantized.playerId = position.playerId;
+        quantized.direction = position.direction;
+        quantized.moving = position.moving;
+        return quantized;
+    }
+
+    /**
+     * Check if a player changed between two snapshots
+     *
+     * @param position the position in the newer snapshot
+     * @param base     the position in the base snapshot, null if the player is missing there
+     * @return true if the position must be sent
+     */
+    public static boolean changed(Position position, Position base) {
+        return base == null || position.x != base.x || position.y != base.y
+                || position.direction != base.direction || position.moving != base.moving;
+    }
+}
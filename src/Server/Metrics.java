@@ -0,0 +1,228 @@
+package Server;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the server that are exposed on the /metrics route in the Prometheus text format
+ * <p>
+ * The counters are updated on the hot paths of the connections, so they only use adders that don't contend. The
+ * gauges of the lobbies and connections are read when the metrics are rendered.
+ */
+public class Metrics {
+    /**
+     * Status file of the server process, only exists on Linux
+     */
+    private static final Path PROCESS_STATUS = Paths.get("/proc/self/status");
+    /**
+     * Received messages by their type
+     */
+    private static final Map<String, LongAdder> messagesIn = new ConcurrentHashMap<>();
+    /**
+     * Sent messages by their type
+     */
+    private static final Map<String, LongAdder> messagesOut = new ConcurrentHashMap<>();
+    /**
+     * Bytes received from all clients
+     */
+    private static final LongAdder bytesIn = new LongAdder();
+    /**
+     * Bytes sent to all clients
+     */
+    private static final LongAdder bytesOut = new LongAdder();
+    /**
+     * Connections that were closed because of an error or a full queue
+     */
+    private static final LongAdder droppedConnections = new LongAdder();
+
+    /**
+     * Count a received message
+     *
+     * @param type type of the message
+     */
+    public static void messageReceived(String type) {
+        messagesIn.computeIfAbsent(type, t -> new LongAdder()).increment();
+    }
+
+    /**
+     * Count a sent message
+     *
+     * @param type  type of the message
+     * @param bytes size of the message on the wire
+     */
+    public static void messageSent(String type, int bytes) {
+        messagesOut.computeIfAbsent(type, t -> new LongAdder()).increment();
+        bytesOut.add(bytes);
+    }
+
+    /**
+     * Count received bytes
+     *
+     * @param bytes number of bytes
+     */
+    public static void bytesReceived(int bytes) {
+        bytesIn.add(bytes);
+    }
+
+    /**
+     * Count a connection that was closed because of an error or a full queue
+     */
+    public static void connectionDropped() {
+        droppedConnections.increment();
+    }
+
+    /**
+     * Render all metrics
+     *
+     * @param server the game server
+     * @return the metrics in the Prometheus text format
+     */
+    public static String render(Server server) {
+        StringBuilder out = new StringBuilder();
+
+        header(out, "multibomb_messages_received_total", "counter", "Messages received from the clients");
+        new TreeMap<>(messagesIn).forEach((type, count) ->
+                sample(out, "multibomb_messages_received_total", "type", type, count.sum()));
+        header(out, "multibomb_messages_sent_total", "counter", "Messages sent to the clients");
+        new TreeMap<>(messagesOut).forEach((type, count) ->
+                sample(out, "multibomb_messages_sent_total", "type", type, count.sum()));
+        header(out, "multibomb_bytes_received_total", "counter", "Bytes received from the clients");
+        out.append("multibomb_bytes_received_total ").append(bytesIn.sum()).append('\n');
+        header(out, "multibomb_bytes_sent_total", "counter", "Bytes sent to the clients");
+        out.append("multibomb_bytes_sent_total ").append(bytesOut.sum()).append('\n');
+        header(out, "multibomb_dropped_connections_total", "counter", "Connections closed because of an error or a full queue");
+        out.append("multibomb_dropped_connections_total ").append(droppedConnections.sum()).append('\n');
+        header(out, "multibomb_flushes_total", "counter", "Flushes of all connections");
+        out.append("multibomb_flushes_total ").append(PlayerConnection.getFlushes()).append('\n');
+        header(out, "multibomb_flushed_messages_total", "counter", "Messages written by the flushes of all connections");
+        out.append("multibomb_flushed_messages_total ").append(PlayerConnection.getFlushedMessages()).append('\n');
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        header(out, "multibomb_threads", "gauge", "Live platform threads of the server, virtual threads are not included");
+        out.append("multibomb_threads ").append(threads.getThreadCount()).append('\n');
+        header(out, "multibomb_threads_peak", "gauge", "Most platform threads that were alive at the same time");
+        out.append("multibomb_threads_peak ").append(threads.getPeakThreadCount()).append('\n');
+        header(out, "multibomb_resident_memory_bytes", "gauge", "Resident memory of the server process, -1 if unknown");
+        out.append("multibomb_resident_memory_bytes ").append(residentMemory()).append('\n');
+
+        List<Lobby> lobbies = server.getLobbies();
+
+        header(out, "multibomb_queue_depth", "gauge", "Outgoing messages queued for a connection");
+        for (Lobby lobby : lobbies) {
+            List<PlayerConnection> connections;
+            synchronized (lobby.players) {
+                connections = new ArrayList<>(lobby.players.values());
+            }
+            for (PlayerConnection connection : connections) {
+                out.append("multibomb_queue_depth{lobby=\"").append(escape(lobby.name))
+                        .append("\",player=\"").append(escape(connection.name)).append("\"} ")
+                        .append(connection.queueDepth()).append('\n');
+            }
+        }
+
+        List<Lobby> games = new ArrayList<>();
+        for (Lobby lobby : lobbies) {
+            if (lobby.getGameWorld() != null) {
+                games.add(lobby);
+            }
+        }
+
+        header(out, "multibomb_tick_duration_seconds", "histogram", "Duration of the ticks of the game loop");
+        for (Lobby lobby : games) {
+            TickStats stats = lobby.getGameWorld().tickStats;
+            String label = "lobby=\"" + escape(lobby.name) + "\"";
+            long[] histogram = stats.getHistogram();
+            long cumulative = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                cumulative += histogram[i];
+                String bound = i < TickStats.BUCKETS.length ? Double.toString(TickStats.BUCKETS[i] / 1000) : "+Inf";
+                out.append("multibomb_tick_duration_seconds_bucket{").append(label).append(",le=\"").append(bound)
+                        .append("\"} ").append(cumulative).append('\n');
+            }
+            out.append("multibomb_tick_duration_seconds_sum{").append(label).append("} ")
+                    .append(stats.getTotalDuration() / 1e9).append('\n');
+            out.append("multibomb_tick_duration_seconds_count{").append(label).append("} ")
+                    .append(stats.getTicks()).append('\n');
+        }
+        header(out, "multibomb_ticks_per_second", "gauge", "Tick rate the game loop achieved in the last second");
+        games.forEach(lobby -> sample(out, "multibomb_ticks_per_second", "lobby", lobby.name,
+                lobby.getGameWorld().tickStats.getAchievedTps()));
+        header(out, "multibomb_tick_overruns_total", "counter", "Ticks that took longer than the tick period");
+        games.forEach(lobby -> sample(out, "multibomb_tick_overruns_total", "lobby", lobby.name,
+                lobby.getGameWorld().tickStats.getOverruns()));
+        header(out, "multibomb_skipped_ticks_total", "counter", "Ticks dropped because the game loop was too far behind");
+        games.forEach(lobby -> sample(out, "multibomb_skipped_ticks_total", "lobby", lobby.name,
+                lobby.getGameWorld().tickStats.getSkippedTicks()));
+        header(out, "multibomb_item_timers", "gauge", "Item timers that are not executed yet");
+        games.forEach(lobby -> sample(out, "multibomb_item_timers", "lobby", lobby.name,
+                lobby.getGameWorld().getActiveTimers()));
+
+        return out.toString();
+    }
+
+    /**
+     * Read the resident memory of the server process from the status file
+     *
+     * @return the resident memory in bytes, -1 if it is unknown
+     */
+    private static long residentMemory() {
+        try {
+            for (String line : Files.readAllLines(PROCESS_STATUS)) {
+                // the line has the format "VmRSS:    123456 kB"
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("\\D", "")) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // other operating systems have no status file
+        }
+        return -1;
+    }
+
+    /**
+     * Append the help and type lines of a metric
+     *
+     * @param out  the output
+     * @param name name of the metric
+     * @param type type of the metric
+     * @param help description of the metric
+     */
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    /**
+     * Append a sample with one label
+     *
+     * @param out   the output
+     * @param name  name of the metric
+     * @param label name of the label
+     * @param value value of the label
+     * @param count the sample
+     */
+    private static void sample(StringBuilder out, String name, String label, String value, Number count) {
+        out.append(name).append('{').append(label).append("=\"").append(escape(value)).append("\"} ")
+                .append(count).append('\n');
+    }
+
+    /**
+     * Escape a label value
+     *
+     * @param value the label value
+     * @return the escaped value
+     */
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
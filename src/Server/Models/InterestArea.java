@@ -0,0 +1,177 @@
+package Server.Models;
+
+import Server.Messages.OutgoingMessage;
+import Server.Messages.Socket.Map;
+import Server.Messages.Socket.Position;
+import Server.Messages.Socket.Snapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * The fields around a player that the player gets positions and events of fields for
+ * <p>
+ * The area is a square of fields around the field of the last position of the player. Positions of players outside
+ * of the area are not sent, messages that change a field outside of the area are kept until the field comes into the
+ * area, so the map of the client is complete again once the player gets close. Like the grid of the game, the area is
+ * only used by the game loop.
+ */
+public class InterestArea {
+    /**
+     * Field of a player that did not send a position yet, such a player gets everything
+     */
+    private static final int UNKNOWN = Integer.MIN_VALUE;
+    /**
+     * Ticks of the snapshots the visible players were stored for
+     */
+    private final int[] sentTicks = new int[SnapshotHistory.SIZE];
+    /**
+     * Players that were visible in the sent snapshots, one bit for every player index
+     */
+    private final long[] sentVisible = new long[SnapshotHistory.SIZE];
+    /**
+     * Latest message of each field outside of the area by the index of the field
+     */
+    private final LinkedHashMap<Integer, OutgoingMessage> kept = new LinkedHashMap<>();
+    /**
+     * Half the width of the area in fields, 0 for an area that contains every field
+     */
+    private int radius = 0;
+    /**
+     * Position of the center of the area
+     */
+    private int m = UNKNOWN, n = UNKNOWN;
+    /**
+     * Indicate if the center changed since the kept messages were checked the last time
+     */
+    private boolean moved = false;
+
+    /**
+     * Constructor
+     */
+    public InterestArea() {
+        reset();
+    }
+
+    /**
+     * Forget the position, the sent snapshots and the kept messages, used before a new game
+     */
+    public void reset() {
+        Arrays.fill(sentTicks, Snapshot.NO_BASE);
+        kept.clear();
+        m = UNKNOWN;
+        n = UNKNOWN;
+        moved = false;
+    }
+
+    /**
+     * Move the area to the field of a position
+     *
+     * @param position the last position of the player
+     * @param radius   half the width of the area in fields, 0 for an area that contains every field
+     */
+    public void update(Position position, int radius) {
+        int m = UNKNOWN, n = UNKNOWN;
+        // positions without a player id are the placeholders before the first update of the client
+        if (position != null && position.playerId != null) {
+            m = (int) (position.y / Map.FIELD_SIZE);
+            n = (int) (position.x / Map.FIELD_SIZE);
+        }
+        if (m != this.m || n != this.n || radius != this.radius) {
+            this.m = m;
+            this.n = n;
+            this.radius = radius;
+            moved = true;
+        }
+    }
+
+    /**
+     * Check if a field is inside of the area
+     *
+     * @param m position
+     * @param n position
+     * @return true if the field is inside of the area or the area is unknown
+     */
+    public boolean contains(int m, int n) {
+        return radius <= 0 || this.m == UNKNOWN
+                || (Math.abs(m - this.m) <= radius && Math.abs(n - this.n) <= radius);
+    }
+
+    /**
+     * Keep a message of a field outside of the area until the field comes into the area, the message replaces the
+     * one kept for the field so far since it contains the latest state of the field
+     *
+     * @param m       position
+     * @param n       position
+     * @param message the message
+     */
+    public void keep(int m, int n, OutgoingMessage message) {
+        int key = m * Map.MAX_SIZE + n;
+        // move the field to the end, the messages stay in the order of the latest changes
+        kept.remove(key);
+        kept.put(key, message);
+    }
+
+    /**
+     * Take the kept messages of the fields that are inside of the area now
+     *
+     * @return the latest message of each field in the order they were kept
+     */
+    public List<OutgoingMessage> takeVisible() {
+        if (!moved || kept.isEmpty()) {
+            return List.of();
+        }
+        moved = false;
+
+        List<OutgoingMessage> visible = new ArrayList<>();
+        Iterator<java.util.Map.Entry<Integer, OutgoingMessage>> iterator = kept.entrySet().iterator();
+        while (iterator.hasNext()) {
+            java.util.Map.Entry<Integer, OutgoingMessage> entry = iterator.next();
+            if (contains(entry.getKey() / Map.MAX_SIZE, entry.getKey() % Map.MAX_SIZE)) {
+                visible.add(entry.getValue());
+                iterator.remove();
+            }
+        }
+        return visible;
+    }
+
+    /**
+     * Remember the players that were visible in a snapshot
+     *
+     * @param tick    tick of the snapshot
+     * @param visible one bit for every visible player index
+     */
+    public void sent(int tick, long visible) {
+        sentTicks[tick % SnapshotHistory.SIZE] = tick;
+        sentVisible[tick % SnapshotHistory.SIZE] = visible;
+    }
+
+    /**
+     * Get the players that were visible in a snapshot, only their positions are known to the client at that tick
+     *
+     * @param tick tick of the snapshot
+     * @return one bit for every visible player index, 0 if the snapshot is not stored anymore
+     */
+    public long visibleAt(int tick) {
+        if (tick < 0 || sentTicks[tick % SnapshotHistory.SIZE] != tick) {
+            return 0;
+        }
+        return sentVisible[tick % SnapshotHistory.SIZE];
+    }
+
+    /**
+     * Get the players that were visible in the snapshot of the previous tick
+     *
+     * @param tick the current tick
+     * @return one bit for every visible player index, every bit if the previous snapshot is not stored
+     */
+    public long visibleBefore(int tick) {
+        if (tick < 1 || sentTicks[(tick - 1) % SnapshotHistory.SIZE] != tick - 1) {
+            return -1L;
+        }
+        return sentVisible[(tick - 1) % SnapshotHistory.SIZE];
+    }
+}
@@ -0,0 +1,135 @@
+package Server.Models;
+
+import Server.Messages.Socket.Position;
+import Server.Messages.Socket.Snapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * The positions of all players of the most recent snapshots, used by the server to create deltas and by the client
+ * to apply them
+ */
+public class SnapshotHistory {
+    /**
+     * Number of snapshots that are kept, older acknowledgements lead to a full snapshot
+     */
+    public static final int SIZE = 64;
+    /**
+     * Ticks of the stored snapshots
+     */
+    private final int[] ticks = new int[SIZE];
+    /**
+     * Positions of all players by their name for each stored snapshot
+     */
+    private final List<HashMap<String, Position>> states = new ArrayList<>(SIZE);
+
+    /**
+     * Constructor
+     */
+    public SnapshotHistory() {
+        for (int i = 0; i < SIZE; i++) {
+            ticks[i] = Snapshot.NO_BASE;
+            states.add(null);
+        }
+    }
+
+    /**
+     * Store the positions of a tick, the positions must already be quantized
+     *
+     * @param tick  the tick
+     * @param state positions of all players by their name
+     */
+    public synchronized void put(int tick, HashMap<String, Position> state) {
+        ticks[tick % SIZE] = tick;
+        states.set(tick % SIZE, state);
+    }
+
+    /**
+     * Get the positions of a tick
+     *
+     * @param tick the tick
+     * @return positions of all players by their name or null if the tick is not stored anymore
+     */
+    public synchronized HashMap<String, Position> get(int tick) {
+        if (tick < 0 || ticks[tick % SIZE] != tick) {
+            return null;
+        }
+        return states.get(tick % SIZE);
+    }
+
+    /**
+     * Create the snapshot of a tick for a client
+     *
+     * @param tick     the tick
+     * @param baseTick the last tick the client acknowledged
+     * @return the snapshot or null if nothing changed since the acknowledged tick
+     */
+    public Snapshot delta(int tick, int baseTick) {
+        return delta(tick, baseTick, position -> 1L, -1L, -1L);
+    }
+
+    /**
+     * Create the snapshot of a tick for a client that only gets the positions of some players
+     *
+     * @param tick     the tick
+     * @param baseTick the last tick the client acknowledged
+     * @param bit      the bit of a player in the masks
+     * @param visible  the players whose positions are sent
+     * @param known    the players whose positions the client got up to the acknowledged tick, the other visible
+     *                 players are sent even if they did not change, the other players are hidden
+     * @return the snapshot or null if nothing changed since the acknowledged tick
+     */
+    public Snapshot delta(int tick, int baseTick, ToLongFunction<Position> bit, long visible, long known) {
+        HashMap<String, Position> state = get(tick);
+        HashMap<String, Position> base = get(baseTick);
+        Snapshot snapshot = new Snapshot(tick, base == null ? Snapshot.NO_BASE : baseTick);
+
+        for (Position position : state.values()) {
+            long b = bit.applyAsLong(position);
+            if ((visible & b) == 0) {
+                // the client would keep drawing the player where it saw it the last time
+                if (base == null || (known & b) != 0) {
+                    snapshot.hidden.add(position.playerId);
+                }
+                continue;
+            }
+            if (base == null || (known & b) == 0 || Snapshot.changed(position, base.get(position.playerId))) {
+                snapshot.positions.add(position);
+            }
+        }
+
+        // the client already has every position, a client without a snapshot knows no positions at all
+        return snapshot.positions.isEmpty() && snapshot.hidden.isEmpty() ? null : snapshot;
+    }
+
+    /**
+     * Apply a snapshot to its base and store the result
+     *
+     * @param snapshot the received snapshot
+     * @return positions of all players by their name or null if the base is not stored anymore
+     */
+    public HashMap<String, Position> apply(Snapshot snapshot) {
+        HashMap<String, Position> state;
+        if (snapshot.baseTick == Snapshot.NO_BASE) {
+            state = new HashMap<>();
+        } else {
+            HashMap<String, Position> base = get(snapshot.baseTick);
+            if (base == null) {
+                return null;
+            }
+            state = new HashMap<>(base);
+        }
+
+        for (Position position : snapshot.positions) {
+            state.put(position.playerId, position);
+        }
+        for (String name : snapshot.hidden) {
+            state.remove(name);
+        }
+        put(snapshot.tick, state);
+        return state;
+    }
+}
@@ -0,0 +1,209 @@
+package Server;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import static General.MultiBomb.LOGGER;
+
+/**
+ * Thread that multiplexes the reads and writes of many game connections with one selector
+ */
+public class NioEventLoop extends Thread {
+    /**
+     * The selector all channels of this loop are registered with
+     */
+    private final Selector selector;
+    /**
+     * Tasks that have to be executed on the loop thread
+     */
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    /**
+     * Tasks that are executed after a delay, only accessed by the loop thread
+     */
+    private final PriorityQueue<DelayedTask> delayedTasks = new PriorityQueue<>(Comparator.comparingLong(t -> t.deadline));
+    /**
+     * Indicate if the loop is still running
+     */
+    private volatile boolean running = true;
+
+    /**
+     * Constructor
+     *
+     * @param index index of the loop inside the pool
+     * @throws IOException if the selector can't be opened
+     */
+    public NioEventLoop(int index) throws IOException {
+        super("NioEventLoop-" + index);
+        setDaemon(true);
+        selector = Selector.open();
+    }
+
+    /**
+     * Create and start a fixed number of event loops
+     *
+     * @param size number of loops
+     * @return the running loops
+     * @throws IOException if a selector can't be opened
+     */
+    public static NioEventLoop[] startPool(int size) throws IOException {
+        NioEventLoop[] loops = new NioEventLoop[size];
+        for (int i = 0; i < size; i++) {
+            loops[i] = new NioEventLoop(i);
+            loops[i].start();
+        }
+        return loops;
+    }
+
+    /**
+     * @return the selector of this loop
+     */
+    public Selector selector() {
+        return selector;
+    }
+
+    /**
+     * Execute a task on the loop thread
+     *
+     * @param task task to execute
+     */
+    public void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    /**
+     * Execute a task on the loop thread after a delay
+     *
+     * @param task  task to execute
+     * @param delay delay in milliseconds
+     */
+    public void schedule(Runnable task, long delay) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+        execute(() -> delayedTasks.add(new DelayedTask(deadline, task)));
+    }
+
+    /**
+     * Stop the loop and close the selector
+     */
+    public void close() {
+        running = false;
+        selector.wakeup();
+    }
+
+    /**
+     * Run a task, a failing task must not stop the loop
+     *
+     * @param task task to run
+     */
+    private static void runTask(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Task of the event loop failed", e);
+        }
+    }
+
+    @Override
+    public void run() {
+        LOGGER.config(String.format("Entering: %s %s", NioEventLoop.class.getName(), "run()"));
+
+        while (running) {
+            try {
+                DelayedTask next = delayedTasks.peek();
+                if (next == null) {
+                    selector.select();
+                } else {
+                    long timeout = TimeUnit.NANOSECONDS.toMillis(next.deadline - System.nanoTime());
+                    if (timeout > 0) {
+                        selector.select(timeout);
+                    } else {
+                        selector.selectNow();
+                    }
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+                break;
+            }
+
+            // handle ready channels
+            for (SelectionKey key : selector.selectedKeys()) {
+                NioPlayerConnection connection = (NioPlayerConnection) key.attachment();
+                if (!key.isValid()) {
+                    continue;
+                }
+                try {
+                    if (key.isReadable()) {
+                        connection.handleRead();
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        connection.handleWrite();
+                    }
+                } catch (RuntimeException e) {
+                    // only the connection that failed is closed, the others on this loop keep running
+                    LOGGER.log(Level.WARNING, "Connection of " + connection.name + " failed and is closed", e);
+                    connection.drop();
+                }
+            }
+            selector.selectedKeys().clear();
+
+            // run the tasks that were submitted by other threads
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                runTask(task);
+            }
+
+            // run the delayed tasks that are due
+            long now = System.nanoTime();
+            while (!delayedTasks.isEmpty() && delayedTasks.peek().deadline - now <= 0) {
+                runTask(delayedTasks.poll().task);
+            }
+        }
+
+        // close all remaining connections
+        selector.keys().forEach(key -> ((NioPlayerConnection) key.attachment()).close());
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            runTask(task);
+        }
+
+        try {
+            selector.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        LOGGER.config(String.format("Exiting: %s %s", NioEventLoop.class.getName(), "run()"));
+    }
+
+    /**
+     * Task that is executed once its deadline passed
+     */
+    private static class DelayedTask {
+        /**
+         * Deadline of the task in nanoseconds
+         */
+        private final long deadline;
+        /**
+         * The task
+         */
+        private final Runnable task;
+
+        /**
+         * Constructor
+         *
+         * @param deadline deadline of the task in nanoseconds
+         * @param task     the task
+         */
+        private DelayedTask(long deadline, Runnable task) {
+            this.deadline = deadline;
+            this.task = task;
+        }
+    }
+}
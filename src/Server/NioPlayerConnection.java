@@ -0,0 +1,311 @@
+package Server;
+
+import Server.Messages.Message;
+import Server.Messages.MessageCodec;
+import Server.Messages.OutgoingMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking connection whose reads and writes are handled by a shared {@link NioEventLoop}
+ */
+public class NioPlayerConnection extends PlayerConnection {
+    /**
+     * Size of the buffer for incoming data
+     */
+    private static final int READ_BUFFER_SIZE = 8192;
+    /**
+     * Maximum number of bytes that are gathered into one write
+     */
+    private static final int MAX_WRITE_SIZE = 65536;
+    /**
+     * Maximum length of a single incoming message, a map is the largest message a client sends
+     */
+    private static final int MAX_FRAME_LENGTH = 1 << 20;
+    /**
+     * Channel to the client
+     */
+    private final SocketChannel channel;
+    /**
+     * Event loop that handles the channel
+     */
+    private final NioEventLoop loop;
+    /**
+     * Buffer for incoming data
+     */
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    /**
+     * Incoming bytes that don't form a complete frame yet
+     */
+    private byte[] pending = new byte[READ_BUFFER_SIZE];
+    /**
+     * Number of bytes in the pending buffer
+     */
+    private int pendingLength = 0;
+    /**
+     * Queue for outgoing messages
+     */
+    private final Queue<OutgoingMessage> messageQueue = new ConcurrentLinkedQueue<>();
+    /**
+     * Number of messages in the queue
+     */
+    private final AtomicInteger queuedMessages = new AtomicInteger();
+    /**
+     * Indicate if a write is already scheduled on the event loop
+     */
+    private final AtomicBoolean writeScheduled = new AtomicBoolean();
+    /**
+     * Indicate if the latency bound of the current batch is already scheduled
+     */
+    private final AtomicBoolean batchScheduled = new AtomicBoolean();
+    /**
+     * Bytes that are encoded but not yet written to the channel
+     */
+    private ByteBuffer writeBuffer;
+    /**
+     * Selection key of the channel
+     */
+    private SelectionKey key;
+    /**
+     * Indicate if the player was added to the lobby
+     */
+    private boolean joined = false;
+    /**
+     * Indicate if the channel is closed
+     */
+    private boolean closed = false;
+
+    /**
+     * Constructor
+     *
+     * @param channel    channel to the client
+     * @param lobby      lobby the player is in
+     * @param playerName name of the player
+     * @param codec      codec the client negotiated
+     * @param loop       event loop that handles the channel
+     * @throws IOException if the channel can't be switched to non-blocking mode
+     */
+    public NioPlayerConnection(SocketChannel channel, Lobby lobby, String playerName, MessageCodec codec,
+                               NioEventLoop loop) throws IOException {
+        super(lobby, playerName, codec);
+        this.channel = channel;
+        this.loop = loop;
+
+        try {
+            channel.configureBlocking(false);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void start() {
+        loop.execute(() -> {
+            try {
+                key = channel.register(loop.selector(), SelectionKey.OP_READ, this);
+            } catch (IOException e) {
+                shutdown();
+                return;
+            }
+
+            joined = join();
+            if (!joined) {
+                // try to deliver the error message before closing
+                handleWrite();
+                shutdown();
+            }
+        });
+    }
+
+    /**
+     * Read the available data and handle every complete message, only called by the event loop
+     */
+    void handleRead() {
+        int read;
+        try {
+            read = channel.read(readBuffer);
+        } catch (IOException e) {
+            dropped = true;
+            shutdown();
+            return;
+        }
+
+        if (read < 0) {
+            // connection was closed from other end
+            shutdown();
+            return;
+        }
+
+        Metrics.bytesReceived(read);
+
+        // append the received bytes to the incomplete frame
+        readBuffer.flip();
+        if (pendingLength + read > pending.length) {
+            pending = Arrays.copyOf(pending, Math.max(2 * pending.length, pendingLength + read));
+        }
+        readBuffer.get(pending, pendingLength, read);
+        pendingLength += read;
+        readBuffer.clear();
+
+        // handle all complete frames
+        int offset = 0;
+        int frameLength;
+        while ((frameLength = codec.frameLength(pending, offset, pendingLength - offset)) > 0) {
+            Message message = codec.decode(pending, offset, frameLength);
+            offset += frameLength;
+
+            // skip frames that can't be decoded, e.g. empty lines
+            if (!Message.isValid(message)) {
+                continue;
+            }
+            handleMessage(message);
+            if (closed) {
+                return;
+            }
+        }
+        System.arraycopy(pending, offset, pending, 0, pendingLength - offset);
+        pendingLength -= offset;
+
+        if (pendingLength > MAX_FRAME_LENGTH) {
+            dropped = true;
+            shutdown();
+        }
+    }
+
+    /**
+     * Write as many queued messages as the channel accepts, only called by the event loop
+     */
+    void handleWrite() {
+        writeScheduled.set(false);
+        if (closed || key == null) {
+            return;
+        }
+
+        try {
+            while (true) {
+                if (writeBuffer == null || !writeBuffer.hasRemaining()) {
+                    writeBuffer = encodeQueuedMessages();
+                    if (writeBuffer == null) {
+                        // everything is written, only wait for incoming data
+                        key.interestOps(SelectionKey.OP_READ);
+                        return;
+                    }
+                }
+
+                channel.write(writeBuffer);
+
+                if (writeBuffer.hasRemaining()) {
+                    // socket buffer is full, continue as soon as the channel is writable again
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            dropped = true;
+            shutdown();
+        }
+    }
+
+    /**
+     * Encode queued messages into one buffer
+     *
+     * @return the buffer or null if there are no queued messages
+     */
+    private ByteBuffer encodeQueuedMessages() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        OutgoingMessage msg;
+        int messages = 0;
+        while (bytes.size() < MAX_WRITE_SIZE && (msg = messageQueue.poll()) != null) {
+            queuedMessages.decrementAndGet();
+            byte[] frame = msg.encode(codec);
+            bytes.write(frame, 0, frame.length);
+            Metrics.messageSent(msg.message.type, frame.length);
+            messages++;
+        }
+        if (messages == 0) {
+            return null;
+        }
+        recordFlush(messages);
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+
+    @Override
+    public void send(OutgoingMessage message) {
+        if (queuedMessages.incrementAndGet() > MAX_QUEUED_MESSAGES) {
+            dropped = true;
+            close();
+            return;
+        }
+        messageQueue.add(message);
+
+        if (queuedMessages.get() >= Server.maxBatchSize || Server.maxBatchLatency == 0) {
+            flush();
+        } else if (batchScheduled.compareAndSet(false, true)) {
+            // write the batch at the latest when its first message reached the latency bound
+            loop.schedule(() -> {
+                batchScheduled.set(false);
+                handleWrite();
+            }, Server.maxBatchLatency);
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (queuedMessages.get() > 0 && writeScheduled.compareAndSet(false, true)) {
+            loop.execute(this::handleWrite);
+        }
+    }
+
+    @Override
+    public int queueDepth() {
+        return queuedMessages.get();
+    }
+
+    @Override
+    public void close() {
+        alive = false;
+        loop.execute(this::shutdown);
+    }
+
+    /**
+     * Close the connection after handling its data failed, only called by the event loop
+     */
+    void drop() {
+        dropped = true;
+        shutdown();
+    }
+
+    /**
+     * Close the channel and leave the lobby, only called by the event loop
+     */
+    private void shutdown() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        alive = false;
+
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        if (joined) {
+            leave();
+        }
+    }
+}
@@ -2,21 +2,40 @@ package Server;
 
 import Server.Messages.ErrorMessage;
 import Server.Messages.Message;
+import Server.Messages.MessageCodec;
+import Server.Messages.OutgoingMessage;
 import Server.Messages.Socket.*;
+import Server.Models.InterestArea;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
-import java.net.Socket;
+import java.net.SocketAddress;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import static General.MultiBomb.LOGGER;
 
-public class PlayerConnection extends Thread {
+/**
+ * The lobby side of a connection to a client, independent of the transport that carries the messages
+ */
+public abstract class PlayerConnection {
+    /**
+     * Maximum number of outgoing messages that may be queued before the connection is closed
+     */
+    public static final int MAX_QUEUED_MESSAGES = 1000;
+    /**
+     * Maximum number of input commands that may wait for the game loop, older commands are dropped
+     */
+    public static final int MAX_QUEUED_INPUTS = 256;
+    /**
+     * Number of flushes of all connections
+     */
+    private static final LongAdder flushes = new LongAdder();
+    /**
+     * Number of messages that were written by the flushes of all connections
+     */
+    private static final LongAdder flushedMessages = new LongAdder();
     /**
      * Name of the player
      */
@@ -26,33 +45,41 @@ public class PlayerConnection extends Thread {
      */
     public final List<ItemAction> itemActions;
     /**
-     * TCP socket connection to the client
+     * Lobby the player is in
      */
-    private final Socket socket;
+    protected final Lobby lobby;
     /**
-     * Lobby the player is in
+     * Codec the client negotiated
      */
-    private final Lobby lobby;
+    protected final MessageCodec codec;
     /**
-     * Output stream
+     * Color of the player
      */
-    private final PrintWriter out;
+    public int color;
     /**
-     * Input stream
+     * The last position of the player the game loop calculated
      */
-    private final BufferedReader in;
+    public volatile Position lastPosition = new Position(-5, -5);
     /**
-     * Queue for outgoing messages
+     * The last snapshot the client acknowledged
      */
-    private final BlockingQueue<Message> messageQueue = new LinkedBlockingQueue<>(1000);
+    public volatile int acknowledgedSnapshot = Snapshot.NO_BASE;
     /**
-     * Color of the player
+     * The fields the client gets positions and field changes of, only used by the game loop
      */
-    public int color;
+    public final InterestArea interest = new InterestArea();
     /**
-     * The last position update the server received
+     * Input commands of the client the game loop didn't simulate yet
      */
-    public volatile Position lastPosition = new Position(-5, -5);
+    private final ArrayDeque<PlayerInput.Command> inputs = new ArrayDeque<>();
+    /**
+     * Sequence number of the newest queued input command
+     */
+    private int queuedInput = 0;
+    /**
+     * Newest position of a client that sends positions instead of input commands, null if there is none
+     */
+    private Position reportedPosition;
     /**
      * If the client is prepared and ready to start the game
      */
@@ -60,79 +87,269 @@ public class PlayerConnection extends Thread {
     /**
      * Indicate if PlayerConnection is still alive
      */
-    private boolean alive;
+    protected volatile boolean alive;
+    /**
+     * Indicate if the connection is closed because of an error or a full queue
+     */
+    protected volatile boolean dropped = false;
+    /**
+     * Channel for position updates, null if the client only uses the game socket
+     */
+    private UdpChannel udpChannel;
+    /**
+     * Session token that binds the datagrams of the client to this connection
+     */
+    private long udpToken;
+    /**
+     * Address the client sends its datagrams from, null until the first datagram arrived
+     */
+    private volatile SocketAddress udpAddress;
+    /**
+     * Indicate if the client received datagrams of the server, until then positions are sent over both channels
+     */
+    private volatile boolean udpConfirmed = false;
+    /**
+     * Sequence number of the newest datagram of the client
+     */
+    private int receivedSequence;
+    /**
+     * Sequence number of the last datagram that was sent to the client
+     */
+    private final AtomicInteger sentSequence = new AtomicInteger();
 
     /**
      * Constructor
      *
-     * @param socket     socket connection with the client
      * @param lobby      lobby the player is in
      * @param playerName name of the player
-     * @throws IOException if there are problems with the socket or the in-/output streams
+     * @param codec      codec the client negotiated
      */
-    public PlayerConnection(Socket socket, Lobby lobby, String playerName) throws IOException {
-        this.socket = socket;
+    protected PlayerConnection(Lobby lobby, String playerName, MessageCodec codec) {
         this.lobby = lobby;
         this.name = playerName;
+        this.codec = codec;
 
         this.itemActions = new ArrayList<>();
+    }
 
-        try {
-            out = new PrintWriter(socket.getOutputStream(), true);
-            in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-        } catch (IOException e) {
-            socket.close();
-            throw e;
+    /**
+     * Start reading and writing messages
+     */
+    public abstract void start();
+
+    /**
+     * Send message
+     *
+     * @param message message to send
+     */
+    public void send(Message message) {
+        send(new OutgoingMessage(message));
+    }
+
+    /**
+     * Send a message whose encoded frames may be shared with other connections
+     *
+     * @param message message to send
+     */
+    public abstract void send(OutgoingMessage message);
+
+    /**
+     * Send a position update over the udp channel if the client uses it, otherwise over the game socket
+     *
+     * @param message position update to send
+     */
+    public void sendUnreliable(OutgoingMessage message) {
+        SocketAddress address = udpAddress;
+        if (address != null) {
+            byte[] frame = message.encode(codec);
+            udpChannel.send(address, sentSequence.incrementAndGet(), frame);
+            Metrics.messageSent(message.message.type, UdpChannel.SERVER_HEADER_SIZE + frame.length);
+        }
+        if (!udpConfirmed) {
+            send(message);
         }
     }
 
-    @Override
-    public void run() {
-        alive = lobby.addPlayer(this);
+    /**
+     * Accept datagrams of the client that carry the session token
+     *
+     * @param channel the udp channel
+     * @param token   the session token
+     */
+    public void bindUdp(UdpChannel channel, long token) {
+        this.udpChannel = channel;
+        this.udpToken = token;
+        channel.register(token, this);
+    }
 
-        if (!alive && lobby.getPlayerColors().containsKey(name)) {
-            send(new ErrorMessage("Name already taken, please choose a different one!"));
+    /**
+     * Handle a datagram of the client, only position updates are accepted
+     *
+     * @param address      address of the client
+     * @param sequence     sequence number of the datagram
+     * @param acknowledged sequence number of the last datagram the client received, 0 if none arrived yet
+     * @param data         buffer with the frame
+     * @param offset       start of the frame
+     * @param length       length of the frame
+     */
+    void receiveDatagram(SocketAddress address, int sequence, int acknowledged, byte[] data, int offset, int length) {
+        // drop datagrams that are older than the newest one, the difference also works after an overflow
+        if (udpAddress != null && sequence - receivedSequence <= 0) {
+            return;
+        }
+        receivedSequence = sequence;
+        udpAddress = address;
+        if (acknowledged != 0) {
+            udpConfirmed = true;
         }
 
-        new Thread(() -> {
-            Message msg;
-            while (alive) {
-                try {
-                    msg = messageQueue.take();
+        if (codec.frameLength(data, offset, length) != length) {
+            return;
+        }
+        Message message = codec.decode(data, offset, length);
+        if (Message.isValid(message) && message.type.equals(Message.INPUT_TYPE)) {
+            handleMessage(message);
+        }
+    }
 
-                    synchronized (out) {
-                        out.println(msg.toJson());
-                    }
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
+    /**
+     * Queue the input commands of the client that are newer than the queued ones
+     *
+     * @param input the input of the client
+     */
+    public void queueInput(PlayerInput input) {
+        synchronized (inputs) {
+            int sequence = input.firstSequence();
+            for (PlayerInput.Command command : input.commands) {
+                // commands that were queued already are sent again until the client gets a correction
+                if (sequence - queuedInput > 0) {
+                    inputs.add(command);
+                    queuedInput = sequence;
                 }
+                sequence++;
             }
-        }).start();
-
-        String jsonMessage;
-        while (alive) {
-            try {
-                synchronized (in) {
-                    // readLine() return null if socket connection was closed from other end
-                    if ((jsonMessage = in.readLine()) == null) break;
-                }
-            } catch (IOException e) {
-                break;
+            while (inputs.size() > MAX_QUEUED_INPUTS) {
+                inputs.poll();
             }
+        }
+    }
 
-            Message message = Message.fromJson(jsonMessage);
+    /**
+     * Take the queued input commands
+     *
+     * @param commands list the commands are added to, oldest first
+     * @return the sequence number of the last command, including the ones that were taken before
+     */
+    public int takeInputs(List<PlayerInput.Command> commands) {
+        synchronized (inputs) {
+            commands.addAll(inputs);
+            inputs.clear();
+            return queuedInput;
+        }
+    }
 
-            handleMessage(message);
+    /**
+     * Take the newest position of a client that sends positions instead of input commands
+     *
+     * @return the position or null if none arrived since the last call
+     */
+    public Position takePosition() {
+        synchronized (inputs) {
+            Position position = reportedPosition;
+            reportedPosition = null;
+            return position;
         }
+    }
+
+    /**
+     * Forget the input commands of the last game, the client starts counting again
+     */
+    public void resetInputs() {
+        synchronized (inputs) {
+            inputs.clear();
+            reportedPosition = null;
+            queuedInput = 0;
+        }
+    }
 
-        send(new CloseConnection());
+    /**
+     * Write the messages that were queued during the current tick
+     */
+    public abstract void flush();
 
-        try {
-            socket.close();
-        } catch (IOException e) {
-            e.printStackTrace();
+    /**
+     * Record a flush for the messages per flush metric
+     *
+     * @param messages number of messages that were written with the flush
+     */
+    protected static void recordFlush(int messages) {
+        flushes.increment();
+        flushedMessages.add(messages);
+    }
+
+    /**
+     * @return number of flushes of all connections
+     */
+    public static long getFlushes() {
+        return flushes.sum();
+    }
+
+    /**
+     * @return number of messages that were written by the flushes of all connections
+     */
+    public static long getFlushedMessages() {
+        return flushedMessages.sum();
+    }
+
+    /**
+     * @return number of outgoing messages that are queued
+     */
+    public abstract int queueDepth();
+
+    /**
+     * @return the average number of messages that were written with one flush
+     */
+    public static double getMessagesPerFlush() {
+        long count = flushes.sum();
+        return count == 0 ? 0 : (double) flushedMessages.sum() / count;
+    }
+
+    /**
+     * @return the name of the protocol the client negotiated
+     */
+    public String protocol() {
+        return codec.protocol();
+    }
+
+    /**
+     * Close connection to client
+     */
+    public abstract void close();
+
+    /**
+     * Add the player to the lobby
+     *
+     * @return boolean indicating if the player could join the lobby
+     */
+    protected boolean join() {
+        alive = lobby.addPlayer(this);
+
+        if (!alive && lobby.getPlayerColors().containsKey(name)) {
+            send(new ErrorMessage("Name already taken, please choose a different one!"));
         }
+        return alive;
+    }
 
+    /**
+     * Remove the player from the lobby after the connection was closed
+     */
+    protected void leave() {
+        if (dropped) {
+            Metrics.connectionDropped();
+        }
+        if (udpChannel != null) {
+            udpChannel.unregister(udpToken);
+        }
         lobby.removePlayer(this);
     }
 
@@ -141,11 +358,13 @@ public class PlayerConnection extends Thread {
      *
      * @param msg message to handle
      */
-    private void handleMessage(Message msg) {
-        if (!msg.type.equals(Message.POSITION_TYPE)) {
+    protected void handleMessage(Message msg) {
+        if (!msg.type.equals(Message.INPUT_TYPE)) {
             LOGGER.config(String.format("Entering: %s %s", PlayerConnection.class.getName(), "handleMessage(" + msg.type + ")"));
         }
 
+        Metrics.messageReceived(msg.type);
+
         switch (msg.type) {
             case Message.LOBBY_STATE_TYPE:
                 synchronized (lobby) {
@@ -182,12 +401,22 @@ public class PlayerConnection extends Thread {
                     }
                 }
                 break;
+            case Message.INPUT_TYPE:
+                if (lobby.state == Lobby.IN_GAME) {
+                    // the game loop simulates the movement, positions of the client are not trusted
+                    PlayerInput input = (PlayerInput) msg;
+                    queueInput(input);
+                    if (input.ack != null && input.ack > acknowledgedSnapshot) {
+                        acknowledgedSnapshot = input.ack;
+                    }
+                }
+                break;
             case Message.POSITION_TYPE:
                 if (lobby.state == Lobby.IN_GAME) {
-                    // update last position
-                    Position newPosition = (Position) msg;
-                    newPosition.playerId = name;
-                    lastPosition = newPosition;
+                    // older clients send their positions, only the newest one is simulated like a command
+                    synchronized (inputs) {
+                        reportedPosition = (Position) msg;
+                    }
                 }
                 break;
             case Message.ITEM_ACTION_TYPE:
@@ -198,31 +427,8 @@ public class PlayerConnection extends Thread {
                 break;
         }
 
-        if (!msg.type.equals(Message.POSITION_TYPE)) {
+        if (!msg.type.equals(Message.INPUT_TYPE)) {
             LOGGER.config(String.format("Exiting: %s %s", PlayerConnection.class.getName(), "handleMessage(" + msg.type + ")"));
         }
     }
-
-    /**
-     * Send message
-     *
-     * @param message message to send
-     */
-    public void send(Message message) {
-        if (!messageQueue.offer(message)) {
-            close();
-        }
-    }
-
-    /**
-     * Close socket connection to client
-     */
-    public void close() {
-        alive = false;
-        try {
-            socket.close();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
 }
@@ -2,15 +2,21 @@ package Server;
 
 import General.MB;
 import Server.Messages.ErrorMessage;
+import Server.Messages.Message;
+import Server.Messages.MessageCodec;
 import Server.Messages.Socket.CloseConnection;
 
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.SocketException;
+import java.nio.channels.ServerSocketChannel;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadFactory;
 import java.util.stream.Collectors;
 
 import static General.MultiBomb.LOGGER;
@@ -28,6 +34,14 @@ public class Server implements Runnable {
      * Port for the server game socket
      */
     public static final int GAME_PORT = 42422;
+    /**
+     * Port for the unreliable position updates
+     */
+    public static final int UDP_GAME_PORT = 42423;
+    /**
+     * Available transports for the game connections
+     */
+    public static final String THREAD_TRANSPORT = "threads", VIRTUAL_TRANSPORT = "virtual", NIO_TRANSPORT = "nio";
     /**
      * True if the server is running locally
      */
@@ -40,6 +54,32 @@ public class Server implements Runnable {
      * Maximum number of lobbies
      */
     public static int maxLobbies;
+    /**
+     * Half the width in fields of the square around a player that the player gets positions and field changes of, 0
+     * sends everything to every player. The default covers every field of a standard map.
+     */
+    public static int interestRadius = 16;
+    /**
+     * Transport that is used for the game connections
+     */
+    public static String transport = THREAD_TRANSPORT;
+    /**
+     * Default maximum number of messages that are written with one flush
+     */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+    /**
+     * Maximum number of messages that are written with one flush
+     */
+    public static int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    /**
+     * Maximum time in milliseconds a message waits for the end of the tick before it is flushed, 0 flushes every
+     * message immediately
+     */
+    public static long maxBatchLatency;
+    /**
+     * Factory for the connection threads, creates virtual threads if the virtual transport is used
+     */
+    private static ThreadFactory threadFactory = Thread::new;
     /**
      * Map of lobby names to their lobby objects
      */
@@ -64,24 +104,49 @@ public class Server implements Runnable {
      * The server socket
      */
     private ServerSocket serverSocket;
+    /**
+     * Channel for position updates, null if the port couldn't be bound
+     */
+    private volatile UdpChannel udpChannel;
+    /**
+     * Scheduler that ticks the game loops of all lobbies
+     */
+    public final TickScheduler tickScheduler;
+    /**
+     * Event loops that handle the game connections if the NIO transport is used
+     */
+    private NioEventLoop[] eventLoops;
+    /**
+     * Index of the event loop that gets the next connection
+     */
+    private int nextEventLoop = 0;
 
     /**
      * Constructor
      *
-     * @param name           name of the server
-     * @param ticksPerSecond tick rate of the server (should be 64 or 128)
-     * @param maxLobbies     maximum number of lobbies
+     * @param name            name of the server
+     * @param ticksPerSecond  tick rate of the server (should be 64 or 128)
+     * @param maxLobbies      maximum number of lobbies
+     * @param transport       transport for the game connections
+     * @param maxBatchSize    maximum number of messages that are written with one flush
+     * @param maxBatchLatency maximum time in milliseconds a message waits before it is flushed
      */
-    public Server(String name, int ticksPerSecond, int maxLobbies) {
+    public Server(String name, int ticksPerSecond, int maxLobbies, String transport, int maxBatchSize,
+                  long maxBatchLatency) {
         LOGGER.config(String.format("Entering: %s %s", Server.class.getName(), "Server()"));
 
         running = true;
         this.name = name;
         Server.ticksPerSecond = ticksPerSecond;
         Server.maxLobbies = maxLobbies;
+        Server.transport = transport;
+        Server.maxBatchSize = maxBatchSize;
+        Server.maxBatchLatency = maxBatchLatency;
+        Server.threadFactory = VIRTUAL_TRANSPORT.equals(transport) ? virtualThreadFactory() : Thread::new;
 
         discoveryThread = new DiscoveryThread();
         httpThread = new HttpThread(this);
+        tickScheduler = new TickScheduler(Runtime.getRuntime().availableProcessors());
 
         lobbies = new HashMap<>();
         preparedPlayers = new HashMap<>();
@@ -89,6 +154,29 @@ public class Server implements Runnable {
         LOGGER.config(String.format("Exiting: %s %s", Server.class.getName(), "Server()"));
     }
 
+    /**
+     * Constructor, messages wait at most one tick before they are flushed
+     *
+     * @param name           name of the server
+     * @param ticksPerSecond tick rate of the server (should be 64 or 128)
+     * @param maxLobbies     maximum number of lobbies
+     * @param transport      transport for the game connections
+     */
+    public Server(String name, int ticksPerSecond, int maxLobbies, String transport) {
+        this(name, ticksPerSecond, maxLobbies, transport, DEFAULT_MAX_BATCH_SIZE, 1000 / ticksPerSecond);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param name           name of the server
+     * @param ticksPerSecond tick rate of the server (should be 64 or 128)
+     * @param maxLobbies     maximum number of lobbies
+     */
+    public Server(String name, int ticksPerSecond, int maxLobbies) {
+        this(name, ticksPerSecond, maxLobbies, THREAD_TRANSPORT);
+    }
+
     /**
      * Constructor
      *
@@ -98,6 +186,46 @@ public class Server implements Runnable {
         this(name, 64, 16);
     }
 
+    /**
+     * Check if a transport name is supported
+     *
+     * @param transport name of the transport
+     * @return true if the transport exists
+     */
+    public static boolean isTransport(String transport) {
+        return THREAD_TRANSPORT.equals(transport) || VIRTUAL_TRANSPORT.equals(transport)
+                || NIO_TRANSPORT.equals(transport);
+    }
+
+    /**
+     * Start a new thread for a connection or an item
+     *
+     * @param task task to run in the thread
+     * @return the started thread
+     */
+    public static Thread startThread(Runnable task) {
+        Thread thread = threadFactory.newThread(task);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Get a factory for virtual threads
+     * <p>
+     * Virtual threads are looked up reflectively so the server still runs on Java versions without them
+     *
+     * @return the factory or a factory for platform threads if virtual threads are not available
+     */
+    private static ThreadFactory virtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            LOGGER.warning("Virtual threads are not supported by this Java version, using platform threads");
+            return Thread::new;
+        }
+    }
+
     /**
      * Close the server
      */
@@ -113,6 +241,17 @@ public class Server implements Runnable {
         running = false;
         httpThread.close();
         discoveryThread.close();
+        tickScheduler.close();
+
+        if (udpChannel != null) {
+            udpChannel.close();
+        }
+
+        if (eventLoops != null) {
+            for (NioEventLoop eventLoop : eventLoops) {
+                eventLoop.close();
+            }
+        }
 
         LOGGER.config(String.format("Exiting: %s %s", Server.class.getName(), "closeServer()"));
     }
@@ -127,11 +266,29 @@ public class Server implements Runnable {
         // start UDP DiscoveryThread
         discoveryThread.start();
 
+        // start the channel for position updates before players can join
+        try {
+            udpChannel = new UdpChannel();
+            udpChannel.start();
+        } catch (SocketException e) {
+            LOGGER.warning("Could not bind port " + UDP_GAME_PORT + ", positions are sent over the game socket");
+        }
+
+        // start the workers that tick the game loops
+        tickScheduler.start();
+
         // start HTTP server thread
         httpThread.start();
 
         try {
-            serverSocket = new ServerSocket(GAME_PORT);
+            if (NIO_TRANSPORT.equals(transport)) {
+                // a small pool of selector threads handles all game connections
+                eventLoops = NioEventLoop.startPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+                // accept stays blocking, the accepted channels are switched to non-blocking mode
+                serverSocket = ServerSocketChannel.open().bind(new InetSocketAddress(GAME_PORT)).socket();
+            } else {
+                serverSocket = new ServerSocket(GAME_PORT);
+            }
             clientSocketLoop(serverSocket);
         } catch (IOException e) {
             e.printStackTrace();
@@ -156,10 +313,10 @@ public class Server implements Runnable {
                 continue;
             }
 
-            PrintWriter out;
+            OutputStream out;
             try {
                 // set up output stream for error output
-                out = new PrintWriter(clientSocket.getOutputStream(), true);
+                out = clientSocket.getOutputStream();
             } catch (IOException e) {
                 try {
                     clientSocket.close();
@@ -179,6 +336,12 @@ public class Server implements Runnable {
                 lobbyTimestamp = preparedPlayers.getOrDefault(remoteIp, null);
             }
 
+            // errors are sent with the protocol the client requested
+            MessageCodec errorCodec = MessageCodec.create(
+                    lobbyTimestamp != null ? lobbyTimestamp.protocol : MessageCodec.JSON,
+                    null
+            );
+
             if (lobbyTimestamp != null && !lobbyTimestamp.isExpired()) {
                 String lobbyName = lobbyTimestamp.lobbyName;
 
@@ -186,7 +349,12 @@ public class Server implements Runnable {
                 if (lobbies.containsKey(lobbyName) && (lobby = lobbies.get(lobbyName)).isOpen()) {
                     if (!lobby.isFull()) {
                         try {
-                            new PlayerConnection(clientSocket, lobby, lobbyTimestamp.playerID).start();
+                            PlayerConnection connection = createConnection(clientSocket, lobby,
+                                    lobbyTimestamp.playerID, lobbyTimestamp.protocol);
+                            if (udpChannel != null && lobbyTimestamp.udpToken != 0) {
+                                connection.bindUdp(udpChannel, lobbyTimestamp.udpToken);
+                            }
+                            connection.start();
                             preparedPlayers.remove(remoteIp);
 
                             LOGGER.info("New player (" + lobbyTimestamp.playerID + ") connected to " + lobbyName);
@@ -197,24 +365,24 @@ public class Server implements Runnable {
                         } catch (IOException e) {
                             // catch exception from PlayerConnection constructor
                             errMsg = "Could not connect to lobby!";
-                            out.println(new ErrorMessage(errMsg).toJson());
+                            sendError(out, errorCodec, new ErrorMessage(errMsg));
                         }
                     } else {
                         errMsg = "Lobby is full!";
-                        out.println(new ErrorMessage(errMsg).toJson());
+                        sendError(out, errorCodec, new ErrorMessage(errMsg));
                     }
                 } else {
-                    out.println(new ErrorMessage("Lobby does not exist!").toJson());
+                    sendError(out, errorCodec, new ErrorMessage("Lobby does not exist!"));
                 }
             } else {
                 errMsg = "Player could not be assigned to lobby";
-                out.println(new ErrorMessage(errMsg).toJson());
+                sendError(out, errorCodec, new ErrorMessage(errMsg));
             }
             preparedPlayers.remove(remoteIp);
 
             LOGGER.info("Problem while establishing new connection: " + errMsg);
 
-            out.println(new CloseConnection().toJson());
+            sendError(out, errorCodec, new CloseConnection());
 
             try {
                 clientSocket.close();
@@ -227,6 +395,43 @@ public class Server implements Runnable {
         LOGGER.config(String.format("Exiting: %s %s", Server.class.getName(), "clientSocketLoop()"));
     }
 
+    /**
+     * Send a message to a client that couldn't be connected to a lobby
+     *
+     * @param out     output stream of the client socket
+     * @param codec   codec the client requested
+     * @param message the message
+     */
+    private void sendError(OutputStream out, MessageCodec codec, Message message) {
+        try {
+            out.write(codec.encode(message));
+            out.flush();
+        } catch (IOException e) {
+            // the socket gets closed anyway
+        }
+    }
+
+    /**
+     * Create a connection for a new player with the configured transport
+     *
+     * @param clientSocket socket connection with the client
+     * @param lobby        lobby the player joins
+     * @param playerID     name of the player
+     * @param protocol     protocol the client negotiated
+     * @return the connection which still needs to be started
+     * @throws IOException if there are problems with the socket
+     */
+    private PlayerConnection createConnection(Socket clientSocket, Lobby lobby, String playerID, String protocol)
+            throws IOException {
+        MessageCodec codec = MessageCodec.create(protocol, lobby);
+        if (eventLoops != null) {
+            NioEventLoop eventLoop = eventLoops[nextEventLoop];
+            nextEventLoop = (nextEventLoop + 1) % eventLoops.length;
+            return new NioPlayerConnection(clientSocket.getChannel(), lobby, playerID, codec, eventLoop);
+        }
+        return new SocketPlayerConnection(clientSocket, lobby, playerID, codec);
+    }
+
     /**
      * Get all open lobbies
      *
@@ -252,15 +457,28 @@ public class Server implements Runnable {
         LOGGER.config(String.format("Exiting: %s %s", Server.class.getName(), "removeLobby()"));
     }
 
+    /**
+     * Create a session token for the udp channel
+     *
+     * @return the token or 0 if the server has no udp channel
+     */
+    public long createUdpToken() {
+        UdpChannel channel = udpChannel;
+        return channel == null ? 0 : channel.createToken();
+    }
+
     /**
      * Prepare a new socket connection for a player that requested to join a lobby
      *
      * @param ipAddress remote ip address of the player
      * @param lobbyName name of the lobby the player requested to join
      * @param playerID  name of the player
+     * @param protocol  protocol the client uses for the game socket
+     * @param udpToken  session token for the udp channel, 0 if the client doesn't get one
      * @return ErrorMessage in case of failure, null in case of success
      */
-    public ErrorMessage prepareNewPlayer(String ipAddress, String lobbyName, String playerID) {
+    public ErrorMessage prepareNewPlayer(String ipAddress, String lobbyName, String playerID, String protocol,
+                                         long udpToken) {
         LOGGER.config(String.format("Called: %s %s", Server.class.getName(), "prepareNewPlayer()"));
 
         LobbyTimestamp lobbyTimestamp;
@@ -281,7 +499,7 @@ public class Server implements Runnable {
                 } else if (lobby.getPlayerColors().containsKey(playerID)) {
                     return new ErrorMessage("Name already taken!");
                 }
-                lobbyTimestamp = new LobbyTimestamp(lobbyName, playerID);
+                lobbyTimestamp = new LobbyTimestamp(lobbyName, playerID, protocol, udpToken);
             }
         }
 
@@ -298,10 +516,11 @@ public class Server implements Runnable {
     /**
      * Create new lobby
      *
-     * @param lobbyName name of the lobby
+     * @param lobbyName  name of the lobby
+     * @param maxPlayers number of players that can join the lobby
      * @return ErrorMessage in case of failure, null in case of success
      */
-    public ErrorMessage createLobby(String lobbyName) {
+    public ErrorMessage createLobby(String lobbyName, int maxPlayers) {
         LOGGER.config(String.format("Entering: %s %s", Server.class.getName(), "createLobby()"));
 
         synchronized (lobbies) {
@@ -312,7 +531,7 @@ public class Server implements Runnable {
                 LOGGER.config(String.format("Exiting: %s %s", Server.class.getName(), "createLobby()"));
                 return new ErrorMessage("Maximum number of lobbies reached!");
             } else {
-                lobbies.put(lobbyName, new Lobby(lobbyName, this));
+                lobbies.put(lobbyName, new Lobby(lobbyName, this, maxPlayers));
                 LOGGER.config(String.format("Exiting: %s %s", Server.class.getName(), "createLobby()"));
                 return null;
             }
@@ -347,6 +566,14 @@ public class Server implements Runnable {
          * Name of the player
          */
         public final String playerID;
+        /**
+         * Protocol of the game socket
+         */
+        public final String protocol;
+        /**
+         * Session token for the udp channel
+         */
+        public final long udpToken;
         /**
          * Time of creation of a LobbyTimestamp object
          */
@@ -357,10 +584,14 @@ public class Server implements Runnable {
          *
          * @param lobbyName name of the lobby
          * @param playerID  name of the player
+         * @param protocol  protocol of the game socket
+         * @param udpToken  session token for the udp channel
          */
-        public LobbyTimestamp(String lobbyName, String playerID) {
+        public LobbyTimestamp(String lobbyName, String playerID, String protocol, long udpToken) {
             this.lobbyName = lobbyName;
             this.playerID = playerID;
+            this.protocol = protocol;
+            this.udpToken = udpToken;
             this.timeStamp = System.currentTimeMillis();
         }
 
@@ -0,0 +1,229 @@
+package Server;
+
+import Server.Messages.Message;
+import Server.Messages.MessageCodec;
+import Server.Messages.OutgoingMessage;
+import Server.Messages.Socket.CloseConnection;
+
+import java.io.*;
+import java.net.Socket;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Blocking connection that uses one thread for reading and one thread for writing batches of messages
+ * <p>
+ * The streams are guarded by locks instead of monitors, so the threads can be virtual threads without pinning
+ * their carrier thread while they block
+ */
+public class SocketPlayerConnection extends PlayerConnection {
+    /**
+     * Marker that ends the current batch
+     */
+    private static final OutgoingMessage FLUSH = new OutgoingMessage(null);
+    /**
+     * TCP socket connection to the client
+     */
+    private final Socket socket;
+    /**
+     * Output stream
+     */
+    private final OutputStream out;
+    /**
+     * Input stream
+     */
+    private final InputStream in;
+    /**
+     * Queue for outgoing messages
+     */
+    private final BlockingQueue<OutgoingMessage> messageQueue = new LinkedBlockingQueue<>(MAX_QUEUED_MESSAGES);
+    /**
+     * Indicate if messages were queued since the last flush
+     */
+    private volatile boolean unflushed = false;
+    /**
+     * Lock for the output stream
+     */
+    private final ReentrantLock outLock = new ReentrantLock();
+    /**
+     * Lock for the input stream
+     */
+    private final ReentrantLock inLock = new ReentrantLock();
+
+    /**
+     * Constructor
+     *
+     * @param socket     socket connection with the client
+     * @param lobby      lobby the player is in
+     * @param playerName name of the player
+     * @param codec      codec the client negotiated
+     * @throws IOException if there are problems with the socket or the in-/output streams
+     */
+    public SocketPlayerConnection(Socket socket, Lobby lobby, String playerName, MessageCodec codec) throws IOException {
+        super(lobby, playerName, codec);
+        this.socket = socket;
+
+        try {
+            out = new BufferedOutputStream(socket.getOutputStream());
+            in = new BufferedInputStream(new CountingInputStream(socket.getInputStream()));
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void start() {
+        Server.startThread(this::readLoop);
+    }
+
+    /**
+     * Read messages until the socket is closed
+     */
+    private void readLoop() {
+        join();
+
+        Server.startThread(this::writeLoop);
+
+        Message message;
+        while (alive) {
+            inLock.lock();
+            try {
+                // read() returns null if socket connection was closed from other end
+                if ((message = codec.read(in)) == null) break;
+            } catch (IOException e) {
+                // a connection that is still alive was lost, otherwise the server closed it
+                dropped |= alive;
+                break;
+            } finally {
+                inLock.unlock();
+            }
+
+            // skip frames that can't be decoded, e.g. empty lines
+            if (Message.isValid(message)) {
+                handleMessage(message);
+            }
+        }
+
+        send(new CloseConnection());
+
+        try {
+            socket.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        leave();
+    }
+
+    /**
+     * Write the queued messages in batches until the connection is closed
+     * <p>
+     * A batch ends at the end of the tick, when it reached the maximum size or when its first message waited for the
+     * maximum latency, and is written with a single flush
+     */
+    private void writeLoop() {
+        while (alive) {
+            try {
+                OutgoingMessage msg = messageQueue.take();
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Server.maxBatchLatency);
+                int messages = 0;
+
+                outLock.lock();
+                try {
+                    while (msg != null && msg != FLUSH) {
+                        byte[] frame = msg.encode(codec);
+                        out.write(frame);
+                        Metrics.messageSent(msg.message.type, frame.length);
+                        if (++messages >= Server.maxBatchSize) {
+                            break;
+                        }
+
+                        long remaining = deadline - System.nanoTime();
+                        msg = remaining > 0 ? messageQueue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    }
+
+                    if (messages > 0) {
+                        out.flush();
+                        recordFlush(messages);
+                    }
+                } finally {
+                    outLock.unlock();
+                }
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            } catch (IOException e) {
+                // the reader notices the closed socket and removes the player
+                break;
+            }
+        }
+    }
+
+    @Override
+    public void send(OutgoingMessage message) {
+        if (!messageQueue.offer(message)) {
+            dropped = true;
+            close();
+            return;
+        }
+        unflushed = true;
+    }
+
+    @Override
+    public void flush() {
+        if (unflushed) {
+            unflushed = false;
+            // the marker ends the current batch, it is dropped if the queue is full
+            messageQueue.offer(FLUSH);
+        }
+    }
+
+    @Override
+    public int queueDepth() {
+        return messageQueue.size();
+    }
+
+    @Override
+    public void close() {
+        alive = false;
+        try {
+            socket.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Input stream that counts the received bytes for the metrics
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        /**
+         * Constructor
+         *
+         * @param in the stream of the socket
+         */
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                Metrics.bytesReceived(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                Metrics.bytesReceived(read);
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package Server;
+
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import static General.MultiBomb.LOGGER;
+
+/**
+ * Server-wide scheduler that ticks the game loops of all lobbies with a small pool of worker threads
+ * <p>
+ * The game loops wait in a delay queue that is ordered by the deadline of their next tick. A game loop is only put
+ * back after its tick finished, so the ticks of one lobby never run concurrently. The deadlines are a fixed timestep
+ * from the first tick, so a game loop that fell behind runs its missed ticks back to back until it caught up, but
+ * ticks that are more than {@link #MAX_CATCH_UP_TICKS} behind are dropped.
+ */
+public class TickScheduler {
+    /**
+     * Number of ticks a game loop may be behind before it drops ticks instead of catching up
+     */
+    public static final int MAX_CATCH_UP_TICKS = 8;
+    /**
+     * Game loops by the deadline of their next tick
+     */
+    private final DelayQueue<ScheduledWorld> queue = new DelayQueue<>();
+    /**
+     * Threads that run the ticks
+     */
+    private final Thread[] workers;
+    /**
+     * Indicate if the scheduler is still running
+     */
+    private volatile boolean running = true;
+
+    /**
+     * Constructor
+     *
+     * @param threads number of worker threads
+     */
+    public TickScheduler(int threads) {
+        workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(this::work, "TickWorker-" + i);
+            workers[i].setDaemon(true);
+        }
+    }
+
+    /**
+     * Start the worker threads
+     */
+    public void start() {
+        for (Thread worker : workers) {
+            worker.start();
+        }
+    }
+
+    /**
+     * Stop the worker threads, game loops that are still running are not ticked anymore
+     */
+    public void close() {
+        running = false;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * Start ticking a game loop
+     *
+     * @param world     the game loop
+     * @param startTime time in milliseconds since the epoch at which the first tick runs
+     */
+    public void schedule(GameWorld world, long startTime) {
+        long delay = TimeUnit.MILLISECONDS.toNanos(Math.max(0, startTime - System.currentTimeMillis()));
+        queue.add(new ScheduledWorld(world, System.nanoTime() + delay, Server.ticksPerSecond));
+    }
+
+    /**
+     * Run the ticks that are due until the scheduler is closed
+     */
+    private void work() {
+        LOGGER.config(String.format("Entering: %s %s", TickScheduler.class.getName(), "work()"));
+
+        while (running) {
+            ScheduledWorld scheduled;
+            try {
+                scheduled = queue.take();
+            } catch (InterruptedException e) {
+                continue;
+            }
+
+            long start = System.nanoTime();
+            boolean keepRunning;
+            try {
+                keepRunning = scheduled.world.tick();
+            } catch (RuntimeException e) {
+                // a broken game loop must not take a worker of the other lobbies with it
+                LOGGER.log(Level.SEVERE, "Game loop failed, the game is ended", e);
+                keepRunning = false;
+                endFailedGame(scheduled.world);
+            }
+            long end = System.nanoTime();
+            scheduled.world.tickStats.record(start, start - scheduled.deadline, end - start);
+
+            if (keepRunning) {
+                scheduled.advance(end);
+                queue.add(scheduled);
+            }
+        }
+
+        LOGGER.config(String.format("Exiting: %s %s", TickScheduler.class.getName(), "work()"));
+    }
+
+    /**
+     * End the game of a game loop that failed, so its players get back to the lobby
+     *
+     * @param world the game loop
+     */
+    private static void endFailedGame(GameWorld world) {
+        try {
+            world.fail();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Failed game could not be ended", e);
+        }
+    }
+
+    /**
+     * Game loop that waits for the deadline of its next tick
+     */
+    private static class ScheduledWorld implements Delayed {
+        /**
+         * The game loop
+         */
+        private final GameWorld world;
+        /**
+         * Deadline of the first tick in nanoseconds
+         */
+        private final long origin;
+        /**
+         * Tick rate of the game loop
+         */
+        private final int ticksPerSecond;
+        /**
+         * Number of ticks since the first tick
+         */
+        private long tick = 0;
+        /**
+         * Deadline of the next tick in nanoseconds
+         */
+        private long deadline;
+
+        /**
+         * Constructor
+         *
+         * @param world          the game loop
+         * @param origin         deadline of the first tick in nanoseconds
+         * @param ticksPerSecond tick rate of the game loop
+         */
+        private ScheduledWorld(GameWorld world, long origin, int ticksPerSecond) {
+            this.world = world;
+            this.origin = origin;
+            this.ticksPerSecond = ticksPerSecond;
+            this.deadline = origin;
+        }
+
+        /**
+         * Move the deadline to the next tick
+         *
+         * @param now the current time in nanoseconds
+         */
+        private void advance(long now) {
+            tick++;
+            // the deadline is computed from the first tick, so periods that are not whole nanoseconds don't drift
+            deadline = origin + tick * TimeUnit.SECONDS.toNanos(1) / ticksPerSecond;
+
+            long behind = (now - deadline) * ticksPerSecond / TimeUnit.SECONDS.toNanos(1);
+            if (behind > MAX_CATCH_UP_TICKS) {
+                // give up on the ticks that can't be caught up in time and keep the most recent ones
+                long skipped = behind - MAX_CATCH_UP_TICKS;
+                tick += skipped;
+                deadline = origin + tick * TimeUnit.SECONDS.toNanos(1) / ticksPerSecond;
+                world.tickStats.skip(skipped);
+            }
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(deadline, ((ScheduledWorld) other).deadline);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package Server;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Timing of the ticks of a game loop
+ * <p>
+ * The ticks are recorded by the worker that ran them, one tick at a time, and the numbers can be read from any thread.
+ */
+public class TickStats {
+    /**
+     * Upper bounds of the buckets of the tick-duration histogram in milliseconds, the last bucket has no bound
+     */
+    public static final double[] BUCKETS = {0.25, 0.5, 1, 2, 4, 8, 16, 32, 64};
+    /**
+     * Length of the window the achieved tick rate is measured over
+     */
+    private static final long TPS_WINDOW = TimeUnit.SECONDS.toNanos(1);
+    /**
+     * Number of ticks by their duration
+     */
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS.length + 1);
+    /**
+     * Time between two ticks in nanoseconds
+     */
+    private final long tickPeriod;
+    /**
+     * Number of recorded ticks
+     */
+    private volatile long ticks = 0;
+    /**
+     * Time all recorded ticks took together in nanoseconds
+     */
+    private volatile long totalDuration = 0;
+    /**
+     * Number of ticks that took longer than the tick period
+     */
+    private volatile long overruns = 0;
+    /**
+     * Number of ticks that started more than one tick period after their deadline
+     */
+    private volatile long lateTicks = 0;
+    /**
+     * Number of ticks that were dropped because the game loop was too far behind
+     */
+    private volatile long skippedTicks = 0;
+    /**
+     * The longest time a tick started after its deadline in nanoseconds
+     */
+    private volatile long maxLateness = 0;
+    /**
+     * Tick rate that was achieved in the last full window
+     */
+    private volatile double achievedTps = 0;
+    /**
+     * Start of the current window in nanoseconds
+     */
+    private long windowStart = 0;
+    /**
+     * Number of ticks in the current window
+     */
+    private int windowTicks = 0;
+
+    /**
+     * Constructor
+     *
+     * @param tickPeriod time between two ticks in nanoseconds
+     */
+    public TickStats(long tickPeriod) {
+        this.tickPeriod = tickPeriod;
+    }
+
+    /**
+     * Record a tick
+     *
+     * @param start    time the tick started at in nanoseconds
+     * @param lateness time the tick started after its deadline in nanoseconds
+     * @param duration time the tick took in nanoseconds
+     */
+    public void record(long start, long lateness, long duration) {
+        histogram.incrementAndGet(bucket(duration));
+        ticks++;
+        totalDuration += duration;
+        if (duration > tickPeriod) {
+            overruns++;
+        }
+        if (lateness > tickPeriod) {
+            lateTicks++;
+        }
+        if (lateness > maxLateness) {
+            maxLateness = lateness;
+        }
+
+        if (windowTicks == 0) {
+            windowStart = start;
+        }
+        windowTicks++;
+        if (start - windowStart >= TPS_WINDOW) {
+            // the ticks between the first and the last start of the window
+            achievedTps = (windowTicks - 1) * 1e9 / (start - windowStart);
+            windowStart = start;
+            windowTicks = 1;
+        }
+    }
+
+    /**
+     * Record ticks that were dropped instead of caught up
+     *
+     * @param count number of dropped ticks
+     */
+    public void skip(long count) {
+        skippedTicks += count;
+    }
+
+    /**
+     * Find the bucket of a tick duration
+     *
+     * @param duration the duration in nanoseconds
+     * @return index of the bucket
+     */
+    private static int bucket(long duration) {
+        double millis = duration / 1e6;
+        for (int i = 0; i < BUCKETS.length; i++) {
+            if (millis <= BUCKETS[i]) {
+                return i;
+            }
+        }
+        return BUCKETS.length;
+    }
+
+    /**
+     * @return number of ticks for every bucket of the histogram, the last entry counts the ticks above all bounds
+     */
+    public long[] getHistogram() {
+        long[] counts = new long[histogram.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = histogram.get(i);
+        }
+        return counts;
+    }
+
+    /**
+     * @return number of recorded ticks
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * @return time all recorded ticks took together in nanoseconds
+     */
+    public long getTotalDuration() {
+        return totalDuration;
+    }
+
+    /**
+     * @return number of ticks that took longer than the tick period
+     */
+    public long getOverruns() {
+        return overruns;
+    }
+
+    /**
+     * @return number of ticks that started more than one tick period after their deadline
+     */
+    public long getLateTicks() {
+        return lateTicks;
+    }
+
+    /**
+     * @return number of ticks that were dropped because the game loop was too far behind
+     */
+    public long getSkippedTicks() {
+        return skippedTicks;
+    }
+
+    /**
+     * @return the longest time a tick started after its deadline in nanoseconds
+     */
+    public long getMaxLateness() {
+        return maxLateness;
+    }
+
+    /**
+     * @return tick rate that was achieved in the last full second
+     */
+    public double getAchievedTps() {
+        return achievedTps;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d ticks at %.1f TPS, mean %.3f ms, overruns: %d, late: %d, skipped: %d, max lateness: %.2f ms",
+                ticks, achievedTps, ticks == 0 ? 0 : totalDuration / 1e6 / ticks, overruns, lateTicks, skippedTicks,
+                maxLateness / 1e6);
+    }
+}
@@ -0,0 +1,148 @@
+package Server;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+import static General.MultiBomb.LOGGER;
+
+/**
+ * Unreliable channel for position updates next to the game socket
+ * <p>
+ * A datagram of a client starts with the session token it got when joining the lobby, its sequence number and the
+ * sequence number of the last datagram it received from the server, followed by one frame of the negotiated codec.
+ * Datagrams of the server only start with their sequence number.
+ */
+public class UdpChannel extends Thread {
+    /**
+     * Size of the header of a client datagram
+     */
+    public static final int CLIENT_HEADER_SIZE = 16;
+    /**
+     * Size of the header of a server datagram
+     */
+    public static final int SERVER_HEADER_SIZE = 4;
+    /**
+     * Maximum size of a datagram
+     */
+    public static final int MAX_DATAGRAM_SIZE = 65507;
+    /**
+     * The socket
+     */
+    private final DatagramSocket socket;
+    /**
+     * Connections by their session token
+     */
+    private final Map<Long, PlayerConnection> sessions = new ConcurrentHashMap<>();
+    /**
+     * Random number generator for the session tokens
+     */
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Constructor
+     *
+     * @throws SocketException if the port can't be bound
+     */
+    public UdpChannel() throws SocketException {
+        super("UdpChannel");
+        setDaemon(true);
+        socket = new DatagramSocket(Server.UDP_GAME_PORT);
+    }
+
+    /**
+     * Create a new session token
+     *
+     * @return a token that is never 0
+     */
+    public long createToken() {
+        long token;
+        do {
+            token = random.nextLong();
+        } while (token == 0);
+        return token;
+    }
+
+    /**
+     * Bind a session token to a connection
+     *
+     * @param token      the session token
+     * @param connection the connection of the player
+     */
+    public void register(long token, PlayerConnection connection) {
+        sessions.put(token, connection);
+    }
+
+    /**
+     * Remove a session token
+     *
+     * @param token the session token
+     */
+    public void unregister(long token) {
+        sessions.remove(token);
+    }
+
+    /**
+     * Send a frame to a client
+     *
+     * @param address  address of the client
+     * @param sequence sequence number of the datagram
+     * @param frame    the encoded frame
+     */
+    public void send(SocketAddress address, int sequence, byte[] frame) {
+        byte[] datagram = new byte[SERVER_HEADER_SIZE + frame.length];
+        ByteBuffer.wrap(datagram).putInt(sequence).put(frame);
+        try {
+            socket.send(new DatagramPacket(datagram, datagram.length, address));
+        } catch (IOException e) {
+            // the datagram is lost, the next position replaces it anyway
+        }
+    }
+
+    /**
+     * Close the socket
+     */
+    public void close() {
+        socket.close();
+    }
+
+    @Override
+    public void run() {
+        LOGGER.config(String.format("Entering: %s %s", UdpChannel.class.getName(), "run()"));
+
+        byte[] buffer = new byte[MAX_DATAGRAM_SIZE];
+        while (!socket.isClosed()) {
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                socket.receive(packet);
+            } catch (IOException e) {
+                continue;
+            }
+
+            Metrics.bytesReceived(packet.getLength());
+            if (packet.getLength() <= CLIENT_HEADER_SIZE) {
+                continue;
+            }
+            ByteBuffer header = ByteBuffer.wrap(buffer, 0, CLIENT_HEADER_SIZE);
+            PlayerConnection connection = sessions.get(header.getLong());
+            if (connection != null) {
+                try {
+                    connection.receiveDatagram(packet.getSocketAddress(), header.getInt(), header.getInt(),
+                            buffer, CLIENT_HEADER_SIZE, packet.getLength() - CLIENT_HEADER_SIZE);
+                } catch (RuntimeException e) {
+                    // one broken datagram must not stop the channel of all games
+                    LOGGER.log(Level.WARNING, "Datagram of " + connection.name + " could not be handled", e);
+                }
+            }
+        }
+
+        LOGGER.config(String.format("Exiting: %s %s", UdpChannel.class.getName(), "run()"));
+    }
+}
@@ -0,0 +1,109 @@
+package Simulation;
+
+/**
+ * The spreading of a bomb explosion, shared by the game loop of the server and the animation of the client
+ * <p>
+ * The explosion spreads one field per step into all four directions. A direction stops at the first field that is
+ * hit, the field itself is still reached. Both sides apply the same steps in the same order, so they agree on where
+ * the explosion stopped even if the field is destroyed afterwards.
+ */
+public class Explosion {
+    /**
+     * The directions in the order they are hit
+     */
+    public static final int NORTH = 0, SOUTH = 1, EAST = 2, WEST = 3;
+    /**
+     * Change of m per field for every direction
+     */
+    private static final int[] DELTA_M = {-1, 1, 0, 0};
+    /**
+     * Change of n per field for every direction
+     */
+    private static final int[] DELTA_N = {0, 0, 1, -1};
+    /**
+     * Position of the bomb
+     */
+    public final int m, n;
+    /**
+     * Number of fields the explosion spreads at most
+     */
+    public final int size;
+    /**
+     * Distance of the field that stopped each direction, 0 while the direction is spreading
+     */
+    private final int[] stops = new int[4];
+    /**
+     * Number of steps that were applied
+     */
+    private int steps = 0;
+
+    /**
+     * Constructor
+     *
+     * @param m    position of the bomb
+     * @param n    position of the bomb
+     * @param size number of fields the explosion spreads at most
+     */
+    public Explosion(int m, int n, int size) {
+        this.m = m;
+        this.n = n;
+        this.size = size;
+    }
+
+    /**
+     * Apply the steps up to a distance, steps that were already applied are skipped
+     *
+     * @param distance the distance of the last step
+     * @param hits     decides which fields stop the explosion
+     */
+    public void spread(int distance, Hits hits) {
+        while (steps < Math.min(distance, size)) {
+            int r = ++steps;
+            for (int direction = NORTH; direction <= WEST; direction++) {
+                if (stops[direction] == 0 && hits.hit(m + DELTA_M[direction] * r, n + DELTA_N[direction] * r)) {
+                    stops[direction] = r;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return number of steps that were applied
+     */
+    public int getSteps() {
+        return steps;
+    }
+
+    /**
+     * @param direction the direction
+     * @return the distance of the field that stopped the direction, 0 if it wasn't stopped
+     */
+    public int getStop(int direction) {
+        return stops[direction];
+    }
+
+    /**
+     * Limit the length of a direction, the explosion ends at the edge of the field that stopped it
+     *
+     * @param direction the direction
+     * @param length    distance in fields from the center of the bomb's field
+     * @return the limited distance in fields
+     */
+    public float limit(int direction, float length) {
+        return stops[direction] == 0 ? length : Math.min(length, stops[direction] - 0.5f);
+    }
+
+    /**
+     * Decides which fields stop the explosion
+     */
+    public interface Hits {
+        /**
+         * Hit a field
+         *
+         * @param m position
+         * @param n position
+         * @return true if the field stops the explosion
+         */
+        boolean hit(int m, int n);
+    }
+}
@@ -0,0 +1,69 @@
+package Simulation;
+
+import Server.Messages.Socket.ItemAction;
+import Server.Messages.Socket.PlayerInput;
+import Server.Messages.Socket.Position;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The inputs of one player for the next tick of a world
+ * <p>
+ * The world keeps one object per player that is filled before every tick and emptied by the tick, so the inputs
+ * don't have to be allocated again for every tick. A replay stores copies of them.
+ */
+public class Inputs {
+    /**
+     * Movement commands of the player
+     */
+    public final List<PlayerInput.Command> commands = new ArrayList<>();
+    /**
+     * Items the player used
+     */
+    public final List<ItemAction> itemActions = new ArrayList<>();
+    /**
+     * Position a client without input commands reported instead, null if there is none
+     */
+    public Position position = null;
+    /**
+     * Sequence number of the last command the client sent, it stays the same until new commands arrive
+     */
+    public int sequence = 0;
+    /**
+     * Indicate if the player left the game
+     */
+    public boolean left = false;
+
+    /**
+     * @return true if the tick gets nothing from the player but its sequence number
+     */
+    public boolean isEmpty() {
+        return commands.isEmpty() && itemActions.isEmpty() && position == null && !left;
+    }
+
+    /**
+     * Forget the commands, the position and the item actions after they were simulated
+     */
+    public void clear() {
+        commands.clear();
+        itemActions.clear();
+        position = null;
+        left = false;
+    }
+
+    /**
+     * Copy the inputs, the commands, the item actions and the position themselves are shared
+     *
+     * @return the copy
+     */
+    public Inputs copy() {
+        Inputs copy = new Inputs();
+        copy.commands.addAll(commands);
+        copy.itemActions.addAll(itemActions);
+        copy.position = position;
+        copy.sequence = sequence;
+        copy.left = left;
+        return copy;
+    }
+}
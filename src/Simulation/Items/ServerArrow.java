@@ -0,0 +1,54 @@
+package Simulation.Items;
+
+import Game.Models.Direction;
+import Simulation.TimerWheel;
+
+public class ServerArrow extends ServerItem {
+    /**
+     * The name of the item
+     */
+    public static final String NAME = "Arrow";
+    /**
+     * The time the player needs to stay still and aim the arrow
+     */
+    public static long AIM_TIME = 1000;
+    /**
+     * The time the arrow needs to pass one field
+     */
+    public static long DELTA_TIME = 50;
+
+    /**
+     * Run the item logic on the server
+     *
+     * @param timers       timers of the game loop
+     * @param itemCallback callback function that gets passed every field the arrow passes
+     * @param m            coordinate on the map
+     * @param n            coordinate on the map
+     * @param direction    direction of the arrow
+     */
+    public static void serverLogic(TimerWheel timers, ItemCallback itemCallback, int m, int n, Direction direction) {
+        // Time for aiming
+        fly(timers, itemCallback, m, n, direction, 1, timers.now() + AIM_TIME);
+    }
+
+    /**
+     * Schedule the step of the arrow to the next field
+     *
+     * @param timers       timers of the game loop
+     * @param itemCallback callback function that gets passed every field the arrow passes
+     * @param m            coordinate of the player
+     * @param n            coordinate of the player
+     * @param direction    direction of the arrow
+     * @param i            distance of the field from the player
+     * @param release      time the arrow was released
+     */
+    private static void fly(TimerWheel timers, ItemCallback itemCallback, int m, int n, Direction direction, int i,
+                            long release) {
+        timers.scheduleAt(release + i * DELTA_TIME, () -> {
+            boolean flying = !itemCallback.callback(m + (direction.y * i), n + (direction.x * i));
+            if (flying) {
+                fly(timers, itemCallback, m, n, direction, i + 1, release);
+            }
+        });
+    }
+}
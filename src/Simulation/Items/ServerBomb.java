@@ -0,0 +1,69 @@
+package Simulation.Items;
+
+import Simulation.Explosion;
+import Simulation.TimerWheel;
+
+public class ServerBomb extends ServerItem {
+    /**
+     * The name of the item
+     */
+    public static final String NAME = "Bomb";
+    /**
+     * The time till the bomb detonates in seconds
+     */
+    public static long DETONATION_TIME = 3000;
+    /**
+     * The total time in seconds
+     */
+    public static long TOTAL_TIME = 3300;
+
+    /**
+     * Run the item logic on the server
+     *
+     * @param timers       timers of the game loop
+     * @param itemCallback callback function that gets passed all fields in a row that might be hit
+     * @param m            coordinate on the map
+     * @param n            coordinate on the map
+     * @param bombSize     the size of the bomb explosion
+     */
+    public static void serverLogic(TimerWheel timers, ItemCallback itemCallback, int m, int n, int bombSize) {
+        long detonation = timers.now() + DETONATION_TIME;
+
+        // wait for the detonation time
+        timers.scheduleAt(detonation, () -> {
+            // callback for hitting the position of the bomb
+            itemCallback.callback(m, n);
+
+            // the explosion spreads one field per step until it hits something in a direction
+            spread(timers, itemCallback::callback, new Explosion(m, n, bombSize), 1, detonation);
+        });
+    }
+
+    /**
+     * Get the time between two steps of an explosion
+     *
+     * @param bombSize the size of the bomb explosion
+     * @return the time in milliseconds
+     */
+    public static long getStepTime(int bombSize) {
+        return (TOTAL_TIME - DETONATION_TIME) / Math.max(1, bombSize);
+    }
+
+    /**
+     * Schedule the next step of the explosion
+     *
+     * @param timers     timers of the game loop
+     * @param hits       callback function that gets passed all fields in a row that might be hit
+     * @param explosion  the explosion
+     * @param r          distance of the step from the bomb
+     * @param detonation time of the detonation
+     */
+    private static void spread(TimerWheel timers, Explosion.Hits hits, Explosion explosion, int r, long detonation) {
+        timers.scheduleAt(detonation + r * getStepTime(explosion.size), () -> {
+            explosion.spread(r, hits);
+            if (r < explosion.size) {
+                spread(timers, hits, explosion, r + 1, detonation);
+            }
+        });
+    }
+}
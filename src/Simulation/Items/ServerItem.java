@@ -1,4 +1,4 @@
-package Server.Items;
+package Simulation.Items;
 
 /**
  * The base class for a usable item
@@ -1,7 +1,6 @@
-package Server.Items;
+package Simulation.Items;
 
-import General.MultiBomb;
-import Server.Models.Player;
+import Simulation.Player;
 
 public class ServerProtection extends ServerItem {
     /**
@@ -22,11 +21,9 @@ public class ServerProtection extends ServerItem {
     public static long STANDARD_DURATION = 3000;
 
     public static void serverLogic(long time, Player player) {
-        new Thread(() -> {
-            player.protect(true);
-            MultiBomb.sleep(time);
-            player.protect(false);
-        }).start();
+        player.protect(true);
+        // the protection expires on the game loop of the player
+        player.timers.schedule(time, () -> player.protect(false));
     }
 
     public static void serverLogic(Player player) {
@@ -0,0 +1,36 @@
+package Simulation.Items;
+
+import Simulation.TimerWheel;
+
+public class ServerSword extends ServerItem {
+    /**
+     * The name of the item
+     */
+    public static final String NAME = "Sword";
+    /**
+     * Time the sword is spinning for
+     */
+    public static final long SPINNING_TIME = 1200;
+    /**
+     * Time distance between hit detections
+     */
+    private static final long DELTA_TIME = 100;
+
+    /**
+     * Run the item logic on the server
+     *
+     * @param timers       timers of the game loop
+     * @param itemCallback callback function that gets passed the field of the sword for every hit detection
+     * @param m            coordinate on the map
+     * @param n            coordinate on the map
+     */
+    public static void serverLogic(TimerWheel timers, ItemCallback itemCallback, int m, int n) {
+        // the first hit detection happens immediately
+        itemCallback.callback(m, n);
+
+        long start = timers.now();
+        for (long time = DELTA_TIME; time <= SPINNING_TIME; time += DELTA_TIME) {
+            timers.scheduleAt(start + time, () -> itemCallback.callback(m, n));
+        }
+    }
+}
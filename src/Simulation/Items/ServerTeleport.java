@@ -0,0 +1,24 @@
+package Simulation.Items;
+
+import Simulation.TimerWheel;
+
+public class ServerTeleport extends ServerItem {
+    /**
+     * The name of the item
+     */
+    public static final String NAME = "Teleport";
+    /**
+     * The time it takes to teleport
+     */
+    public static final long PREPARATION_TIME = 500;
+
+    /**
+     * Run the item logic on the server
+     *
+     * @param timers   timers of the game loop
+     * @param teleport moves the player once the preparation is over
+     */
+    public static void serverLogic(TimerWheel timers, Runnable teleport) {
+        timers.schedule(PREPARATION_TIME, teleport);
+    }
+}
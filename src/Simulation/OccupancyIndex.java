@@ -0,0 +1,137 @@
+package Simulation;
+
+import Server.Messages.Socket.Map;
+import Server.Messages.Socket.Position;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The players on every field of the grid, so hits only look at the players of the affected fields
+ * <p>
+ * A player is only moved between fields when its position changed the field. Like the grid, the index is owned by
+ * the game loop and not synchronized.
+ */
+public class OccupancyIndex {
+    /**
+     * Index of players that are outside of the grid
+     */
+    static final int OUTSIDE = -1;
+    /**
+     * Number of rows and columns
+     */
+    private final int size;
+    /**
+     * Players by the index of their field, null for empty fields
+     */
+    private final List<List<Player>> cells;
+
+    /**
+     * Constructor
+     *
+     * @param size number of rows and columns of the grid
+     */
+    public OccupancyIndex(int size) {
+        this.size = size;
+        this.cells = new ArrayList<>(Collections.nCopies(size * size, null));
+    }
+
+    /**
+     * Move a player to the field of its current position
+     *
+     * @param player the player
+     */
+    public void update(Player player) {
+        int cell = player.position == null ? OUTSIDE : cellOf(player.position);
+        int previous = player.cell;
+        if (previous == cell) {
+            return;
+        }
+
+        if (previous != OUTSIDE) {
+            cells.get(previous).remove(player);
+        }
+        if (cell != OUTSIDE) {
+            List<Player> players = cells.get(cell);
+            if (players == null) {
+                players = new ArrayList<>(2);
+                cells.set(cell, players);
+            }
+            players.add(player);
+        }
+        player.cell = cell;
+    }
+
+    /**
+     * Get the players on a field
+     *
+     * @param m position
+     * @param n position
+     * @return the players, must not be modified
+     */
+    public List<Player> playersAt(int m, int n) {
+        if (m < 0 || m >= size || n < 0 || n >= size) {
+            return Collections.emptyList();
+        }
+        List<Player> players = cells.get(m * size + n);
+        return players == null ? Collections.emptyList() : players;
+    }
+
+    /**
+     * Get the players whose field touches a circle, the exact distance must still be checked
+     *
+     * @param x      pixel position of the circle center
+     * @param y      pixel position of the circle center
+     * @param radius radius of the circle in pixels
+     * @return the players on the fields that overlap the bounding box of the circle
+     */
+    public List<Player> playersNear(float x, float y, float radius) {
+        List<Player> players = new ArrayList<>();
+        int minM = (int) Math.floor((y - radius) / Map.FIELD_SIZE);
+        int maxM = (int) Math.floor((y + radius) / Map.FIELD_SIZE);
+        int minN = (int) Math.floor((x - radius) / Map.FIELD_SIZE);
+        int maxN = (int) Math.floor((x + radius) / Map.FIELD_SIZE);
+        for (int m = minM; m <= maxM; m++) {
+            for (int n = minN; n <= maxN; n++) {
+                players.addAll(playersAt(m, n));
+            }
+        }
+        return players;
+    }
+
+    /**
+     * Check if any player is closer to a field than a distance
+     *
+     * @param m        position
+     * @param n        position
+     * @param distance the distance in fields, measured along the rows plus along the columns
+     * @return true if a player is on a field that is closer than the distance
+     */
+    public boolean isOccupiedWithin(int m, int n, int distance) {
+        for (int dm = -distance + 1; dm < distance; dm++) {
+            int reach = distance - 1 - Math.abs(dm);
+            for (int dn = -reach; dn <= reach; dn++) {
+                if (!playersAt(m + dm, n + dn).isEmpty()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the index of the field of a position, calculated like everywhere else in the game loop
+     *
+     * @param position the position
+     * @return the index or {@link #OUTSIDE}
+     */
+    private int cellOf(Position position) {
+        int m = (int) (position.y / Map.FIELD_SIZE);
+        int n = (int) (position.x / Map.FIELD_SIZE);
+        if (m < 0 || m >= size || n < 0 || n >= size) {
+            return OUTSIDE;
+        }
+        return m * size + n;
+    }
+}
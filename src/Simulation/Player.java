@@ -0,0 +1,161 @@
+package Simulation;
+
+import Game.Models.Direction;
+import Server.Messages.Socket.PlayerState;
+import Server.Messages.Socket.Position;
+import Simulation.Items.ServerProtection;
+
+public class Player {
+    /**
+     * Name of the player
+     */
+    public final String name;
+    /**
+     * Timers of the game loop the player is in
+     */
+    public final TimerWheel timers;
+    /**
+     * Position of the player, null until it is placed on the map
+     * <p>
+     * The player swaps between two position objects whenever it moves, so a position must be copied by whoever keeps
+     * it longer than the tick it was read in.
+     */
+    public Position position;
+    /**
+     * The position object that becomes the position with the next move
+     */
+    private Position next;
+    /**
+     * State of the player
+     */
+    public PlayerState playerState;
+    /**
+     * Protection state of player
+     */
+    public boolean isProtected;
+    /**
+     * Position the player starts and respawns at
+     */
+    public Position spawn;
+    /**
+     * Sequence number of the last input command that was simulated
+     */
+    public int lastInput = 0;
+    /**
+     * Time in nanoseconds the player may still move, grows with every tick so fast clients can't move faster
+     */
+    public long movementBudget = 0;
+    /**
+     * Field of the bomb the player stands on and may still leave, -1 if there is none
+     */
+    public int bombM = -1, bombN = -1;
+    /**
+     * Indicate if the player died and waits for the respawn, its movement is ignored until then
+     */
+    public boolean respawning = false;
+    /**
+     * Indicate if the server moved the player and the client has to be corrected
+     */
+    public boolean corrected = false;
+    /**
+     * Index of the field the occupancy index keeps the player at
+     */
+    int cell = OccupancyIndex.OUTSIDE;
+
+    /**
+     * Constructor
+     *
+     * @param name   name of the player
+     * @param timers timers of the game loop the player is in
+     */
+    public Player(String name, TimerWheel timers) {
+        this.name = name;
+        this.timers = timers;
+
+        this.playerState = new PlayerState(name);
+        this.next = new Position();
+        this.next.playerId = name;
+    }
+
+    /**
+     * Get the position object the next position of the player is written into, it starts as a copy of the position
+     *
+     * @return the next position, it becomes the position of the player with {@link #move()}
+     */
+    public Position nextPosition() {
+        if (position != null) {
+            next.x = position.x;
+            next.y = position.y;
+            next.direction = position.direction;
+            next.moving = position.moving;
+        }
+        return next;
+    }
+
+    /**
+     * Make the next position the position of the player, the old position object is reused for the next move
+     */
+    public void move() {
+        Position previous = position;
+        position = next;
+        if (previous == null) {
+            previous = new Position();
+            previous.playerId = name;
+        }
+        next = previous;
+    }
+
+    /**
+     * Move the player to a position without simulating the movement
+     *
+     * @param x         coordinate
+     * @param y         coordinate
+     * @param direction the direction the player looks at afterwards
+     */
+    public void teleport(float x, float y, Direction direction) {
+        Position next = nextPosition();
+        next.x = x;
+        next.y = y;
+        next.direction = direction;
+        next.moving = false;
+        move();
+        bombM = -1;
+        bombN = -1;
+        corrected = true;
+    }
+
+    /**
+     * Kill the player instantly
+     */
+    public void kill() {
+        playerState.health = 0;
+    }
+
+    /**
+     * Hit the player
+     */
+    public synchronized void hit() {
+        if (!isProtected) {
+            playerState.health -= 1;
+            ServerProtection.serverLogic(ServerProtection.HIT_DURATION, this);
+        }
+    }
+
+    /**
+     * Protect the player from hit
+     *
+     * @param value set the protection to true or false
+     */
+    public void protect(boolean value) {
+        isProtected = value;
+    }
+
+    /**
+     * Indicate if the player's health is above 0
+     *
+     * @return boolean indicating if the player is still alive
+     */
+    public boolean isAlive() {
+        return playerState.isAlive();
+    }
+}
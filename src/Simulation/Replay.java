@@ -0,0 +1,117 @@
+package Simulation;
+
+import Server.Messages.Socket.Map;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * The start and the inputs of a game, running them again results in the same game
+ * <p>
+ * Only the inputs of the players are stored for every tick, everything else follows from the map, the players and
+ * the seed of the world.
+ */
+public class Replay {
+    /**
+     * Inputs of a tick in which no player did anything
+     */
+    private static final HashMap<String, Inputs> NO_INPUTS = new HashMap<>();
+    /**
+     * The map of the game
+     */
+    public final Map map;
+    /**
+     * Name of the game mode
+     */
+    public final String gameModeName;
+    /**
+     * Colors of the players by their name
+     */
+    public final HashMap<String, Integer> colors;
+    /**
+     * The seed of the random numbers
+     */
+    public final long seed;
+    /**
+     * Number of ticks per second
+     */
+    public final int ticksPerSecond;
+    /**
+     * The inputs of the players that did something, one entry for every tick
+     */
+    private final List<HashMap<String, Inputs>> ticks = new ArrayList<>();
+
+    /**
+     * Constructor
+     *
+     * @param map            the map of the game
+     * @param gameModeName   name of the game mode
+     * @param colors         colors of the players by their name
+     * @param seed           the seed of the random numbers
+     * @param ticksPerSecond number of ticks per second
+     */
+    public Replay(Map map, String gameModeName, HashMap<String, Integer> colors, long seed, int ticksPerSecond) {
+        this.map = map;
+        this.gameModeName = gameModeName;
+        this.colors = new HashMap<>(colors);
+        this.seed = seed;
+        this.ticksPerSecond = ticksPerSecond;
+    }
+
+    /**
+     * Store the inputs of the next tick
+     *
+     * @param inputs the inputs of every player
+     */
+    void add(HashMap<String, Inputs> inputs) {
+        HashMap<String, Inputs> tick = NO_INPUTS;
+        for (java.util.Map.Entry<String, Inputs> entry : inputs.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                if (tick == NO_INPUTS) {
+                    tick = new HashMap<>();
+                }
+                tick.put(entry.getKey(), entry.getValue().copy());
+            }
+        }
+        ticks.add(tick);
+    }
+
+    /**
+     * @return number of stored ticks
+     */
+    public int getTicks() {
+        return ticks.size();
+    }
+
+    /**
+     * Run the game again without events
+     *
+     * @return the world after the last tick
+     */
+    public World run() {
+        return run(World.Events.NONE);
+    }
+
+    /**
+     * Run the game again
+     *
+     * @param events receives what happened during a tick
+     * @return the world after the last tick
+     */
+    public World run(World.Events events) {
+        World world = new World(map, gameModeName, colors, seed, ticksPerSecond, events);
+        for (HashMap<String, Inputs> tick : ticks) {
+            tick.forEach((name, recorded) -> {
+                Inputs inputs = world.getInputs(name);
+                inputs.commands.addAll(recorded.commands);
+                inputs.itemActions.addAll(recorded.itemActions);
+                inputs.position = recorded.position;
+                inputs.sequence = recorded.sequence;
+                inputs.left = recorded.left;
+            });
+            world.step();
+        }
+        return world;
+    }
+}
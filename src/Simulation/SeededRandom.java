@@ -0,0 +1,64 @@
+package Simulation;
+
+/**
+ * Random numbers that only depend on a seed (SplitMix64)
+ * <p>
+ * A game that is run again with the same seed and the same inputs spawns the same items at the same fields, which
+ * makes it possible to replay it. Unlike java.util.Random the state is not shared between threads and no numbers are
+ * allocated.
+ */
+public class SeededRandom {
+    /**
+     * The seed the numbers were started with
+     */
+    public final long seed;
+    /**
+     * The current state
+     */
+    private long state;
+
+    /**
+     * Constructor
+     *
+     * @param seed the seed
+     */
+    public SeededRandom(long seed) {
+        this.seed = seed;
+        this.state = seed;
+    }
+
+    /**
+     * @return the current state, generators with the same state return the same numbers
+     */
+    public long getState() {
+        return state;
+    }
+
+    /**
+     * @return the next 64 random bits
+     */
+    public long nextLong() {
+        long z = (state += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @param bound the upper bound, must be positive
+     * @return a random number between 0 (inclusive) and the bound (exclusive)
+     */
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive");
+        }
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+
+    /**
+     * @return a random number between 0 (inclusive) and 1 (exclusive)
+     */
+    public float nextFloat() {
+        return (nextLong() >>> 40) * 0x1.0p-24f;
+    }
+}
@@ -0,0 +1,154 @@
+package Simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hashed timing wheel that runs delayed tasks on the game loop
+ * <p>
+ * Every slot of the wheel collects the tasks that are due in one tick, tasks that are more than one revolution away
+ * count down their remaining rounds. The wheel is not thread-safe, it must only be used by the thread of the game
+ * loop that advances it.
+ */
+public class TimerWheel {
+    /**
+     * Number of slots, a power of two
+     */
+    private static final int SLOTS = 512;
+    /**
+     * Duration of a tick in milliseconds
+     */
+    private final double tickDuration;
+    /**
+     * Tasks by the slot they are due in
+     */
+    private final List<List<Timeout>> wheel = new ArrayList<>(SLOTS);
+    /**
+     * Empty list that becomes the list of the next slot with due tasks
+     */
+    private List<Timeout> spare = new ArrayList<>();
+    /**
+     * The tasks that run in the current tick
+     */
+    private final List<Runnable> due = new ArrayList<>();
+    /**
+     * The current tick
+     */
+    private long tick = 0;
+    /**
+     * Number of tasks that are not executed yet
+     */
+    private int pending = 0;
+
+    /**
+     * Constructor
+     *
+     * @param ticksPerSecond tick rate of the game loop
+     */
+    public TimerWheel(int ticksPerSecond) {
+        this.tickDuration = 1000.0 / ticksPerSecond;
+        for (int i = 0; i < SLOTS; i++) {
+            wheel.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * @return the time of the current tick in milliseconds since the wheel was created
+     */
+    public long now() {
+        return (long) (tick * tickDuration);
+    }
+
+    /**
+     * @return number of tasks that are not executed yet
+     */
+    public int size() {
+        return pending;
+    }
+
+    /**
+     * Run a task after a delay
+     *
+     * @param delay delay in milliseconds
+     * @param task  the task
+     */
+    public void schedule(long delay, Runnable task) {
+        scheduleAt(now() + delay, task);
+    }
+
+    /**
+     * Run a task at a time of the wheel, chained tasks use the time of their first task so they don't drift
+     *
+     * @param time time in milliseconds since the wheel was created
+     * @param task the task
+     */
+    public void scheduleAt(long time, Runnable task) {
+        // the task runs in the first tick that is not earlier than its time, but never in the current tick
+        long dueTick = Math.max(tick + 1, (long) Math.ceil(time / tickDuration));
+        long ticks = dueTick - tick;
+
+        wheel.get((int) (dueTick & (SLOTS - 1))).add(new Timeout((ticks - 1) / SLOTS, task));
+        pending++;
+    }
+
+    /**
+     * Advance the wheel by one tick and run the tasks that are due
+     */
+    public void advance() {
+        tick++;
+        int slot = (int) (tick & (SLOTS - 1));
+
+        // tasks that are scheduled while running the due tasks end up in the new list of the slot
+        List<Timeout> bucket = wheel.get(slot);
+        if (bucket.isEmpty()) {
+            return;
+        }
+        List<Timeout> remaining = spare;
+        for (int i = 0; i < bucket.size(); i++) {
+            Timeout timeout = bucket.get(i);
+            if (timeout.rounds > 0) {
+                timeout.rounds--;
+                remaining.add(timeout);
+            } else {
+                due.add(timeout.task);
+            }
+        }
+        wheel.set(slot, remaining);
+        bucket.clear();
+        spare = bucket;
+        pending -= due.size();
+
+        try {
+            for (int i = 0; i < due.size(); i++) {
+                due.get(i).run();
+            }
+        } finally {
+            due.clear();
+        }
+    }
+
+    /**
+     * Task that waits in a slot of the wheel
+     */
+    private static class Timeout {
+        /**
+         * The task
+         */
+        private final Runnable task;
+        /**
+         * Number of revolutions until the task is due
+         */
+        private long rounds;
+
+        /**
+         * Constructor
+         *
+         * @param rounds number of revolutions until the task is due
+         * @param task   the task
+         */
+        private Timeout(long rounds, Runnable task) {
+            this.rounds = rounds;
+            this.task = task;
+        }
+    }
+}
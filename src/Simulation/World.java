@@ -0,0 +1,772 @@
+package Simulation;
+
+import Game.GameModes.GameMode;
+import Game.Models.Direction;
+import Game.Models.Field;
+import Game.Models.Movement;
+import Server.Messages.Message;
+import Server.Messages.Socket.ItemAction;
+import Server.Messages.Socket.Map;
+import Server.Messages.Socket.PlayerInput;
+import Server.Messages.Socket.Position;
+import Simulation.Items.ServerArrow;
+import Simulation.Items.ServerBomb;
+import Simulation.Items.ServerProtection;
+import Simulation.Items.ServerSword;
+import Simulation.Items.ServerTeleport;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The state of a game that is advanced by fixed ticks
+ * <p>
+ * The world contains the fields, the players, the timers of the items and the random numbers of a game. A tick only
+ * depends on the state and the inputs of the players, so a world that is started with the same map, players and seed
+ * and gets the same inputs ends up in the same state. The server runs one world per game and turns its events into
+ * messages, without events it runs headless, e.g. to replay a game. Like the grid, a world must only be used by one
+ * thread.
+ * <p>
+ * A tick in which nobody uses an item doesn't allocate: the inputs are reused, the players swap between two position
+ * objects and are handled in a fixed order. Items allocate the timers of their logic.
+ */
+public class World {
+    /**
+     * A threshold for random values to handle the rate at which items are spawned on the map
+     */
+    private static final float RANDOM_THRESHOLD = 0.2f;
+    /**
+     * Longest time in nanoseconds a player can save up for moving, covers input commands that arrive in bursts
+     */
+    private static final long MAX_MOVEMENT_BUDGET = TimeUnit.MILLISECONDS.toNanos(500);
+    /**
+     * The map the world was created from
+     */
+    public final Map map;
+    /**
+     * Name of the game mode
+     */
+    public final String gameModeName;
+    /**
+     * Colors of the players by their name, the color is the index of the spawn
+     */
+    public final HashMap<String, Integer> colors;
+    /**
+     * Number of ticks per second
+     */
+    public final int ticksPerSecond;
+    /**
+     * Random numbers for the spawning of items and the targets of teleports
+     */
+    private final SeededRandom random;
+    /**
+     * The fields of the game
+     */
+    private final WorldGrid grid;
+    /**
+     * The players on every field
+     */
+    private final OccupancyIndex occupancy;
+    /**
+     * Map of all player names to the according player objects
+     */
+    private final HashMap<String, Player> players = new HashMap<>();
+    /**
+     * The inputs of every player for the next tick
+     */
+    private final HashMap<String, Inputs> inputs = new HashMap<>();
+    /**
+     * The players sorted by their name, every tick handles them in this order
+     */
+    private final Player[] order;
+    /**
+     * The inputs of the players in the same order
+     */
+    private final Inputs[] orderedInputs;
+    /**
+     * The GameMode of the game
+     */
+    private final GameMode gameMode;
+    /**
+     * Timers for the item logic
+     */
+    private final TimerWheel timers;
+    /**
+     * Time between two ticks in nanoseconds
+     */
+    private final long tickPeriod;
+    /**
+     * Receives what happened during a tick
+     */
+    private final Events events;
+    /**
+     * The command that is simulated, reused for every movement that is cut to the movement budget
+     */
+    private final PlayerInput.Command step = new PlayerInput.Command(null, false, 0);
+    /**
+     * The fields the moving player can enter
+     */
+    private final Movement.Obstacles obstacles;
+    /**
+     * The player that is moved
+     */
+    private Player mover;
+    /**
+     * The number of items currently on the map
+     */
+    private int currentItems = 0;
+    /**
+     * Number of ticks that were simulated
+     */
+    private long tick = 0;
+    /**
+     * Replay the inputs are recorded in, null if they aren't recorded
+     */
+    private Replay replay;
+
+    /**
+     * Constructor
+     *
+     * @param map            the map of the game
+     * @param gameModeName   name of the game mode
+     * @param colors         colors of the players by their name
+     * @param seed           the seed of the random numbers
+     * @param ticksPerSecond number of ticks per second
+     * @param events         receives what happened during a tick
+     */
+    public World(Map map, String gameModeName, HashMap<String, Integer> colors, long seed, int ticksPerSecond,
+                 Events events) {
+        this.map = map;
+        this.gameModeName = gameModeName;
+        this.colors = new HashMap<>(colors);
+        this.ticksPerSecond = ticksPerSecond;
+        this.random = new SeededRandom(seed);
+        this.grid = new WorldGrid(map);
+        this.occupancy = new OccupancyIndex(grid.size);
+        this.gameMode = GameMode.getMode(gameModeName);
+        this.timers = new TimerWheel(ticksPerSecond);
+        this.tickPeriod = TimeUnit.SECONDS.toNanos(1) / ticksPerSecond;
+        this.events = events;
+        this.obstacles = (m, n) -> grid.isPassable(m, n)
+                && (!grid.hasBomb(m, n) || (mover.bombM == m && mover.bombN == n));
+
+        this.colors.forEach((name, color) -> {
+            // create new Player object at its spawn
+            Player player = new Player(name, timers);
+            Position spawn = map.spawns[color];
+            player.spawn = new Position(
+                    spawn.x * Map.FIELD_SIZE + Map.FIELD_SIZE / 2f,
+                    spawn.y * Map.FIELD_SIZE + Map.FIELD_SIZE / 2f
+            );
+            player.spawn.direction = spawn.direction;
+            player.teleport(player.spawn.x, player.spawn.y, spawn.direction);
+            players.put(name, player);
+            inputs.put(name, new Inputs());
+            // put the player's PlayerState object in the gameMode
+            gameMode.players.put(name, player.playerState);
+        });
+
+        this.order = players.values().toArray(new Player[0]);
+        Arrays.sort(order, Comparator.comparing(player -> player.name));
+        this.orderedInputs = new Inputs[order.length];
+        for (int i = 0; i < order.length; i++) {
+            orderedInputs[i] = inputs.get(order[i].name);
+        }
+    }
+
+    /**
+     * @return the seed of the random numbers
+     */
+    public long getSeed() {
+        return random.seed;
+    }
+
+    /**
+     * @return number of ticks that were simulated
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * @return number of item timers that are not executed yet
+     */
+    public int getActiveTimers() {
+        return timers.size();
+    }
+
+    /**
+     * @return the players of the game
+     */
+    public Collection<Player> getPlayers() {
+        return players.values();
+    }
+
+    /**
+     * @param name name of the player
+     * @return the player or null if there is no such player
+     */
+    public Player getPlayer(String name) {
+        return players.get(name);
+    }
+
+    /**
+     * Get the inputs of a player for the next tick, they are filled by the caller before the tick
+     *
+     * @param name name of the player
+     * @return the inputs or null if there is no such player
+     */
+    public Inputs getInputs(String name) {
+        return inputs.get(name);
+    }
+
+    /**
+     * Record the inputs of the following ticks, must be called before the first tick
+     *
+     * @return the replay the inputs are recorded in
+     */
+    public Replay record() {
+        replay = new Replay(map, gameModeName, colors, random.seed, ticksPerSecond);
+        return replay;
+    }
+
+    /**
+     * @return the winner of the game if the game is over
+     */
+    public Optional<String> calculateWinner() {
+        return gameMode.calculateWinner();
+    }
+
+    /**
+     * Advance the world by one tick with the inputs of the players, the inputs are emptied afterwards
+     */
+    public void step() {
+        if (replay != null) {
+            replay.add(inputs);
+        }
+        tick++;
+
+        // run detonations, arrow steps and protection expiries that are due in this tick
+        timers.advance();
+
+        // players that left are dead
+        for (int i = 0; i < order.length; i++) {
+            if (orderedInputs[i].left) {
+                order[i].kill();
+                events.broadcast(order[i].playerState);
+            }
+        }
+
+        // handle events for every player
+        for (int i = 0; i < order.length; i++) {
+            if (order[i].isAlive()) {
+                handlePlayerEvents(order[i], orderedInputs[i]);
+            }
+            orderedInputs[i].clear();
+        }
+
+        // spawn an item randomly on the map
+        spawnItem();
+    }
+
+    /**
+     * Check sum of the fields, the players and the random numbers, worlds that ran the same ticks have the same sum
+     *
+     * @return the check sum
+     */
+    public long checksum() {
+        long sum = tick;
+        for (int m = 0; m < grid.size; m++) {
+            for (int n = 0; n < grid.size; n++) {
+                sum = 31 * sum + grid.get(m, n);
+            }
+        }
+        for (Player player : order) {
+            sum = 31 * sum + player.name.hashCode();
+            sum = 31 * sum + Float.floatToIntBits(player.position.x);
+            sum = 31 * sum + Float.floatToIntBits(player.position.y);
+            sum = 31 * sum + player.playerState.health;
+            sum = 31 * sum + player.playerState.kills;
+        }
+        sum = 31 * sum + currentItems;
+        sum = 31 * sum + timers.size();
+        return 31 * sum + random.getState();
+    }
+
+    /**
+     * Handle all player events for one player
+     *
+     * @param player the player
+     * @param input  the inputs of the player
+     */
+    private void handlePlayerEvents(Player player, Inputs input) {
+        // simulate the movement of the player
+        movePlayer(player, input);
+        occupancy.update(player);
+
+        if (player.position != null) {
+            // position on the map
+            int m = (int) (player.position.y / Map.FIELD_SIZE);
+            int n = (int) (player.position.x / Map.FIELD_SIZE);
+
+            // Collect items
+            if (grid.isCollectible(m, n)) {
+                Field field = Field.getItem(grid.get(m, n));
+                grid.set(m, n, Field.GROUND.id);
+                currentItems--;
+
+                // handle the collected item
+                player.playerState.collectItem(field, true);
+
+                // notify all players about the collected item and the new player state
+                events.itemCollected(player, field, m, n);
+                events.broadcast(player.playerState);
+            }
+
+            // handle item actions of the player
+            handleItemActions(player, input.itemActions);
+        }
+    }
+
+    /**
+     * Simulate the input commands of a player
+     *
+     * @param player the player
+     * @param input  the inputs of the player
+     */
+    private void movePlayer(Player player, Inputs input) {
+        // the budget is kept in nanoseconds, so the fraction of a millisecond of every tick is not lost
+        player.movementBudget = Math.min(MAX_MOVEMENT_BUDGET, player.movementBudget + tickPeriod);
+
+        float speed = Movement.getSpeed(player.playerState.upgrades);
+        Position next = player.nextPosition();
+        for (int i = 0; i < input.commands.size(); i++) {
+            PlayerInput.Command command = input.commands.get(i);
+            if (simulate(player, next, command.direction, command.moving, command.duration, speed)
+                    && command.direction != null) {
+                // the player looks where its last command went, like on the client
+                next.direction = command.direction;
+                next.moving = command.moving;
+            }
+        }
+        if (input.position != null) {
+            // clients without input commands report where they are, the way there is checked like two commands
+            Position target = input.position;
+            float dx = target.x - next.x;
+            float dy = target.y - next.y;
+            simulate(player, next, dx < 0 ? Direction.WEST : Direction.EAST, true, Math.round(Math.abs(dx) / speed),
+                    speed);
+            if (simulate(player, next, dy < 0 ? Direction.NORTH : Direction.SOUTH, true,
+                    Math.round(Math.abs(dy) / speed), speed) && target.direction != null) {
+                next.direction = target.direction;
+                next.moving = target.moving;
+            }
+        }
+        if (!player.respawning) {
+            player.move();
+        }
+
+        if (input.sequence != player.lastInput || player.corrected) {
+            player.lastInput = input.sequence;
+            player.corrected = false;
+            events.corrected(player);
+        }
+    }
+
+    /**
+     * Simulate one movement of a player, it is cut to the movement budget of the player
+     *
+     * @param player    the player
+     * @param next      the next position of the player that is moved
+     * @param direction direction of the movement
+     * @param moving    indicate if the player moves
+     * @param duration  duration of the movement in milliseconds
+     * @param speed     the speed of the player
+     * @return false if the player waits for its respawn and the movement was only acknowledged
+     */
+    private boolean simulate(Player player, Position next, Direction direction, boolean moving, int duration,
+                             float speed) {
+        int budgeted = (int) Math.min(Math.max(0, duration), TimeUnit.NANOSECONDS.toMillis(player.movementBudget));
+        player.movementBudget -= TimeUnit.MILLISECONDS.toNanos(budgeted);
+        // movements beyond the budget and while the player respawns are acknowledged but not simulated
+        if (player.respawning) {
+            return false;
+        }
+        step.direction = direction;
+        step.moving = moving;
+        step.duration = budgeted;
+        mover = player;
+        if (budgeted > 0 && Movement.step(next, step, speed, obstacles)) {
+            // the player can't walk back onto a bomb after leaving its field
+            int m = (int) (next.y / Map.FIELD_SIZE);
+            int n = (int) (next.x / Map.FIELD_SIZE);
+            if (player.bombM != m || player.bombN != n) {
+                player.bombM = -1;
+                player.bombN = -1;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Handle item actions of a player
+     *
+     * @param player      the player
+     * @param itemActions the items the player used
+     */
+    private void handleItemActions(Player player, List<ItemAction> itemActions) {
+        // position on the map
+        int item_m = (int) (player.position.y / Map.FIELD_SIZE);
+        int item_n = (int) (player.position.x / Map.FIELD_SIZE);
+
+        for (int i = 0; i < itemActions.size(); i++) {
+            ItemAction iA = itemActions.get(i);
+            // send item action to the players that can see it
+            events.itemUsed(player, iA);
+
+            switch (iA.itemId) {
+                case ServerBomb.NAME:
+                    // the bomb blocks the other players until it is gone, the players on its field may leave
+                    grid.addBomb(item_m, item_n, 1);
+                    timers.schedule(ServerBomb.TOTAL_TIME, () -> grid.addBomb(item_m, item_n, -1));
+                    for (Player p : occupancy.playersAt(item_m, item_n)) {
+                        p.bombM = item_m;
+                        p.bombN = item_n;
+                    }
+
+                    // start the server logic of the bomb
+                    ServerBomb.serverLogic(
+                            timers,
+                            (hit_m, hit_n) -> handleHits(player.name, hit_m, hit_n, true),
+                            item_m,
+                            item_n,
+                            player.playerState.upgrades.bombSize
+                    );
+                    break;
+                case ServerArrow.NAME:
+                    ServerArrow.serverLogic(
+                            timers,
+                            (hit_m, hit_n) -> handleHits(player.name, hit_m, hit_n, false),
+                            item_m,
+                            item_n,
+                            iA.direction
+                    );
+                    break;
+                case ServerSword.NAME:
+                    ServerSword.serverLogic(
+                            timers,
+                            (m, n) -> {
+                                float x = (float) n * Map.FIELD_SIZE + Map.FIELD_SIZE * 0.5f;
+                                float y = (float) m * Map.FIELD_SIZE + Map.FIELD_SIZE * 0.5f;
+
+                                handleMapHit(m, n, false);
+                                handleMapHit(m + 1, n, false);
+                                handleMapHit(m, n + 1, false);
+                                handleMapHit(m - 1, n, false);
+                                handleMapHit(m, n - 1, false);
+
+                                handlePlayerHitCircle(player.name, x, y, Map.FIELD_SIZE * 1.5f);
+                                return false;
+                            },
+                            item_m,
+                            item_n
+                    );
+                    break;
+                case ServerTeleport.NAME:
+                    ServerTeleport.serverLogic(timers, () -> teleportToRandomPlayer(player));
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Handle hit on a field, the player that is using the item can be hit
+     *
+     * @param from               the player that used the item
+     * @param m                  coordinate on the map
+     * @param n                  coordinate on the map
+     * @param stoppedByBreakable item is stopped by breakable
+     * @return indication if something was hit
+     */
+    private boolean handleHits(String from, int m, int n, boolean stoppedByBreakable) {
+        boolean hitSomething = false;
+
+        // if pos is inside map
+        if (grid.inBounds(m, n)) {
+            // handle hits on the map
+            hitSomething = handleMapHit(m, n, stoppedByBreakable);
+
+            // a hit occurs if any of the players are on the hit's position
+            for (Player p : occupancy.playersAt(m, n)) {
+                if (p.isAlive()) {
+                    // hit player
+                    handleHitMessages(p, gameMode.handleHit(p, players.get(from)));
+                }
+            }
+        }
+        return hitSomething;
+    }
+
+    /**
+     * Handle hit from an item to a field
+     *
+     * @param m                  coordinate on the map
+     * @param n                  coordinate on the map
+     * @param stoppedByBreakable item is stopped by breakable
+     * @return indication if something was hit
+     */
+    private boolean handleMapHit(int m, int n, boolean stoppedByBreakable) {
+        boolean hitSomething = false;
+        boolean hitBreakable = false;
+
+        if (grid.isBlocking(m, n)) {
+            // field is solid or breakable, so it's a hit
+            hitSomething = true;
+
+            if (grid.isBreakable(m, n)) {
+                hitBreakable = true;
+
+                // if stopped by breakable, register hit
+                hitSomething = stoppedByBreakable;
+
+                // set the field to ground
+                grid.set(m, n, Field.GROUND.id);
+            }
+        }
+
+        if (hitBreakable) {
+            // field is destroyed, notify players
+            events.fieldDestroyed(m, n);
+
+            // randomly spawn a new item at the fields position
+            spawnItem(m, n, true);
+        }
+        return hitSomething;
+    }
+
+    /**
+     * Handle hit of players in a certain distance to a middle point of a field
+     * <p>
+     * The player that is using the item does not get hit
+     *
+     * @param from   the player that used the item
+     * @param x      pixel position of the circle center
+     * @param y      pixel position of the circle center
+     * @param radius the radius around the item
+     */
+    private void handlePlayerHitCircle(String from, float x, float y, float radius) {
+        // a hit occurs if any of the players near the center are inside the radius
+        for (Player p : occupancy.playersNear(x, y, radius)) {
+            float dx = p.position.x - x;
+            float dy = p.position.y - y;
+
+            if (p.isAlive()
+                    && dx * dx + dy * dy <= radius * radius
+                    && !p.name.equals(from)) {
+                // hit player
+                handleHitMessages(p, gameMode.handleHit(p, players.get(from)));
+            }
+        }
+    }
+
+    /**
+     * Report the messages of a hit and respawn the player if the game mode requires it
+     *
+     * @param player   the player that got hit
+     * @param messages the messages of the game mode
+     */
+    private void handleHitMessages(Player player, List<Message> messages) {
+        for (Message message : messages) {
+            events.broadcast(message);
+            if (message.type.equals(Message.RESPAWN_TYPE)) {
+                // the player stays where it died until the clients finished the animation
+                player.respawning = true;
+                timers.schedule(ServerProtection.DIE_DURATION, () -> {
+                    player.teleport(player.spawn.x, player.spawn.y, player.spawn.direction);
+                    player.respawning = false;
+                });
+            }
+        }
+    }
+
+    /**
+     * Move a player to the position of a random other player that is alive
+     *
+     * @param player the player that used the teleport
+     */
+    private void teleportToRandomPlayer(Player player) {
+        if (!player.isAlive() || player.respawning) {
+            return;
+        }
+        int targets = 0;
+        for (Player p : order) {
+            if (p != player && p.isAlive()) {
+                targets++;
+            }
+        }
+        if (targets == 0) {
+            return;
+        }
+        int target = random.nextInt(targets);
+        for (Player p : order) {
+            if (p != player && p.isAlive() && target-- == 0) {
+                player.teleport(p.position.x, p.position.y, player.position.direction);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Randomly spawn a new item
+     *
+     * @param m             coordinate on the map
+     * @param n             coordinate on the map
+     * @param fromBreakable true if the item is spawned at a destroyed field
+     */
+    private void spawnItem(int m, int n, boolean fromBreakable) {
+        int alivePlayers = 0;
+        for (Player player : order) {
+            if (player.isAlive()) {
+                alivePlayers++;
+            }
+        }
+        float randomOffset = alivePlayers > 2 ? (alivePlayers - 2) * 0.05f : 0;
+
+        if (currentItems < alivePlayers + 2) {
+            float random_threshold;
+            if (fromBreakable) {
+                random_threshold = RANDOM_THRESHOLD * 2;
+            } else {
+                random_threshold = (RANDOM_THRESHOLD + randomOffset) / ticksPerSecond;
+            }
+
+            if (random.nextFloat() < random_threshold && grid.isGround(m, n)) {
+
+                // get random new item
+                int index = random.nextInt(gameMode.items.length);
+
+                // set new item on map
+                grid.set(m, n, gameMode.items[index]);
+
+                currentItems++;
+
+                // notify all players about new item
+                events.itemSpawned(Field.getItem(gameMode.items[index]), m, n);
+            }
+        }
+    }
+
+    /**
+     * Randomly spawn a new item on a random location on the map
+     */
+    private void spawnItem() {
+        // set number for maximum number of tries a new random position is generated
+        int maxTries = 40;
+        for (int i = 0; i < maxTries; i++) {
+            // generate random position that is not on the border of the map
+            int m = random.nextInt(grid.size - 2) + 1;
+            int n = random.nextInt(grid.size - 2) + 1;
+
+            // skip positions that are too close to a player
+            if (occupancy.isOccupiedWithin(m, n, 3)) {
+                continue;
+            }
+
+            // check if location is ground on the map
+            if (grid.isGround(m, n)) {
+                // spawn new item at position
+                spawnItem(m, n, false);
+                // break loop because field with ground was found
+                break;
+            }
+        }
+    }
+
+    /**
+     * Receives what happened during a tick, the server sends it to the clients
+     */
+    public interface Events {
+        /**
+         * Events of a world that runs headless
+         */
+        Events NONE = new Events() {
+            @Override
+            public void itemCollected(Player player, Field item, int m, int n) {
+            }
+
+            @Override
+            public void fieldDestroyed(int m, int n) {
+            }
+
+            @Override
+            public void itemSpawned(Field item, int m, int n) {
+            }
+
+            @Override
+            public void itemUsed(Player player, ItemAction action) {
+            }
+
+            @Override
+            public void broadcast(Message message) {
+            }
+
+            @Override
+            public void corrected(Player player) {
+            }
+        };
+
+        /**
+         * A player collected an item, the field is ground again
+         *
+         * @param player the player
+         * @param item   the item
+         * @param m      position of the field
+         * @param n      position of the field
+         */
+        void itemCollected(Player player, Field item, int m, int n);
+
+        /**
+         * A breakable field was destroyed and is ground now
+         *
+         * @param m position of the field
+         * @param n position of the field
+         */
+        void fieldDestroyed(int m, int n);
+
+        /**
+         * An item appeared on a field
+         *
+         * @param item the item
+         * @param m    position of the field
+         * @param n    position of the field
+         */
+        void itemSpawned(Field item, int m, int n);
+
+        /**
+         * A player used an item
+         *
+         * @param player the player
+         * @param action the item action
+         */
+        void itemUsed(Player player, ItemAction action);
+
+        /**
+         * The state of a player changed or the game mode reports a hit, every player is told about it
+         *
+         * @param message the message
+         */
+        void broadcast(Message message);
+
+        /**
+         * The commands of a player up to its last input were simulated or the player was moved
+         *
+         * @param player the player
+         */
+        void corrected(Player player);
+    }
+}
@@ -0,0 +1,163 @@
+package Simulation;
+
+import Game.Models.Field;
+import Server.Messages.Socket.Map;
+
+/**
+ * The fields of a running game in one flat array with lookup tables for the properties of every field id
+ * <p>
+ * The grid is owned by the game loop and is neither synchronized nor safe for other threads, the {@link Map} it is
+ * created from stays the form that is sent to the clients and stored on disk.
+ */
+public class WorldGrid {
+    /**
+     * Number of possible field ids
+     */
+    private static final int IDS = 256;
+    /**
+     * Field ids that stop items, unknown ids are handled like solid fields
+     */
+    private static final boolean[] BLOCKING = new boolean[IDS];
+    /**
+     * Field ids that can be destroyed
+     */
+    private static final boolean[] BREAKABLE = new boolean[IDS];
+    /**
+     * Field ids of items that can be collected
+     */
+    private static final boolean[] COLLECTIBLE = new boolean[IDS];
+    /**
+     * Field ids players can walk on, the same rule the clients use
+     */
+    private static final boolean[] PASSABLE = new boolean[IDS];
+
+    static {
+        java.util.Arrays.fill(BLOCKING, true);
+        for (Field field : Field.values()) {
+            int index = field.id & 0xFF;
+            BLOCKING[index] = !field.isPassable() && field != Field.SPAWN;
+            BREAKABLE[index] = field.isBreakable();
+            COLLECTIBLE[index] = field.consumable;
+            PASSABLE[index] = field.isPassable();
+        }
+    }
+
+    /**
+     * Number of rows and columns
+     */
+    public final int size;
+    /**
+     * The field ids row by row
+     */
+    private final byte[] cells;
+    /**
+     * Number of bombs on every field, they block the players until they exploded
+     */
+    private final byte[] bombs;
+
+    /**
+     * Constructor
+     *
+     * @param map the map the game is played on
+     */
+    public WorldGrid(Map map) {
+        this.size = map.getSize();
+        this.cells = new byte[size * size];
+        this.bombs = new byte[size * size];
+        for (int m = 0; m < size; m++) {
+            for (int n = 0; n < size; n++) {
+                cells[m * size + n] = map.getField(m, n);
+            }
+        }
+    }
+
+    /**
+     * Check if a position is inside the grid
+     *
+     * @param m position
+     * @param n position
+     * @return true if the position is inside the grid
+     */
+    public boolean inBounds(int m, int n) {
+        return m >= 0 && m < size && n >= 0 && n < size;
+    }
+
+    /**
+     * Get the id of a field
+     *
+     * @param m position
+     * @param n position
+     * @return the id of the field, a solid field outside the grid
+     */
+    public byte get(int m, int n) {
+        return inBounds(m, n) ? cells[m * size + n] : Field.SOLID_0.id;
+    }
+
+    /**
+     * Set the id of a field, positions outside the grid are ignored
+     *
+     * @param m  position
+     * @param n  position
+     * @param id the new id of the field
+     */
+    public void set(int m, int n, byte id) {
+        if (inBounds(m, n)) {
+            cells[m * size + n] = id;
+        }
+    }
+
+    /**
+     * @return true if the field at the position stops items
+     */
+    public boolean isBlocking(int m, int n) {
+        return BLOCKING[get(m, n) & 0xFF];
+    }
+
+    /**
+     * @return true if the field at the position can be destroyed
+     */
+    public boolean isBreakable(int m, int n) {
+        return BREAKABLE[get(m, n) & 0xFF];
+    }
+
+    /**
+     * @return true if there is an item that can be collected at the position
+     */
+    public boolean isCollectible(int m, int n) {
+        return COLLECTIBLE[get(m, n) & 0xFF];
+    }
+
+    /**
+     * @return true if the field at the position is plain ground
+     */
+    public boolean isGround(int m, int n) {
+        return get(m, n) == Field.GROUND.id;
+    }
+
+    /**
+     * @return true if players can walk on the field at the position, bombs are not considered
+     */
+    public boolean isPassable(int m, int n) {
+        return PASSABLE[get(m, n) & 0xFF];
+    }
+
+    /**
+     * Add or remove a bomb, positions outside the grid are ignored
+     *
+     * @param m     position
+     * @param n     position
+     * @param count 1 to add a bomb, -1 to remove it
+     */
+    public void addBomb(int m, int n, int count) {
+        if (inBounds(m, n)) {
+            bombs[m * size + n] += count;
+        }
+    }
+
+    /**
+     * @return true if there is a bomb at the position
+     */
+    public boolean hasBomb(int m, int n) {
+        return inBounds(m, n) && bombs[m * size + n] > 0;
+    }
+}